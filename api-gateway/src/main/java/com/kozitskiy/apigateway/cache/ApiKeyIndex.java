@@ -0,0 +1,201 @@
+package com.kozitskiy.apigateway.cache;
+
+import com.kozitskiy.apigateway.config.ApiKeyProperties;
+import com.kozitskiy.apigateway.route.RouteMatcher;
+import com.kozitskiy.security.GatewayIdentity;
+import com.kozitskiy.security.GatewayIdentityCodec;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory replica of the active API keys issued by auth-service, so a machine client is
+ * authenticated with one SHA-256 and one map lookup, without a call to auth-service.
+ * <p>
+ * Keys are indexed by their digest only, packed into four longs. The whole snapshot is polled
+ * with {@code If-None-Match} and swapped atomically when it changes; a failed poll keeps the
+ * previous snapshot.
+ */
+@Slf4j
+@Component
+public class ApiKeyIndex {
+
+    static final String GATEWAY_SUBJECT = "api-gateway";
+    static final String GATEWAY_ROLE = "GATEWAY";
+
+    private final WebClient webClient;
+    private final GatewayIdentityCodec identityCodec;
+    private final ApiKeyProperties properties;
+    private final MeterRegistry meterRegistry;
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile RouteMatcher endpoints;
+    private volatile Disposable polling;
+
+    public ApiKeyIndex(WebClient loadBalancedWebClient,
+                       GatewayIdentityCodec identityCodec,
+                       ApiKeyProperties properties,
+                       MeterRegistry meterRegistry) {
+        this.webClient = loadBalancedWebClient;
+        this.identityCodec = identityCodec;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.endpoints = RouteMatcher.compile(properties.getEndpoints());
+
+        Gauge.builder("gateway.api-keys.size", this, index -> index.snapshot.keys().size())
+                .description("Active API keys held in the gateway's index")
+                .register(meterRegistry);
+    }
+
+    public String header() {
+        return properties.getHeader();
+    }
+
+    public boolean isAccepted(ServerHttpRequest request) {
+        return properties.isEnabled() && endpoints.matches(request.getMethod(), request.getURI().getPath());
+    }
+
+    public Optional<GatewayIdentity> authenticate(String apiKey) {
+        Entry entry = snapshot.keys().get(Digest.of(sha256(apiKey)));
+        long now = System.currentTimeMillis() / 1000;
+        if (entry == null || entry.expiresAt() <= now) {
+            return Optional.empty();
+        }
+        long expiresAt = Math.min(entry.expiresAt(), now + properties.getIdentityTtl().toSeconds());
+        return Optional.of(new GatewayIdentity(entry.subject(), entry.role(), expiresAt));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (properties.isEnabled()) {
+            polling = Flux.interval(properties.getRefreshInterval())
+                    .startWith(0L)
+                    .onBackpressureDrop()
+                    .concatMap(tick -> refresh())
+                    .subscribe();
+        }
+    }
+
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void reload() {
+        endpoints = RouteMatcher.compile(properties.getEndpoints());
+        if (properties.isEnabled()) {
+            refresh().subscribe();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (polling != null) {
+            polling.dispose();
+        }
+    }
+
+    Mono<Void> refresh() {
+        Snapshot current = snapshot;
+        long now = System.currentTimeMillis() / 1000;
+        String identity = identityCodec.encode(new GatewayIdentity(GATEWAY_SUBJECT, GATEWAY_ROLE, now + 60));
+
+        return webClient.get()
+                .uri(properties.getSourceUri())
+                .headers(headers -> {
+                    headers.set(GatewayIdentity.HEADER, identity);
+                    if (current.etag() != null) {
+                        headers.setIfNoneMatch(current.etag());
+                    }
+                })
+                .exchangeToMono(response -> {
+                    if (response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                        return response.releaseBody().then(Mono.just(current));
+                    }
+                    if (!response.statusCode().is2xxSuccessful()) {
+                        return response.createError();
+                    }
+                    String etag = response.headers().asHttpHeaders().getETag();
+                    return response.bodyToFlux(KeyRecord.class)
+                            .collectList()
+                            .map(records -> Snapshot.of(records, etag));
+                })
+                .timeout(properties.getTimeout())
+                .doOnNext(next -> {
+                    if (next != current) {
+                        snapshot = next;
+                        log.info("Loaded {} API keys (version {})", next.keys().size(), next.etag());
+                        count("updated");
+                    } else {
+                        count("unchanged");
+                    }
+                })
+                .onErrorResume(e -> {
+                    log.warn("Could not refresh API keys, keeping {} known keys: {}",
+                            current.keys().size(), e.toString());
+                    count("failure");
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("gateway.api-keys.refresh", "outcome", outcome).increment();
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.US_ASCII));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * One active key as served by auth-service; {@code expiresAt} is in epoch seconds.
+     */
+    record KeyRecord(String hash, String subject, String role, Long expiresAt) {
+    }
+
+    private record Entry(String subject, String role, long expiresAt) {
+    }
+
+    private record Digest(long h0, long h1, long h2, long h3) {
+
+        static Digest of(byte[] sha256) {
+            ByteBuffer buffer = ByteBuffer.wrap(sha256);
+            return new Digest(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+        }
+    }
+
+    private record Snapshot(Map<Digest, Entry> keys, String etag) {
+
+        static final Snapshot EMPTY = new Snapshot(Map.of(), null);
+
+        static Snapshot of(List<KeyRecord> records, String etag) {
+            Map<Digest, Entry> keys = new HashMap<>(records.size() * 2);
+            for (KeyRecord record : records) {
+                long expiresAt = record.expiresAt() == null ? Long.MAX_VALUE : record.expiresAt();
+                keys.put(Digest.of(HexFormat.of().parseHex(record.hash())),
+                        new Entry(record.subject(), record.role(), expiresAt));
+            }
+            return new Snapshot(Map.copyOf(keys), etag);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.kozitskiy.apigateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.kozitskiy.jwt.JwtClaims;
+import com.kozitskiy.jwt.JwtCodec;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Bounded cache of already verified access tokens, keyed by the SHA-256 digest of the token
+ * so raw tokens are never kept in memory. Every entry is dropped at the token's {@code exp}.
+ * <p>
+ * Signed tokens that are not access tokens, such as refresh tokens, are refused like invalid ones.
+ */
+@Component
+public class TokenVerificationCache {
+
+    public static final String CACHE_NAME = "jwt-verification";
+
+    private final JwtCodec jwtCodec;
+    private final Cache<String, JwtClaims> cache;
+
+    public TokenVerificationCache(JwtCodec jwtCodec,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${jwt.cache.max-size:10000}") long maxSize,
+                                  @Value("${jwt.cache.max-ttl:PT1H}") Duration maxTtl) {
+        this.jwtCodec = jwtCodec;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry(maxTtl))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public Optional<JwtClaims> verify(String token) {
+        String key = digest(token);
+
+        JwtClaims cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<JwtClaims> claims = jwtCodec.verify(token, System.currentTimeMillis() / 1000)
+                .filter(JwtClaims::isAccessToken);
+        claims.ifPresent(c -> cache.put(key, c));
+        return claims;
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record TokenExpiry(Duration maxTtl) implements Expiry<String, JwtClaims> {
+
+        @Override
+        public long expireAfterCreate(String key, JwtClaims claims, long currentTime) {
+            long maxTtlNanos = maxTtl.toNanos();
+            long remainingMillis = claims.expiresAt() * 1000 - System.currentTimeMillis();
+            return Math.max(0, Math.min(maxTtlNanos, Duration.ofMillis(remainingMillis).toNanos()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, JwtClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, JwtClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.kozitskiy.apigateway.composite;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.kozitskiy.apigateway.filter.ConcurrencyLimitFilter;
+import com.kozitskiy.apigateway.filter.ETagCacheGatewayFilterFactory;
+import com.kozitskiy.apigateway.filter.RateLimitFilter;
+import com.kozitskiy.deadline.Deadline;
+import com.kozitskiy.security.GatewayIdentity;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Serves {@code POST /api/v1/batch}: a JSON array of sub-requests
+ * ({@code {"method": "GET", "path": "/api/v1/orders/5", "body": ...}}) is authenticated once,
+ * dispatched concurrently to the routes that match each path, and answered with a JSON array of
+ * {@code {"status": ..., "body": ...}} in request order. Each element is streamed to the client
+ * as soon as it and every element before it are complete.
+ * <p>
+ * Only load-balanced routes are reachable, so a batch cannot address the gateway's own
+ * composite routes or anything outside the service registry.
+ * <p>
+ * Sub-requests bypass the target route's filters, so the parts of them that matter are applied
+ * here: each one is charged to the caller's rate limit and the route's concurrency limit, and a
+ * PUT, PATCH or DELETE purges the route's ETag cache under the written path.
+ */
+@Slf4j
+@Component
+public class BatchGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<BatchGatewayFilterFactory.Config> {
+
+    private static final Set<HttpMethod> METHODS = Set.of(
+            HttpMethod.GET, HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH, HttpMethod.DELETE);
+    private static final List<String> FORWARDED_HEADERS = List.of(
+            HttpHeaders.AUTHORIZATION, GatewayIdentity.HEADER, Deadline.HEADER);
+
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final RateLimitFilter rateLimitFilter;
+    private final ConcurrencyLimitFilter concurrencyLimitFilter;
+    private final ETagCacheGatewayFilterFactory eTagCache;
+    // Lazy: the route locator is built from the filter factories, this one included
+    private final ObjectProvider<RouteLocator> routeLocator;
+
+    public BatchGatewayFilterFactory(WebClient loadBalancedWebClient,
+                                     ObjectMapper objectMapper,
+                                     RateLimitFilter rateLimitFilter,
+                                     ConcurrencyLimitFilter concurrencyLimitFilter,
+                                     ETagCacheGatewayFilterFactory eTagCache,
+                                     ObjectProvider<RouteLocator> routeLocator) {
+        super(Config.class);
+        this.webClient = loadBalancedWebClient;
+        this.objectMapper = objectMapper;
+        this.rateLimitFilter = rateLimitFilter;
+        this.concurrencyLimitFilter = concurrencyLimitFilter;
+        this.eTagCache = eTagCache;
+        this.routeLocator = routeLocator;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> DataBufferUtils.join(exchange.getRequest().getBody(), (int) config.getMaxBodySize().toBytes())
+                .map(this::parse)
+                .defaultIfEmpty(List.of())
+                .flatMap(requests -> {
+                    if (requests.isEmpty()) {
+                        return writeError(exchange, HttpStatus.BAD_REQUEST, "Batch must contain at least one request");
+                    }
+                    if (requests.size() > config.getMaxRequests()) {
+                        return writeError(exchange, HttpStatus.BAD_REQUEST,
+                                "Batch may contain at most " + config.getMaxRequests() + " requests");
+                    }
+                    return stream(exchange, Flux.fromIterable(requests)
+                            .flatMapSequential(request -> dispatch(exchange, request, config), config.getMaxConcurrency()));
+                })
+                .onErrorResume(DataBufferLimitException.class,
+                        e -> writeError(exchange, HttpStatus.PAYLOAD_TOO_LARGE, "Batch body is too large"))
+                .onErrorResume(InvalidBatch.class,
+                        e -> writeError(exchange, HttpStatus.BAD_REQUEST, "Batch must be a JSON array of requests"));
+    }
+
+    private List<SubRequest> parse(DataBuffer buffer) {
+        try {
+            return objectMapper.readValue(buffer.asInputStream(), new TypeReference<>() {
+            });
+        } catch (IOException e) {
+            throw new InvalidBatch();
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private Mono<JsonNode> dispatch(ServerWebExchange exchange, SubRequest request, Config config) {
+        HttpMethod method = request.getMethod() == null ? null : HttpMethod.valueOf(request.getMethod().toUpperCase());
+        if (method == null || !METHODS.contains(method) || request.getPath() == null || !request.getPath().startsWith("/")) {
+            return Mono.just(result(HttpStatus.BAD_REQUEST, error("Sub-request needs a method and an absolute path")));
+        }
+
+        UriComponents target = UriComponentsBuilder.fromUriString(request.getPath()).build();
+        return route(exchange, method, target)
+                .flatMap(route -> send(exchange, route, method, target, request.getBody(), config.getTimeout()))
+                .switchIfEmpty(Mono.fromSupplier(() -> result(HttpStatus.NOT_FOUND, error("No route for " + target.getPath()))));
+    }
+
+    // The first load-balanced route whose predicates accept the sub-request
+    private Mono<Route> route(ServerWebExchange exchange, HttpMethod method, UriComponents target) {
+        URI uri = UriComponentsBuilder.fromUri(exchange.getRequest().getURI())
+                .replacePath(target.getPath())
+                .replaceQuery(target.getQuery())
+                .build(true)
+                .toUri();
+        Map<String, Object> attributes = new HashMap<>();
+        ServerWebExchange probe = new ServerWebExchangeDecorator(exchange.mutate()
+                .request(r -> r.method(method).uri(uri))
+                .build()) {
+            @Override
+            public Map<String, Object> getAttributes() {
+                return attributes;
+            }
+        };
+
+        return routeLocator.getObject().getRoutes()
+                .filter(route -> "lb".equals(route.getUri().getScheme()))
+                .concatMap(route -> Mono.from(route.getPredicate().apply(probe))
+                        .filter(Boolean::booleanValue)
+                        .map(matched -> route))
+                .next();
+    }
+
+    // What RateLimitFilter, ConcurrencyLimitFilter and ETagCache would have done on the route
+    private Mono<JsonNode> send(ServerWebExchange exchange,
+                                Route route,
+                                HttpMethod method,
+                                UriComponents target,
+                                JsonNode body,
+                                Duration timeout) {
+        String routeId = route.getId();
+        if (rateLimitFilter.tryAcquire(exchange, routeId) != 0) {
+            return Mono.just(result(HttpStatus.TOO_MANY_REQUESTS, error("Too many requests")));
+        }
+        Runnable release = concurrencyLimitFilter.tryAcquire(routeId, method, target.getPath());
+        if (release == null) {
+            return Mono.just(result(HttpStatus.SERVICE_UNAVAILABLE, error("Service overloaded, try again later")));
+        }
+
+        if (method != HttpMethod.PUT && method != HttpMethod.PATCH && method != HttpMethod.DELETE) {
+            return call(exchange, route, method, target, body, timeout)
+                    .doFinally(signal -> release.run());
+        }
+        eTagCache.purge(routeId, target.getPath());
+        return call(exchange, route, method, target, body, timeout)
+                .doFinally(signal -> {
+                    release.run();
+                    eTagCache.purge(routeId, target.getPath());
+                });
+    }
+
+    private Mono<JsonNode> call(ServerWebExchange exchange,
+                                Route route,
+                                HttpMethod method,
+                                UriComponents target,
+                                JsonNode body,
+                                Duration timeout) {
+        String uri = "http://" + route.getUri().getHost() + target.toUriString();
+        HttpHeaders incoming = exchange.getRequest().getHeaders();
+
+        WebClient.RequestBodySpec spec = webClient.method(method)
+                .uri(URI.create(uri))
+                .headers(headers -> FORWARDED_HEADERS.forEach(name -> {
+                    String value = incoming.getFirst(name);
+                    if (value != null) {
+                        headers.set(name, value);
+                    }
+                }))
+                .accept(MediaType.APPLICATION_JSON);
+        WebClient.RequestHeadersSpec<?> withBody = body == null || body.isNull()
+                ? spec
+                : spec.contentType(MediaType.APPLICATION_JSON).bodyValue(body);
+
+        return withBody.exchangeToMono(response -> response.bodyToMono(byte[].class)
+                        .map(bytes -> result(response.statusCode().value(), body(response.headers().contentType().orElse(null), bytes)))
+                        .defaultIfEmpty(result(response.statusCode().value(), null)))
+                .timeout(timeout)
+                .onErrorResume(e -> {
+                    log.warn("Batch sub-request {} {} failed: {}", method, target.getPath(), e.toString());
+                    return Mono.just(e instanceof TimeoutException
+                            ? result(HttpStatus.GATEWAY_TIMEOUT, error("Upstream timed out"))
+                            : result(HttpStatus.BAD_GATEWAY, error("Upstream unavailable")));
+                });
+    }
+
+    private JsonNode body(MediaType contentType, byte[] bytes) {
+        if (contentType != null && contentType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+            try {
+                return objectMapper.readTree(bytes);
+            } catch (IOException e) {
+                // Not valid JSON after all; returned as text below
+            }
+        }
+        return objectMapper.getNodeFactory().textNode(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    private Mono<Void> stream(ServerWebExchange exchange, Flux<JsonNode> results) {
+        var response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+        Flux<byte[]> elements = results.index().map(indexed -> {
+            byte[] json = toBytes(indexed.getT2());
+            byte[] element = new byte[json.length + 1];
+            element[0] = (byte) (indexed.getT1() == 0 ? '[' : ',');
+            System.arraycopy(json, 0, element, 1, json.length);
+            return element;
+        });
+        Flux<DataBuffer> body = Flux.concat(elements, Mono.just(new byte[]{']'}))
+                .map(bytes -> response.bufferFactory().wrap(bytes));
+        // Flush each element as it completes rather than when the whole batch is done
+        return response.writeAndFlushWith(body.map(Flux::just));
+    }
+
+    private byte[] toBytes(JsonNode node) {
+        try {
+            return objectMapper.writeValueAsBytes(node);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private JsonNode result(HttpStatus status, JsonNode body) {
+        return result(status.value(), body);
+    }
+
+    private JsonNode result(int status, JsonNode body) {
+        ObjectNode result = objectMapper.createObjectNode().put("status", status);
+        result.set("body", body);
+        return result;
+    }
+
+    private ObjectNode error(String message) {
+        return objectMapper.createObjectNode().put("error", message);
+    }
+
+    private Mono<Void> writeError(ServerWebExchange exchange, HttpStatus status, String message) {
+        byte[] bytes = toBytes(error(message));
+        var response = exchange.getResponse();
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(bytes.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
+    }
+
+    private static final class InvalidBatch extends RuntimeException {
+        private InvalidBatch() {
+            super(null, null, false, false);
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class SubRequest {
+        private String method;
+        private String path;
+        private JsonNode body;
+    }
+
+    @Getter
+    @Setter
+    public static class Config {
+        private int maxRequests = 50;
+        private int maxConcurrency = 8;
+        private Duration timeout = Duration.ofSeconds(5);
+        private DataSize maxBodySize = DataSize.ofKilobytes(256);
+    }
+}
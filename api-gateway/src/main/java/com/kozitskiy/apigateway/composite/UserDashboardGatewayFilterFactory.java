@@ -0,0 +1,153 @@
+package com.kozitskiy.apigateway.composite;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.kozitskiy.deadline.Deadline;
+import com.kozitskiy.security.GatewayIdentity;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Serves {@code GET /api/v1/composite/users/{id}/dashboard} from the gateway itself: the user
+ * with cards, the user's orders and the user's payments are fetched in parallel and merged into
+ * one document. A branch that fails or exceeds its timeout is returned as {@code null} and
+ * listed under {@code missing}; only an unknown user fails the whole request.
+ */
+@Slf4j
+@Component
+public class UserDashboardGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<UserDashboardGatewayFilterFactory.Config> {
+
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+
+    public UserDashboardGatewayFilterFactory(WebClient loadBalancedWebClient, ObjectMapper objectMapper) {
+        super(Config.class);
+        this.webClient = loadBalancedWebClient;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            String id = ServerWebExchangeUtils.getUriTemplateVariables(exchange).get("id");
+            if (id == null || !id.chars().allMatch(Character::isDigit)) {
+                return write(exchange, HttpStatus.BAD_REQUEST, error("User id must be numeric"));
+            }
+
+            Mono<Optional<JsonNode>> user = fetch(exchange, "user",
+                    config.getUserServiceUri() + "/api/v1/users/" + id + "/with-cards", config.getUserTimeout());
+            Mono<Optional<JsonNode>> orders = fetch(exchange, "orders",
+                    config.getOrderServiceUri() + "/api/v1/orders/user/" + id, config.getOrdersTimeout());
+            Mono<Optional<JsonNode>> payments = fetch(exchange, "payments",
+                    config.getPaymentServiceUri() + "/api/v1/payments/user/" + id, config.getPaymentsTimeout());
+
+            return Mono.zip(user, orders, payments)
+                    .flatMap(parts -> {
+                        ObjectNode dashboard = objectMapper.createObjectNode();
+                        ArrayNode missing = objectMapper.createArrayNode();
+                        put(dashboard, missing, "user", parts.getT1());
+                        put(dashboard, missing, "orders", parts.getT2());
+                        put(dashboard, missing, "payments", parts.getT3());
+                        dashboard.set("missing", missing);
+                        return write(exchange, HttpStatus.OK, dashboard);
+                    })
+                    .onErrorResume(UserNotFound.class,
+                            e -> write(exchange, HttpStatus.NOT_FOUND, error("User not found: " + id)));
+        };
+    }
+
+    private Mono<Optional<JsonNode>> fetch(ServerWebExchange exchange, String branch, String uri, Duration timeout) {
+        HttpHeaders incoming = exchange.getRequest().getHeaders();
+        return webClient.get()
+                .uri(uri)
+                .headers(headers -> {
+                    copy(incoming, headers, HttpHeaders.AUTHORIZATION);
+                    copy(incoming, headers, GatewayIdentity.HEADER);
+                    copy(incoming, headers, Deadline.HEADER);
+                })
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .timeout(timeout)
+                .map(Optional::of)
+                .onErrorResume(e -> {
+                    if ("user".equals(branch) && e instanceof WebClientResponseException.NotFound) {
+                        return Mono.error(new UserNotFound());
+                    }
+                    log.warn("Dashboard branch '{}' failed: {}", branch, e.toString());
+                    return Mono.just(Optional.empty());
+                })
+                .defaultIfEmpty(Optional.empty());
+    }
+
+    private static void put(ObjectNode dashboard, ArrayNode missing, String name, Optional<JsonNode> part) {
+        if (part.isPresent()) {
+            dashboard.set(name, part.get());
+        } else {
+            dashboard.putNull(name);
+            missing.add(name);
+        }
+    }
+
+    private static void copy(HttpHeaders from, HttpHeaders to, String name) {
+        String value = from.getFirst(name);
+        if (value != null) {
+            to.set(name, value);
+        }
+    }
+
+    private ObjectNode error(String message) {
+        return objectMapper.createObjectNode().put("error", message);
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, HttpStatus status, JsonNode body) {
+        byte[] bytes;
+        try {
+            bytes = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+
+        var response = exchange.getResponse();
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(bytes.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
+    }
+
+    private static final class UserNotFound extends RuntimeException {
+        private UserNotFound() {
+            super(null, null, false, false);
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Config {
+        private String userServiceUri = "http://USER-SERVICE";
+        private String orderServiceUri = "http://ORDER-SERVICE";
+        private String paymentServiceUri = "http://PAYMENT-SERVICE";
+        private Duration userTimeout = Duration.ofSeconds(1);
+        private Duration ordersTimeout = Duration.ofSeconds(2);
+        private Duration paymentsTimeout = Duration.ofSeconds(2);
+    }
+}
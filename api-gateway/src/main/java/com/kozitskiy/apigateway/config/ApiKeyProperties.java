@@ -0,0 +1,47 @@
+package com.kozitskiy.apigateway.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "gateway.api-keys")
+public class ApiKeyProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Request header carrying the key. It is removed before the request is routed.
+     */
+    private String header = "X-API-Key";
+
+    /**
+     * Endpoints that accept an API key in place of a bearer token, as {@code [METHOD] /path/pattern}.
+     */
+    private List<String> endpoints = new ArrayList<>();
+
+    /**
+     * Snapshot of the active keys, resolved through the load balancer.
+     */
+    private String sourceUri = "http://AUTH-SERVICE/internal/api-keys";
+
+    /**
+     * How often the snapshot is polled; an unchanged key set is answered with a 304. This bounds
+     * how long a revoked key keeps working, unless a refresh is forced with /actuator/refresh.
+     */
+    private Duration refreshInterval = Duration.ofSeconds(30);
+
+    private Duration timeout = Duration.ofSeconds(5);
+
+    /**
+     * Lifetime of the identity header forwarded for a key-authenticated request.
+     */
+    private Duration identityTtl = Duration.ofMinutes(5);
+}
@@ -0,0 +1,49 @@
+package com.kozitskiy.apigateway.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "gateway.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Concurrent requests a route starts with before any latency has been observed.
+     */
+    private int initialLimit = 20;
+
+    private int minLimit = 5;
+
+    private int maxLimit = 1000;
+
+    /**
+     * Weight of each new estimate in the limit, between 0 and 1; lower reacts more slowly.
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * Share of a route's limit GETs and HEADs may use, keeping the rest for writes.
+     */
+    private double readShare = 0.8;
+
+    /**
+     * Endpoints never shed, as {@code [METHOD] /path/pattern}. They still count toward the limit.
+     */
+    private List<String> protectedEndpoints = new ArrayList<>();
+
+    /**
+     * Route ids left unlimited, such as long-lived event streams that would hold a slot for minutes.
+     */
+    private Set<String> excludedRoutes = new HashSet<>();
+}
@@ -0,0 +1,29 @@
+package com.kozitskiy.apigateway.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "gateway.deadline")
+public class DeadlineProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Time a request may take end to end, across every service it reaches.
+     */
+    private Duration defaultBudget = Duration.ofSeconds(10);
+
+    /**
+     * Per-route overrides keyed by route id.
+     */
+    private Map<String, Duration> routes = new HashMap<>();
+}
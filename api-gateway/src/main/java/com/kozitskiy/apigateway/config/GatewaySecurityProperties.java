@@ -0,0 +1,21 @@
+package com.kozitskiy.apigateway.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "gateway.security")
+public class GatewaySecurityProperties {
+
+    /**
+     * Endpoints reachable without a token, as {@code [METHOD] /path/pattern}.
+     */
+    private List<String> openEndpoints = new ArrayList<>();
+}
@@ -0,0 +1,15 @@
+package com.kozitskiy.apigateway.config;
+
+import com.kozitskiy.security.GatewayIdentityCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class IdentityConfig {
+
+    @Bean
+    public GatewayIdentityCodec gatewayIdentityCodec(@Value("${gateway.identity.secret}") String secret) {
+        return new GatewayIdentityCodec(secret);
+    }
+}
@@ -0,0 +1,14 @@
+package com.kozitskiy.apigateway.config;
+
+import com.kozitskiy.jwt.JwtCodec;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JwtConfig {
+
+    @Bean
+    public JwtCodec jwtCodec(JwtProperties properties) {
+        return new JwtCodec(properties.getKeyId(), properties.getSecret(), properties.getPreviousKeys());
+    }
+}
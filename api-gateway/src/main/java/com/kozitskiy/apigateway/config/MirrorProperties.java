@@ -0,0 +1,35 @@
+package com.kozitskiy.apigateway.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "gateway.mirror")
+public class MirrorProperties {
+
+    /**
+     * Eureka metadata entry marking candidate instances. They only receive mirrored traffic,
+     * never requests routed for a client.
+     */
+    private String metadataKey = "track";
+
+    private String metadataValue = "candidate";
+
+    /**
+     * Mirrored requests outstanding at once across all routes; further samples are skipped.
+     */
+    private int maxInFlight = 20;
+
+    private Duration timeout = Duration.ofSeconds(5);
+
+    public boolean isCandidate(ServiceInstance instance) {
+        return metadataValue.equals(instance.getMetadata().get(metadataKey));
+    }
+}
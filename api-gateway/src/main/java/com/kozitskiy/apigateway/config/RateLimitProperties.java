@@ -0,0 +1,54 @@
+package com.kozitskiy.apigateway.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Buckets untouched for this long are evicted. Should exceed the time a bucket needs to refill.
+     */
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    /**
+     * Callers beyond this many tracked buckets are let through unthrottled until idle buckets are swept.
+     */
+    private long maxBuckets = 100_000;
+
+    /**
+     * Applied to every route without its own entry in {@link #routes}.
+     */
+    private Limit defaultLimit = new Limit();
+
+    /**
+     * Per-route overrides keyed by route id.
+     */
+    private Map<String, Limit> routes = new HashMap<>();
+
+    @Getter
+    @Setter
+    public static class Limit {
+
+        /**
+         * Requests per second a single caller is allowed on average.
+         */
+        private long replenishRate = 50;
+
+        /**
+         * Requests a single caller may send in one burst.
+         */
+        private long burstCapacity = 100;
+    }
+}
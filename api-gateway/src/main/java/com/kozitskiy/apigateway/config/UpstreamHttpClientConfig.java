@@ -0,0 +1,32 @@
+package com.kozitskiy.apigateway.config;
+
+import org.springframework.boot.autoconfigure.web.reactive.function.client.ReactorNettyHttpClientMapper;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+
+@Configuration
+public class UpstreamHttpClientConfig {
+
+    /**
+     * Client used by the routes.
+     */
+    @Bean
+    public HttpClientCustomizer h2cHttpClientCustomizer(UpstreamProperties properties) {
+        return httpClient -> h2c(httpClient, properties);
+    }
+
+    /**
+     * Client behind the gateway's own WebClients (composite and batch endpoints).
+     */
+    @Bean
+    public ReactorNettyHttpClientMapper h2cWebClientMapper(UpstreamProperties properties) {
+        return httpClient -> h2c(httpClient, properties);
+    }
+
+    private static HttpClient h2c(HttpClient httpClient, UpstreamProperties properties) {
+        return properties.isH2c() ? httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11) : httpClient;
+    }
+}
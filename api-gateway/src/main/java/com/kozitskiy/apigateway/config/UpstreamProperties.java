@@ -0,0 +1,41 @@
+package com.kozitskiy.apigateway.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "gateway.upstream")
+public class UpstreamProperties {
+
+    /**
+     * Offer HTTP/2 cleartext to the services via an HTTP/1.1 upgrade, so one connection carries
+     * many concurrent requests. Upstreams that decline stay on HTTP/1.1.
+     */
+    private boolean h2c = true;
+
+    private Prewarm prewarm = new Prewarm();
+
+    @Getter
+    @Setter
+    public static class Prewarm {
+
+        /**
+         * Open a pooled connection to every newly registered instance of a routed service as soon
+         * as the Eureka registry refresh reports it, before the first client request.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Requested with HEAD to open the connection; the response itself is ignored.
+         */
+        private String path = "/";
+
+        private Duration timeout = Duration.ofSeconds(2);
+    }
+}
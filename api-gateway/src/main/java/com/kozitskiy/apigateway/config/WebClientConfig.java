@@ -0,0 +1,20 @@
+package com.kozitskiy.apigateway.config;
+
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
+
+@Configuration
+public class WebClientConfig {
+
+    /**
+     * Client for calls the gateway makes itself; resolves {@code lb://} through the same
+     * load balancer as the routes.
+     */
+    @Bean
+    public WebClient loadBalancedWebClient(WebClient.Builder builder,
+                                           ReactorLoadBalancerExchangeFilterFunction loadBalancerFunction) {
+        return builder.filter(loadBalancerFunction).build();
+    }
+}
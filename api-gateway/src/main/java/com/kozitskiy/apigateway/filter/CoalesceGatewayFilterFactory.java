@@ -0,0 +1,183 @@
+package com.kozitskiy.apigateway.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Single-flight coalescing of identical concurrent GETs (same route, path, query and subject).
+ * <p>
+ * The first request goes upstream; requests that arrive while it is in flight wait for its
+ * buffered response instead. If the leader fails, is cancelled or its body is too large to
+ * share, the waiters fall back to their own upstream call.
+ */
+@Component
+public class CoalesceGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<CoalesceGatewayFilterFactory.Config> {
+
+    // Inside ETagCache, so only cache misses are coalesced, and before NettyWriteResponseFilter,
+    // so the leader's decorator is the response the upstream body is written to
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 10;
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, RouteFlights> flights = new ConcurrentHashMap<>();
+
+    public CoalesceGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        RouteFlights route = flights.computeIfAbsent(config.getRouteId(), this::createRouteFlights);
+        long maxBodyBytes = config.getMaxBodySize().toBytes();
+
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (request.getMethod() != HttpMethod.GET) {
+                return chain.filter(exchange);
+            }
+
+            return Mono.defer(() -> coalesce(exchange, chain, route, maxBodyBytes));
+        }, ORDER);
+    }
+
+    private Mono<Void> coalesce(ServerWebExchange exchange,
+                                GatewayFilterChain chain,
+                                RouteFlights route,
+                                long maxBodyBytes) {
+        String key = flightKey(exchange);
+        Sinks.One<SharedResponse> sink = Sinks.one();
+        Mono<SharedResponse> flight = sink.asMono();
+
+        Mono<SharedResponse> existing = route.inFlight().putIfAbsent(key, flight);
+        if (existing != null) {
+            return existing.map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(shared -> {
+                        if (shared.isPresent()) {
+                            route.coalesced().increment();
+                            return write(exchange.getResponse(), shared.get());
+                        }
+                        route.fallback().increment();
+                        return chain.filter(exchange);
+                    });
+        }
+
+        route.leaders().increment();
+        return lead(exchange, chain, route, key, flight, sink, maxBodyBytes);
+    }
+
+    private Mono<Void> lead(ServerWebExchange exchange,
+                            GatewayFilterChain chain,
+                            RouteFlights route,
+                            String key,
+                            Mono<SharedResponse> flight,
+                            Sinks.One<SharedResponse> sink,
+                            long maxBodyBytes) {
+        ServerHttpResponseDecorator response = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                return DataBufferUtils.join(body).flatMap(joined -> {
+                    byte[] bytes = new byte[joined.readableByteCount()];
+                    joined.read(bytes);
+                    DataBufferUtils.release(joined);
+
+                    route.inFlight().remove(key, flight);
+                    if (bytes.length <= maxBodyBytes) {
+                        HttpHeaders headers = new HttpHeaders();
+                        headers.addAll(getHeaders());
+                        sink.tryEmitValue(new SharedResponse(getStatusCode(), headers, bytes));
+                    } else {
+                        sink.tryEmitEmpty();
+                    }
+                    return getDelegate().writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                });
+            }
+        };
+
+        return chain.filter(exchange.mutate().response(response).build())
+                .doFinally(signal -> {
+                    route.inFlight().remove(key, flight);
+                    sink.tryEmitEmpty();
+                });
+    }
+
+    private static Mono<Void> write(ServerHttpResponse response, SharedResponse shared) {
+        response.setStatusCode(shared.status());
+        response.getHeaders().putAll(shared.headers());
+        response.getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+        response.getHeaders().setContentLength(shared.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(shared.body())));
+    }
+
+    private static String flightKey(ServerWebExchange exchange) {
+        String subject = exchange.getAttributeOrDefault(JwtAuthenticationFilter.SUBJECT_ATTRIBUTE, "");
+        String query = exchange.getRequest().getURI().getRawQuery();
+        String path = exchange.getRequest().getURI().getRawPath();
+        return subject + ' ' + (query == null ? path : path + '?' + query);
+    }
+
+    private RouteFlights createRouteFlights(String routeId) {
+        ConcurrentMap<String, Mono<SharedResponse>> inFlight = new ConcurrentHashMap<>();
+        Gauge.builder("gateway.coalescing.in.flight", inFlight, ConcurrentMap::size)
+                .tag("route", routeId)
+                .register(meterRegistry);
+
+        return new RouteFlights(
+                inFlight,
+                counter(routeId, "leader"),
+                counter(routeId, "coalesced"),
+                counter(routeId, "fallback"));
+    }
+
+    private Counter counter(String routeId, String result) {
+        return Counter.builder("gateway.coalescing.requests")
+                .description("GET requests seen by the coalescing filter")
+                .tag("route", routeId)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record SharedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+    }
+
+    private record RouteFlights(ConcurrentMap<String, Mono<SharedResponse>> inFlight,
+                                Counter leaders,
+                                Counter coalesced,
+                                Counter fallback) {
+    }
+
+    @Getter
+    @Setter
+    public static class Config implements HasRouteId {
+        private String routeId;
+        private DataSize maxBodySize = DataSize.ofKilobytes(256);
+    }
+}
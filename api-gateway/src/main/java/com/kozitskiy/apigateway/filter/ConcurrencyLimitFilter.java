@@ -0,0 +1,244 @@
+package com.kozitskiy.apigateway.filter;
+
+import com.kozitskiy.apigateway.config.ConcurrencyLimitProperties;
+import com.kozitskiy.apigateway.ratelimit.VegasLimit;
+import com.kozitskiy.apigateway.route.RouteMatcher;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Per-route adaptive concurrency limit. Each route's limit follows the upstream's observed
+ * latency ({@link VegasLimit}), and requests beyond it are rejected at once with 503 instead of
+ * queueing in the gateway and in the upstream.
+ * <p>
+ * Reads may only use part of the limit, so they are shed before writes; protected endpoints
+ * such as login are never shed.
+ */
+@Slf4j
+@Component
+@Order(JwtAuthenticationFilter.ORDER + 2)
+public class ConcurrencyLimitFilter implements GlobalFilter {
+
+    private final ConcurrencyLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, RouteLimit> limits = new ConcurrentHashMap<>();
+    private volatile Settings settings;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.settings = Settings.of(properties);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Settings current = settings;
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        String routeId = route == null ? "" : route.getId();
+        if (!current.enabled() || current.excludedRoutes().contains(routeId)) {
+            return chain.filter(exchange);
+        }
+
+        RouteLimit routeLimit = routeLimit(routeId, current);
+        ServerHttpRequest request = exchange.getRequest();
+        Priority priority = priority(request.getMethod(), request.getURI().getPath(), current);
+        int inFlight = routeLimit.tryAcquire(priority, current.readShare());
+        if (inFlight < 0) {
+            rejected(routeId, priority);
+            return onOverloaded(exchange);
+        }
+
+        RouteLimit acquired = routeLimit;
+        return chain.filter(exchange)
+                .doFinally(signal -> acquired.release(exchange, signal, inFlight));
+    }
+
+    /**
+     * Admits a request the gateway sends on a caller's behalf, such as a part of a batch. The
+     * request takes a slot of the route's limit but leaves the limit itself unchanged.
+     *
+     * @return gives the slot back once the request completes, or {@code null} if it must be shed
+     */
+    public Runnable tryAcquire(String routeId, HttpMethod method, String path) {
+        Settings current = settings;
+        if (!current.enabled() || current.excludedRoutes().contains(routeId)) {
+            return () -> {
+            };
+        }
+
+        RouteLimit routeLimit = routeLimit(routeId, current);
+        Priority priority = priority(method, path, current);
+        if (routeLimit.tryAcquire(priority, current.readShare()) < 0) {
+            rejected(routeId, priority);
+            return null;
+        }
+        return routeLimit.inFlight()::decrementAndGet;
+    }
+
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void reload() {
+        settings = Settings.of(properties);
+        limits.clear();
+        log.info("Reloaded concurrency limits, protected endpoints: {}", properties.getProtectedEndpoints());
+    }
+
+    private RouteLimit routeLimit(String routeId, Settings settings) {
+        RouteLimit routeLimit = limits.get(routeId);
+        if (routeLimit == null) {
+            routeLimit = limits.computeIfAbsent(routeId, id -> createRouteLimit(id, settings));
+        }
+        return routeLimit;
+    }
+
+    private void rejected(String routeId, Priority priority) {
+        meterRegistry.counter("gateway.concurrency.rejected", "route", routeId, "priority", priority.tag())
+                .increment();
+    }
+
+    private static Priority priority(HttpMethod method, String path, Settings settings) {
+        if (settings.protectedEndpoints().matches(method, path)) {
+            return Priority.PROTECTED;
+        }
+        return method == HttpMethod.GET || method == HttpMethod.HEAD ? Priority.READ : Priority.WRITE;
+    }
+
+    private RouteLimit createRouteLimit(String routeId, Settings settings) {
+        RouteLimit routeLimit = new RouteLimit(new VegasLimit(
+                settings.initialLimit(), settings.minLimit(), settings.maxLimit(), settings.smoothing()));
+
+        // Registered once per route and read through the map, so a reload swaps in fresh limits
+        if (meterRegistry.find("gateway.concurrency.limit").tag("route", routeId).gauge() == null) {
+            Gauge.builder("gateway.concurrency.limit", limits, all -> currentLimit(all, routeId))
+                    .description("Adaptive concurrency limit of the route")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.concurrency.in.flight", limits, all -> currentInFlight(all, routeId))
+                    .description("Requests currently admitted on the route")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+        }
+        return routeLimit;
+    }
+
+    private static double currentLimit(ConcurrentMap<String, RouteLimit> limits, String routeId) {
+        RouteLimit routeLimit = limits.get(routeId);
+        return routeLimit == null ? Double.NaN : routeLimit.limit().getLimit();
+    }
+
+    private static double currentInFlight(ConcurrentMap<String, RouteLimit> limits, String routeId) {
+        RouteLimit routeLimit = limits.get(routeId);
+        return routeLimit == null ? 0 : routeLimit.inFlight().get();
+    }
+
+    private Mono<Void> onOverloaded(ServerWebExchange exchange) {
+        var response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        String body = """
+            {"error": "Service overloaded, try again later"}
+            """;
+        var buffer = response.bufferFactory()
+                .wrap(body.getBytes(StandardCharsets.UTF_8));
+        return response.writeWith(Mono.just(buffer));
+    }
+
+    enum Priority {
+        PROTECTED, WRITE, READ;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private record RouteLimit(VegasLimit limit, AtomicInteger inFlight) {
+
+        RouteLimit(VegasLimit limit) {
+            this(limit, new AtomicInteger());
+        }
+
+        /**
+         * @return requests in flight before this one, or -1 if it must be shed
+         */
+        int tryAcquire(Priority priority, double readShare) {
+            if (priority == Priority.PROTECTED) {
+                return inFlight.getAndIncrement();
+            }
+
+            int max = priority == Priority.READ
+                    ? Math.max(1, (int) (limit.getLimit() * readShare))
+                    : limit.getLimit();
+            int current;
+            do {
+                current = inFlight.get();
+                if (current >= max) {
+                    return -1;
+                }
+            } while (!inFlight.compareAndSet(current, current + 1));
+            return current;
+        }
+
+        void release(ServerWebExchange exchange, SignalType signal, int inFlightAtStart) {
+            inFlight.decrementAndGet();
+            if (signal == SignalType.CANCEL) {
+                return;
+            }
+
+            // Time to the upstream's response headers; streaming the body does not load the upstream
+            Long rttNanos = exchange.getAttribute(UpstreamTimingFilter.UPSTREAM_NANOS_ATTRIBUTE);
+            if (rttNanos == null) {
+                return;
+            }
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            boolean dropped = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+            limit.onSample(rttNanos, inFlightAtStart + 1, dropped);
+        }
+    }
+
+    private record Settings(boolean enabled,
+                            int initialLimit,
+                            int minLimit,
+                            int maxLimit,
+                            double smoothing,
+                            double readShare,
+                            RouteMatcher protectedEndpoints,
+                            Set<String> excludedRoutes) {
+
+        static Settings of(ConcurrencyLimitProperties properties) {
+            return new Settings(
+                    properties.isEnabled(),
+                    properties.getInitialLimit(),
+                    properties.getMinLimit(),
+                    properties.getMaxLimit(),
+                    properties.getSmoothing(),
+                    properties.getReadShare(),
+                    RouteMatcher.compile(properties.getProtectedEndpoints()),
+                    Set.copyOf(properties.getExcludedRoutes()));
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.kozitskiy.apigateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kozitskiy.apigateway.route.RouteMatcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Getter;
+import lombok.Setter;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Opt-in per-route response cache with ETag revalidation.
+ * <p>
+ * Fresh entries are served by the gateway itself, and {@code If-None-Match} is answered with
+ * 304 without contacting the backend. A PUT, PATCH or DELETE on the route purges every entry
+ * under the written path, for example {@code PUT /api/v1/users/5} also drops
+ * {@code /api/v1/users/5/with-cards}.
+ */
+@Component
+public class ETagCacheGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<ETagCacheGatewayFilterFactory.Config> {
+
+    // After JwtAuthenticationFilter, so cached bodies are never served to unauthenticated callers,
+    // and before NettyWriteResponseFilter, which writes the upstream body to the response it was given
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 20;
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, RouteCache> caches = new ConcurrentHashMap<>();
+
+    public ETagCacheGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        RouteMatcher cacheablePaths = RouteMatcher.compile(config.getPaths().stream()
+                .map(path -> "GET " + path)
+                .toList());
+        Cache<String, CachedResponse> cache = cacheFor(config);
+        long maxBodyBytes = config.getMaxBodySize().toBytes();
+
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            HttpMethod method = request.getMethod();
+
+            if (method == HttpMethod.PUT || method == HttpMethod.PATCH || method == HttpMethod.DELETE) {
+                String path = request.getURI().getPath();
+                purge(cache, path);
+                return chain.filter(exchange).doFinally(signal -> purge(cache, path));
+            }
+
+            if (!cacheablePaths.matches(method, request.getURI().getPath())) {
+                return chain.filter(exchange);
+            }
+
+            String key = cacheKey(request);
+            CachedResponse cached = cache.getIfPresent(key);
+            if (cached != null) {
+                return serve(exchange, cached);
+            }
+            return fetchAndStore(exchange, chain, cache, key, maxBodyBytes);
+        }, ORDER);
+    }
+
+    /**
+     * Purges the route's entries under the path, for writes that reach the route without passing
+     * through its filters, such as the parts of a batch.
+     */
+    public void purge(String routeId, String path) {
+        RouteCache routeCache = caches.get(routeId);
+        if (routeCache != null) {
+            purge(routeCache.cache(), path);
+        }
+    }
+
+    // Reused across route refreshes so a Eureka registry change does not wipe the cache
+    private Cache<String, CachedResponse> cacheFor(Config config) {
+        Settings settings = new Settings(config.getTtl(), config.getMaxEntries());
+        return caches.compute(config.getRouteId(), (routeId, existing) -> {
+            if (existing != null && existing.settings().equals(settings)) {
+                return existing;
+            }
+            Cache<String, CachedResponse> cache = Caffeine.newBuilder()
+                    .maximumSize(settings.maxEntries())
+                    .expireAfterWrite(settings.ttl())
+                    .recordStats()
+                    .build();
+            if (existing == null) {
+                CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway-response", "route", routeId);
+            }
+            return new RouteCache(settings, cache);
+        }).cache();
+    }
+
+    private Mono<Void> serve(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().setETag(cached.etag());
+
+        if (notModified(exchange.getRequest(), cached.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+
+        response.setStatusCode(HttpStatus.OK);
+        if (cached.contentType() != null) {
+            response.getHeaders().setContentType(cached.contentType());
+        }
+        response.getHeaders().setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private Mono<Void> fetchAndStore(ServerWebExchange exchange,
+                                     GatewayFilterChain chain,
+                                     Cache<String, CachedResponse> cache,
+                                     String key,
+                                     long maxBodyBytes) {
+        ServerHttpResponseDecorator response = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                if (!HttpStatus.OK.equals(getStatusCode())) {
+                    return super.writeWith(body);
+                }
+
+                return DataBufferUtils.join(body).flatMap(joined -> {
+                    byte[] bytes = new byte[joined.readableByteCount()];
+                    joined.read(bytes);
+                    DataBufferUtils.release(joined);
+
+                    String etag = etag(bytes);
+                    if (bytes.length <= maxBodyBytes) {
+                        cache.put(key, new CachedResponse(bytes, getHeaders().getContentType(), etag));
+                    }
+
+                    getHeaders().setETag(etag);
+                    if (notModified(exchange.getRequest(), etag)) {
+                        setStatusCode(HttpStatus.NOT_MODIFIED);
+                        getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+                        return getDelegate().setComplete();
+                    }
+                    return getDelegate().writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                });
+            }
+        };
+
+        return chain.filter(exchange.mutate().response(response).build());
+    }
+
+    private static void purge(Cache<String, CachedResponse> cache, String path) {
+        String prefix = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        cache.asMap().keySet().removeIf(key -> key.startsWith(prefix)
+                && (key.length() == prefix.length()
+                || key.charAt(prefix.length()) == '/'
+                || key.charAt(prefix.length()) == '?'));
+    }
+
+    private static boolean notModified(ServerHttpRequest request, String etag) {
+        for (String candidate : request.getHeaders().getIfNoneMatch()) {
+            String value = candidate.startsWith("W/") ? candidate.substring(2) : candidate;
+            if ("*".equals(value) || etag.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String cacheKey(ServerHttpRequest request) {
+        String query = request.getURI().getRawQuery();
+        String path = request.getURI().getPath();
+        return query == null ? path : path + '?' + query;
+    }
+
+    private static String etag(byte[] body) {
+        return "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+    }
+
+    private record CachedResponse(byte[] body, MediaType contentType, String etag) {
+    }
+
+    private record Settings(Duration ttl, long maxEntries) {
+    }
+
+    private record RouteCache(Settings settings, Cache<String, CachedResponse> cache) {
+    }
+
+    @Getter
+    @Setter
+    public static class Config implements HasRouteId {
+        private String routeId;
+        private List<String> paths = new ArrayList<>();
+        private Duration ttl = Duration.ofSeconds(30);
+        private long maxEntries = 10_000;
+        private DataSize maxBodySize = DataSize.ofKilobytes(256);
+    }
+}
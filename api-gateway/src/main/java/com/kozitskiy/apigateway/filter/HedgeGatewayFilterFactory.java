@@ -0,0 +1,352 @@
+package com.kozitskiy.apigateway.filter;
+
+import com.kozitskiy.apigateway.loadbalancer.PeakEwmaLoadBalancer;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.distribution.TimeWindowPercentileHistogram;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+
+/**
+ * Hedged GETs: if the upstream has not answered within the route's rolling latency percentile,
+ * a second copy goes to a different instance and whichever sends response headers first wins.
+ * The other copy is cancelled.
+ * <p>
+ * Hedges are paid for from a per-route budget that every GET tops up by {@code budget} of a
+ * request, so hedging never adds more than that fraction of extra upstream load.
+ */
+@Component
+public class HedgeGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<HedgeGatewayFilterFactory.Config> {
+
+    // Inside NettyWriteResponseFilter, so the race is decided on response headers and only the
+    // winner's body is streamed to the client
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER + 10;
+
+    private static final long DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, RouteHedging> routes = new ConcurrentHashMap<>();
+
+    public HedgeGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        RouteHedging route = routeFor(config);
+
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (request.getMethod() != HttpMethod.GET || hasBody(request.getHeaders())) {
+                return chain.filter(exchange);
+            }
+
+            return Mono.defer(() -> hedge(exchange, chain, route));
+        }, ORDER);
+    }
+
+    private Mono<Void> hedge(ServerWebExchange exchange, GatewayFilterChain chain, RouteHedging route) {
+        route.budget().deposit();
+
+        ServerWebExchange primary = attempt(exchange, exchange.getRequest());
+        long start = System.nanoTime();
+        Mono<ServerWebExchange> first = chain.filter(primary)
+                .doOnCancel(() -> route.record(System.nanoTime() - start))
+                .then(Mono.fromSupplier(() -> {
+                    route.record(System.nanoTime() - start);
+                    return primary;
+                }));
+
+        Mono<ServerWebExchange> second = Mono.delay(Duration.ofNanos(route.delayNanos()))
+                .flatMap(tick -> {
+                    if (!route.budget().tryWithdraw()) {
+                        route.meters().budgetExhausted().increment();
+                        return Mono.never();
+                    }
+                    return sendHedge(exchange, primary, chain, route);
+                });
+
+        return Mono.firstWithSignal(first, second).flatMap(winner -> {
+            if (winner != primary) {
+                route.meters().won().increment();
+            }
+            adopt(exchange, winner);
+            return Mono.empty();
+        });
+    }
+
+    private Mono<ServerWebExchange> sendHedge(ServerWebExchange exchange,
+                                              ServerWebExchange primary,
+                                              GatewayFilterChain chain,
+                                              RouteHedging route) {
+        ServerWebExchange hedged = attempt(exchange, new ServerHttpRequestDecorator(exchange.getRequest()) {
+            // The client's request body can only be subscribed to once, and a GET has none
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return Flux.empty();
+            }
+        });
+        ServiceInstance primaryInstance = instance(primary);
+        if (primaryInstance != null) {
+            hedged.getAttributes().put(PeakEwmaLoadBalancer.AVOID_INSTANCE_ATTRIBUTE, primaryInstance);
+        }
+
+        route.meters().sent().increment();
+        return chain.filter(hedged)
+                .then(Mono.just(hedged))
+                .onErrorResume(e -> {
+                    // A failed hedge must not fail the request; keep waiting for the primary
+                    route.meters().failed().increment();
+                    return Mono.never();
+                });
+    }
+
+    private static ServiceInstance instance(ServerWebExchange attempt) {
+        Response<ServiceInstance> lbResponse = attempt.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        return lbResponse == null || !lbResponse.hasServer() ? null : lbResponse.getServer();
+    }
+
+    // Each attempt gets its own attributes and response headers, since the routing filters
+    // store per-call state in both; the winner's are copied back by adopt()
+    private static ServerWebExchange attempt(ServerWebExchange exchange, ServerHttpRequest request) {
+        Map<String, Object> attributes = new HashMap<>(exchange.getAttributes());
+        ServerHttpResponse response = new AttemptResponse(exchange.getResponse());
+        return new ServerWebExchangeDecorator(exchange.mutate().request(request).build()) {
+            @Override
+            public Map<String, Object> getAttributes() {
+                return attributes;
+            }
+
+            @Override
+            public ServerHttpResponse getResponse() {
+                return response;
+            }
+        };
+    }
+
+    private static void adopt(ServerWebExchange exchange, ServerWebExchange winner) {
+        exchange.getAttributes().putAll(winner.getAttributes());
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(winner.getResponse().getStatusCode());
+        response.getHeaders().addAll(winner.getResponse().getHeaders());
+    }
+
+    private static boolean hasBody(HttpHeaders headers) {
+        return headers.getContentLength() > 0 || headers.containsKey(HttpHeaders.TRANSFER_ENCODING);
+    }
+
+    // Reused across route refreshes so the latency window and budget survive a Eureka registry change
+    private RouteHedging routeFor(Config config) {
+        Settings settings = new Settings(config.getDelay(), config.getPercentile(),
+                config.getMinDelay(), config.getMaxDelay(), config.getBudget());
+        return routes.compute(config.getRouteId(), (routeId, existing) -> {
+            if (existing != null && existing.settings().equals(settings)) {
+                return existing;
+            }
+            if (existing == null) {
+                return createRouteHedging(routeId, settings);
+            }
+            return new RouteHedging(settings, histogram(settings), new Budget(settings.budget()), existing.meters());
+        });
+    }
+
+    private RouteHedging createRouteHedging(String routeId, Settings settings) {
+        Meters meters = new Meters(
+                counter(routeId, "gateway.hedging.sent", "Hedged copies sent upstream"),
+                counter(routeId, "gateway.hedging.won", "Hedged copies that answered before the original"),
+                counter(routeId, "gateway.hedging.failed", "Hedged copies that failed"),
+                counter(routeId, "gateway.hedging.budget.exhausted", "Hedges skipped for lack of budget"));
+        RouteHedging route = new RouteHedging(settings, histogram(settings), new Budget(settings.budget()), meters);
+
+        Gauge.builder("gateway.hedging.delay", routes, all -> all.get(routeId).delaySeconds())
+                .description("Current wait before a GET is hedged")
+                .baseUnit("seconds")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        return route;
+    }
+
+    private static TimeWindowPercentileHistogram histogram(Settings settings) {
+        DistributionStatisticConfig config = DistributionStatisticConfig.builder()
+                .percentiles(settings.percentile())
+                .percentilePrecision(2)
+                .expiry(Duration.ofMinutes(1))
+                .bufferLength(3)
+                .build()
+                .merge(DistributionStatisticConfig.DEFAULT);
+        return new TimeWindowPercentileHistogram(Clock.SYSTEM, config, false);
+    }
+
+    private Counter counter(String routeId, String name, String description) {
+        return Counter.builder(name)
+                .description(description)
+                .tag("route", routeId)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Hedge tokens in thousandths: each GET deposits {@code budget * 1000}, each hedge costs 1000.
+     * The balance is capped so a quiet period cannot save up for a burst of hedges.
+     */
+    private static final class Budget {
+
+        private static final long HEDGE_COST = 1000;
+        private static final long MAX_BALANCE = 10 * HEDGE_COST;
+
+        private final long deposit;
+        private final AtomicLong balance = new AtomicLong();
+
+        Budget(double ratio) {
+            this.deposit = Math.round(ratio * HEDGE_COST);
+        }
+
+        void deposit() {
+            balance.getAndUpdate(current -> Math.min(MAX_BALANCE, current + deposit));
+        }
+
+        boolean tryWithdraw() {
+            long current;
+            do {
+                current = balance.get();
+                if (current < HEDGE_COST) {
+                    return false;
+                }
+            } while (!balance.compareAndSet(current, current - HEDGE_COST));
+            return true;
+        }
+    }
+
+    private record RouteHedging(Settings settings,
+                                TimeWindowPercentileHistogram latency,
+                                Budget budget,
+                                Meters meters,
+                                AtomicLong delay,
+                                AtomicLong delayComputedAt) {
+
+        RouteHedging(Settings settings, TimeWindowPercentileHistogram latency, Budget budget, Meters meters) {
+            this(settings, latency, budget, meters,
+                    new AtomicLong(settings.maxDelay().toNanos()), new AtomicLong(System.nanoTime()));
+        }
+
+        void record(long nanos) {
+            latency.recordLong(nanos);
+        }
+
+        // The percentile is recomputed at most once a second; it is too costly to do per request
+        long delayNanos() {
+            if (settings.delay() != null) {
+                return settings.delay().toNanos();
+            }
+
+            long now = System.nanoTime();
+            long computedAt = delayComputedAt.get();
+            if (now - computedAt > DELAY_REFRESH_NANOS && delayComputedAt.compareAndSet(computedAt, now)) {
+                double percentile = latency.takeSnapshot(0, 0, 0).percentileValues()[0].value();
+                long clamped = percentile <= 0
+                        ? settings.maxDelay().toNanos()
+                        : Math.max(settings.minDelay().toNanos(), Math.min(settings.maxDelay().toNanos(), (long) percentile));
+                delay.set(clamped);
+            }
+            return delay.get();
+        }
+
+        double delaySeconds() {
+            return delayNanos() / (double) TimeUnit.SECONDS.toNanos(1);
+        }
+    }
+
+    private record Meters(Counter sent, Counter won, Counter failed, Counter budgetExhausted) {
+    }
+
+    private record Settings(Duration delay, double percentile, Duration minDelay, Duration maxDelay, double budget) {
+    }
+
+    /**
+     * Keeps the status and headers NettyRoutingFilter sets for one attempt away from the real response.
+     */
+    private static final class AttemptResponse extends ServerHttpResponseDecorator {
+
+        private final HttpHeaders headers = new HttpHeaders();
+        private HttpStatusCode status;
+
+        AttemptResponse(ServerHttpResponse delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public boolean setStatusCode(HttpStatusCode status) {
+            this.status = status;
+            return true;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return status;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Config implements HasRouteId {
+        private String routeId;
+
+        /**
+         * Fixed wait before hedging. When unset, the route's rolling {@link #percentile} is used.
+         */
+        private Duration delay;
+
+        private double percentile = 0.95;
+
+        /**
+         * Bounds for the percentile-based wait; {@code maxDelay} also applies until there are samples.
+         */
+        private Duration minDelay = Duration.ofMillis(10);
+        private Duration maxDelay = Duration.ofSeconds(1);
+
+        /**
+         * Extra upstream load hedging may add, as a fraction of the route's GETs.
+         */
+        private double budget = 0.05;
+    }
+}
@@ -1,8 +1,11 @@
 package com.kozitskiy.apigateway.filter;
 
-import com.kozitskiy.apigateway.util.JwtUtil;
+import com.kozitskiy.apigateway.cache.ApiKeyIndex;
+import com.kozitskiy.apigateway.cache.TokenVerificationCache;
+import com.kozitskiy.jwt.JwtClaims;
+import com.kozitskiy.security.GatewayIdentity;
+import com.kozitskiy.security.GatewayIdentityCodec;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.annotation.Order;
@@ -13,21 +16,44 @@ import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Optional;
 
 @Component
-@Order(1)
+@Order(JwtAuthenticationFilter.ORDER)
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter implements GlobalFilter {
 
+    // Ahead of every filter that can answer from the gateway itself, such as ETagCache
+    public static final int ORDER = -100;
+
+    public static final String SUBJECT_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".subject";
+
     private final RouteValidator routeValidator;
-    private final JwtUtil jwtUtil;
+    private final TokenVerificationCache tokenVerificationCache;
+    private final GatewayIdentityCodec identityCodec;
+    private final ApiKeyIndex apiKeyIndex;
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         var request = exchange.getRequest();
 
-        if(!routeValidator.isSecured.test(request)){
-            return chain.filter(exchange);
+        if(!routeValidator.isSecured(request)){
+            return chain.filter(withIdentity(exchange, null));
+        }
+
+        // Machine clients: one digest lookup in the replicated key index, no token to verify
+        String apiKey = request.getHeaders().getFirst(apiKeyIndex.header());
+        if (apiKey != null && apiKeyIndex.isAccepted(request)) {
+            Optional<GatewayIdentity> identity = apiKeyIndex.authenticate(apiKey);
+            if (identity.isEmpty()) {
+                return onError(exchange, "Invalid or revoked API key");
+            }
+
+            exchange.getAttributes().put(SUBJECT_ATTRIBUTE, identity.get().subject());
+            var withoutKey = exchange.mutate()
+                    .request(request.mutate().headers(headers -> headers.remove(apiKeyIndex.header())).build())
+                    .build();
+            return chain.filter(withIdentity(withoutKey, identity.get()));
         }
 
         var authHeader = request.getHeaders().getFirst("Authorization");
@@ -36,11 +62,36 @@ public class JwtAuthenticationFilter implements GlobalFilter {
         }
 
         String token = authHeader.substring(7).trim();
-        if(!jwtUtil.validateToken(token)){
+        Optional<JwtClaims> claims = tokenVerificationCache.verify(token);
+        if(claims.isEmpty()){
             return onError(exchange, "Invalid or expired JWT token");
         }
 
-        return chain.filter(exchange);
+        if (claims.get().subject() != null) {
+            exchange.getAttributes().put(SUBJECT_ATTRIBUTE, claims.get().subject());
+        }
+        return chain.filter(withIdentity(exchange, toIdentity(claims.get())));
+    }
+
+    private static GatewayIdentity toIdentity(JwtClaims claims) {
+        return new GatewayIdentity(claims.subject(), claims.role(), claims.expiresAt());
+    }
+
+    // Client-supplied identity headers are always dropped; only verified identities are forwarded
+    private ServerWebExchange withIdentity(ServerWebExchange exchange, GatewayIdentity identity) {
+        if (identity == null && !exchange.getRequest().getHeaders().containsKey(GatewayIdentity.HEADER)) {
+            return exchange;
+        }
+
+        var request = exchange.getRequest().mutate()
+                .headers(headers -> {
+                    headers.remove(GatewayIdentity.HEADER);
+                    if (identity != null) {
+                        headers.set(GatewayIdentity.HEADER, identityCodec.encode(identity));
+                    }
+                })
+                .build();
+        return exchange.mutate().request(request).build();
     }
 
     private Mono<Void> onError(ServerWebExchange exchange, String errorMsg) {
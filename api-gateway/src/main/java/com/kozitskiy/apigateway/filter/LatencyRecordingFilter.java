@@ -0,0 +1,68 @@
+package com.kozitskiy.apigateway.filter;
+
+import com.kozitskiy.apigateway.metrics.GatewayLatencyRecorder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.net.URI;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Outermost filter: records the whole exchange, including requests rejected by the gateway itself.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class LatencyRecordingFilter implements GlobalFilter {
+
+    private final GatewayLatencyRecorder recorder;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> record(exchange, signal, System.nanoTime() - start));
+    }
+
+    private void record(ServerWebExchange exchange, SignalType signal, long totalNanos) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        Long upstreamNanos = exchange.getAttribute(UpstreamTimingFilter.UPSTREAM_NANOS_ATTRIBUTE);
+
+        recorder.record(
+                route == null ? "unmatched" : route.getId(),
+                status(exchange, signal),
+                instance(exchange, upstreamNanos != null),
+                totalNanos,
+                upstreamNanos == null ? -1 : upstreamNanos);
+    }
+
+    private static String status(ServerWebExchange exchange, SignalType signal) {
+        if (signal == SignalType.CANCEL) {
+            return "CANCELLED";
+        }
+        if (signal == SignalType.ON_ERROR) {
+            return "ERROR";
+        }
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        return status == null ? "200" : Integer.toString(status.value());
+    }
+
+    private static String instance(ServerWebExchange exchange, boolean calledUpstream) {
+        URI url = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+        if (!calledUpstream || url == null) {
+            return GatewayLatencyRecorder.NO_UPSTREAM;
+        }
+        return url.getHost() + ':' + url.getPort();
+    }
+}
@@ -0,0 +1,209 @@
+package com.kozitskiy.apigateway.filter;
+
+import com.kozitskiy.apigateway.config.MirrorProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Shadow traffic: a sampled share of a route's GETs and HEADs is replayed against the route's
+ * candidate instances, selected by Eureka metadata ({@link MirrorProperties}), and the
+ * candidate's response is discarded.
+ * <p>
+ * The copy is fired off without being waited for, so the client never sees its latency or
+ * failures. For each sampled request, time to response headers is recorded for production and
+ * for the candidate side by side in {@code gateway.mirror.latency} (tag {@code track}).
+ */
+@Slf4j
+@Component
+public class MirrorGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<MirrorGatewayFilterFactory.Config> {
+
+    public static final String SHADOW_HEADER = "X-Shadow-Request";
+
+    private static final String PRODUCTION = "production";
+    private static final String CANDIDATE = "candidate";
+    private static final Set<String> NOT_COPIED = Set.of(
+            HttpHeaders.HOST, HttpHeaders.CONTENT_LENGTH, HttpHeaders.CONNECTION, HttpHeaders.TRANSFER_ENCODING,
+            HttpHeaders.UPGRADE, HttpHeaders.TE, HttpHeaders.TRAILER, HttpHeaders.PROXY_AUTHORIZATION);
+
+    private final ReactiveDiscoveryClient discoveryClient;
+    private final WebClient webClient;
+    private final MirrorProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public MirrorGatewayFilterFactory(ReactiveDiscoveryClient discoveryClient,
+                                      WebClient.Builder webClientBuilder,
+                                      MirrorProperties properties,
+                                      MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.discoveryClient = discoveryClient;
+        this.webClient = webClientBuilder.build();
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId();
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (!isIdempotentRead(request) || ThreadLocalRandom.current().nextDouble() >= config.getSampleRate()) {
+                return chain.filter(exchange);
+            }
+
+            Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+            if (route == null || !"lb".equals(route.getUri().getScheme())) {
+                return chain.filter(exchange);
+            }
+            if (inFlight.incrementAndGet() > properties.getMaxInFlight()) {
+                inFlight.decrementAndGet();
+                skipped(routeId, "saturated").increment();
+                return chain.filter(exchange);
+            }
+
+            mirror(routeId, route.getUri().getHost(), request)
+                    .doFinally(signal -> inFlight.decrementAndGet())
+                    .subscribe();
+
+            long start = System.nanoTime();
+            return chain.filter(exchange)
+                    .doFinally(signal -> recordProduction(routeId, exchange, signal, System.nanoTime() - start));
+        };
+    }
+
+    private Mono<Void> mirror(String routeId, String serviceId, ServerHttpRequest request) {
+        return discoveryClient.getInstances(serviceId)
+                .filter(properties::isCandidate)
+                .collectList()
+                .flatMap(candidates -> {
+                    if (candidates.isEmpty()) {
+                        skipped(routeId, "no-candidate").increment();
+                        return Mono.empty();
+                    }
+                    return send(routeId, pick(candidates), request);
+                })
+                .onErrorResume(e -> {
+                    log.debug("Mirroring on route {} failed: {}", routeId, e.toString());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> send(String routeId, ServiceInstance candidate, ServerHttpRequest request) {
+        URI uri = UriComponentsBuilder.fromUri(request.getURI())
+                .scheme(candidate.isSecure() ? "https" : "http")
+                .host(candidate.getHost())
+                .port(candidate.getPort())
+                .build(true)
+                .toUri();
+
+        long start = System.nanoTime();
+        return webClient.method(request.getMethod())
+                .uri(uri)
+                .headers(headers -> {
+                    request.getHeaders().forEach((name, values) -> {
+                        if (!NOT_COPIED.contains(name)) {
+                            headers.put(name, values);
+                        }
+                    });
+                    headers.set(SHADOW_HEADER, "true");
+                })
+                // Headers are the comparison point; the body is drained and dropped
+                .exchangeToMono(response -> {
+                    long nanos = System.nanoTime() - start;
+                    return response.releaseBody()
+                            .doOnTerminate(() -> latency(routeId, CANDIDATE, Integer.toString(response.statusCode().value()))
+                                    .record(nanos, TimeUnit.NANOSECONDS));
+                })
+                .timeout(properties.getTimeout())
+                .onErrorResume(e -> {
+                    String status = e instanceof TimeoutException ? "TIMEOUT" : "ERROR";
+                    latency(routeId, CANDIDATE, status).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    return Mono.empty();
+                });
+    }
+
+    private void recordProduction(String routeId, ServerWebExchange exchange, SignalType signal, long totalNanos) {
+        if (signal == SignalType.CANCEL) {
+            return;
+        }
+        // Same measure as the candidate's: time to the upstream's response headers
+        Long upstreamNanos = exchange.getAttribute(UpstreamTimingFilter.UPSTREAM_NANOS_ATTRIBUTE);
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        String statusTag = signal == SignalType.ON_ERROR ? "ERROR" : status == null ? "200" : Integer.toString(status.value());
+        latency(routeId, PRODUCTION, statusTag)
+                .record(upstreamNanos == null ? totalNanos : upstreamNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static ServiceInstance pick(List<ServiceInstance> candidates) {
+        return candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+    }
+
+    private static boolean isIdempotentRead(ServerHttpRequest request) {
+        HttpMethod method = request.getMethod();
+        HttpHeaders headers = request.getHeaders();
+        return (method == HttpMethod.GET || method == HttpMethod.HEAD)
+                && headers.getContentLength() <= 0
+                && !headers.containsKey(HttpHeaders.TRANSFER_ENCODING);
+    }
+
+    private Timer latency(String routeId, String track, String status) {
+        return Timer.builder("gateway.mirror.latency")
+                .description("Time to response headers of sampled requests, production and candidate")
+                .tag("route", routeId)
+                .tag("track", track)
+                .tag("status", status)
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Counter skipped(String routeId, String reason) {
+        return Counter.builder("gateway.mirror.skipped")
+                .description("Sampled requests not mirrored")
+                .tag("route", routeId)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @Getter
+    @Setter
+    public static class Config implements HasRouteId {
+        private String routeId;
+
+        /**
+         * Share of the route's GETs and HEADs copied to candidates, between 0 and 1.
+         */
+        private double sampleRate = 0.01;
+    }
+}
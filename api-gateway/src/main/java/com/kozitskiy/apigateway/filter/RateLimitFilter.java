@@ -0,0 +1,127 @@
+package com.kozitskiy.apigateway.filter;
+
+import com.kozitskiy.apigateway.config.RateLimitProperties;
+import com.kozitskiy.apigateway.ratelimit.TokenBucketRateLimiter;
+import com.kozitskiy.apigateway.ratelimit.TokenBucketRateLimiter.Rate;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Per-caller rate limiting without a Redis round trip. Callers are identified by JWT subject,
+ * or by client IP on open endpoints, and each route can have its own limit.
+ */
+@Slf4j
+@Component
+@Order(JwtAuthenticationFilter.ORDER + 1)
+public class RateLimitFilter implements GlobalFilter {
+
+    private static final Object UNKNOWN_CALLER = new Object();
+
+    private final RateLimitProperties properties;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final MeterRegistry meterRegistry;
+    private volatile Rates rates;
+
+    public RateLimitFilter(RateLimitProperties properties,
+                           TokenBucketRateLimiter rateLimiter,
+                           MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.rateLimiter = rateLimiter;
+        this.meterRegistry = meterRegistry;
+        this.rates = Rates.of(properties);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        long waitNanos = tryAcquire(exchange, route == null ? "" : route.getId());
+        if (waitNanos == 0) {
+            return chain.filter(exchange);
+        }
+        return onLimited(exchange, waitNanos);
+    }
+
+    /**
+     * Charges one request on the route to the exchange's caller. Used directly for requests the
+     * gateway sends on the caller's behalf, such as the parts of a batch.
+     *
+     * @return nanoseconds until the request would be allowed, or 0 if it was
+     */
+    public long tryAcquire(ServerWebExchange exchange, String routeId) {
+        Rates current = rates;
+        if (!current.enabled()) {
+            return 0;
+        }
+
+        Rate rate = current.routes().getOrDefault(routeId, current.defaultRate());
+        long waitNanos = rateLimiter.tryAcquire(routeId, caller(exchange), rate);
+        if (waitNanos != 0) {
+            meterRegistry.counter("gateway.rate.limit.rejected", "route", routeId).increment();
+        }
+        return waitNanos;
+    }
+
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void reload() {
+        rates = Rates.of(properties);
+        log.info("Reloaded rate limits for routes: {}", properties.getRoutes().keySet());
+    }
+
+    // The JWT subject, or the client InetAddress when there is none; the two types never collide as keys
+    private static Object caller(ServerWebExchange exchange) {
+        String subject = exchange.getAttribute(JwtAuthenticationFilter.SUBJECT_ATTRIBUTE);
+        if (subject != null) {
+            return subject;
+        }
+
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        if (remoteAddress == null || remoteAddress.getAddress() == null) {
+            return UNKNOWN_CALLER;
+        }
+        return remoteAddress.getAddress();
+    }
+
+    private Mono<Void> onLimited(ServerWebExchange exchange, long waitNanos) {
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+
+        var response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        String body = """
+            {"error": "Too many requests"}
+            """;
+        var buffer = response.bufferFactory()
+                .wrap(body.getBytes(StandardCharsets.UTF_8));
+        return response.writeWith(Mono.just(buffer));
+    }
+
+    private record Rates(boolean enabled, Rate defaultRate, Map<String, Rate> routes) {
+
+        static Rates of(RateLimitProperties properties) {
+            Map<String, Rate> routes = new HashMap<>();
+            properties.getRoutes().forEach((routeId, limit) -> routes.put(routeId, Rate.of(limit)));
+            return new Rates(properties.isEnabled(), Rate.of(properties.getDefaultLimit()), Map.copyOf(routes));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.kozitskiy.apigateway.filter;
+
+import com.kozitskiy.apigateway.config.DeadlineProperties;
+import com.kozitskiy.deadline.Deadline;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Stamps every request with an absolute {@link Deadline} from its route's time budget. A client
+ * may ask for an earlier deadline but never a later one.
+ */
+@Slf4j
+@Component
+@Order(JwtAuthenticationFilter.ORDER - 1)
+public class RequestDeadlineFilter implements GlobalFilter {
+
+    private final DeadlineProperties properties;
+    private volatile Budgets budgets;
+
+    public RequestDeadlineFilter(DeadlineProperties properties) {
+        this.properties = properties;
+        this.budgets = Budgets.of(properties);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Budgets current = budgets;
+        if (!current.enabled()) {
+            return chain.filter(exchange);
+        }
+
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        Duration budget = route == null
+                ? current.defaultBudget()
+                : current.routes().getOrDefault(route.getId(), current.defaultBudget());
+
+        long deadline = System.currentTimeMillis() + budget.toMillis();
+        Deadline requested = Deadline.parse(exchange.getRequest().getHeaders().getFirst(Deadline.HEADER)).orElse(null);
+        if (requested != null && requested.epochMillis() < deadline) {
+            deadline = requested.epochMillis();
+        }
+
+        String header = Long.toString(deadline);
+        return chain.filter(exchange.mutate()
+                .request(request -> request.headers(headers -> headers.set(Deadline.HEADER, header)))
+                .build());
+    }
+
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void reload() {
+        budgets = Budgets.of(properties);
+        log.info("Reloaded deadline budgets for routes: {}", properties.getRoutes().keySet());
+    }
+
+    private record Budgets(boolean enabled, Duration defaultBudget, Map<String, Duration> routes) {
+
+        static Budgets of(DeadlineProperties properties) {
+            return new Budgets(properties.isEnabled(), properties.getDefaultBudget(), Map.copyOf(properties.getRoutes()));
+        }
+    }
+}
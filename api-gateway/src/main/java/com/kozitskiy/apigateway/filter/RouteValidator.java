@@ -1,22 +1,32 @@
 package com.kozitskiy.apigateway.filter;
 
+import com.kozitskiy.apigateway.config.GatewaySecurityProperties;
+import com.kozitskiy.apigateway.route.RouteMatcher;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-import java.util.function.Predicate;
-
+@Slf4j
 @Component
 public class RouteValidator {
 
-    public static final List<String> OPEN_ENDPOINTS = List.of(
-            "/auth/register",
-            "/auth/login",
-            "/auth/refresh"
-    );
+    private final GatewaySecurityProperties properties;
+    private volatile RouteMatcher openEndpoints;
+
+    public RouteValidator(GatewaySecurityProperties properties) {
+        this.properties = properties;
+        this.openEndpoints = RouteMatcher.compile(properties.getOpenEndpoints());
+    }
+
+    public boolean isSecured(ServerHttpRequest request) {
+        return !openEndpoints.matches(request.getMethod(), request.getURI().getPath());
+    }
 
-    public Predicate<ServerHttpRequest> isSecured = request -> {
-        String path = request.getURI().getPath();
-        return OPEN_ENDPOINTS.stream().noneMatch(path::startsWith);
-    };
+    @EventListener(RefreshScopeRefreshedEvent.class)
+    public void reload() {
+        openEndpoints = RouteMatcher.compile(properties.getOpenEndpoints());
+        log.info("Reloaded open endpoints: {}", properties.getOpenEndpoints());
+    }
 }
@@ -0,0 +1,30 @@
+package com.kozitskiy.apigateway.filter;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Times the upstream call: NettyRoutingFilter completes once the response headers arrive,
+ * so this is time to first byte, while body streaming is counted as gateway time.
+ */
+@Component
+@Order(NettyRoutingFilter.ORDER - 1)
+public class UpstreamTimingFilter implements GlobalFilter {
+
+    public static final String UPSTREAM_NANOS_ATTRIBUTE = UpstreamTimingFilter.class.getName() + ".upstreamNanos";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long start = System.nanoTime();
+        Runnable stop = () -> exchange.getAttributes().put(UPSTREAM_NANOS_ATTRIBUTE, System.nanoTime() - start);
+        // Not doFinally: that would run after LatencyRecordingFilter has already recorded the exchange
+        return chain.filter(exchange)
+                .doOnTerminate(stop)
+                .doOnCancel(stop);
+    }
+}
@@ -0,0 +1,114 @@
+package com.kozitskiy.apigateway.loadbalancer;
+
+import com.kozitskiy.apigateway.config.MirrorProperties;
+import com.kozitskiy.apigateway.config.UpstreamProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.net.URI;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Opens a pooled connection from the routing {@link HttpClient} to every instance that appears
+ * in the Eureka registry, so the first client requests after a scale-out do not pay for the TCP
+ * handshake and the h2c upgrade.
+ * <p>
+ * Driven by the {@link HeartbeatEvent} the Eureka client publishes after each registry fetch.
+ * Only services behind {@code lb://} routes are warmed, and mirroring candidates are skipped.
+ */
+@Slf4j
+@Component
+public class ConnectionPrewarmer {
+
+    private final HttpClient httpClient;
+    private final ReactiveDiscoveryClient discoveryClient;
+    private final RouteLocator routeLocator;
+    private final UpstreamProperties properties;
+    private final MirrorProperties mirrorProperties;
+    private final MeterRegistry meterRegistry;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    // Instances warmed and still registered as of the last refresh; one that leaves and comes
+    // back, or could not be warmed, is tried again on the next refresh
+    private volatile Set<String> known = Set.of();
+
+    public ConnectionPrewarmer(HttpClient httpClient,
+                               ReactiveDiscoveryClient discoveryClient,
+                               RouteLocator routeLocator,
+                               UpstreamProperties properties,
+                               MirrorProperties mirrorProperties,
+                               MeterRegistry meterRegistry) {
+        this.httpClient = httpClient;
+        this.discoveryClient = discoveryClient;
+        this.routeLocator = routeLocator;
+        this.properties = properties;
+        this.mirrorProperties = mirrorProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener(HeartbeatEvent.class)
+    public void onRegistryRefreshed() {
+        if (properties.getPrewarm().isEnabled() && refreshing.compareAndSet(false, true)) {
+            refresh().doFinally(signal -> refreshing.set(false)).subscribe();
+        }
+    }
+
+    Mono<Void> refresh() {
+        Set<String> current = ConcurrentHashMap.newKeySet();
+        Set<String> warmed = ConcurrentHashMap.newKeySet();
+        return routeLocator.getRoutes()
+                .map(Route::getUri)
+                .filter(uri -> "lb".equals(uri.getScheme()))
+                .map(URI::getHost)
+                .distinct()
+                .flatMap(discoveryClient::getInstances)
+                .filter(instance -> !mirrorProperties.isCandidate(instance))
+                .filter(instance -> current.add(key(instance)))
+                .flatMap(instance -> known.contains(key(instance)) ? Mono.just(instance) : warm(instance))
+                .doOnNext(instance -> warmed.add(key(instance)))
+                .then(Mono.fromRunnable(() -> known = Set.copyOf(warmed)))
+                .onErrorResume(e -> {
+                    log.warn("Connection pre-warming failed: {}", e.toString());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    // Emits the instance once warmed, nothing if it could not be reached
+    private Mono<ServiceInstance> warm(ServiceInstance instance) {
+        String uri = instance.getUri().resolve(properties.getPrewarm().getPath()).toString();
+        return httpClient.head()
+                .uri(uri)
+                .responseSingle((response, body) -> body.then(Mono.just(response.status().code())))
+                .timeout(properties.getPrewarm().getTimeout())
+                .doOnSuccess(status -> {
+                    log.debug("Pre-warmed connection to {} ({}): {}", instance.getServiceId(), key(instance), status);
+                    count(instance, "success");
+                })
+                .doOnError(e -> {
+                    log.debug("Could not pre-warm {} ({}): {}", instance.getServiceId(), key(instance), e.toString());
+                    count(instance, "failure");
+                })
+                .thenReturn(instance)
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    private void count(ServiceInstance instance, String outcome) {
+        meterRegistry.counter("gateway.upstream.prewarmed", "service", instance.getServiceId(), "outcome", outcome)
+                .increment();
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getServiceId() + '/' + instance.getHost() + ':' + instance.getPort();
+    }
+}
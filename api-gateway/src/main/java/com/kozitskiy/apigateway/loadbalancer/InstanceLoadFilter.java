@@ -0,0 +1,60 @@
+package com.kozitskiy.apigateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+
+/**
+ * Feeds {@link InstanceLoadTracker} from the exchange rather than from the load-balancer
+ * lifecycle, which never reports a cancelled call as complete. Runs right after the load balancer
+ * has picked the instance; the rest of the chain completes once the upstream's response headers
+ * arrive, so a sample is time to first byte, and a streamed body such as a server-sent event
+ * stream neither holds an in-flight slot nor counts as latency.
+ * <p>
+ * A call cancelled before the headers arrived, because the client went away or a hedged copy
+ * won, records the time waited so far as a lower bound on the instance's latency.
+ */
+@Component
+@Order(InstanceLoadFilter.ORDER)
+public class InstanceLoadFilter implements GlobalFilter {
+
+    public static final int ORDER = ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+
+    private final InstanceLoadTracker tracker;
+
+    public InstanceLoadFilter(InstanceLoadTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> lbResponse = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return chain.filter(exchange);
+        }
+
+        ServiceInstance instance = lbResponse.getServer();
+        tracker.started(instance);
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            long elapsed = System.nanoTime() - start;
+            switch (signal) {
+                case CANCEL -> tracker.abandoned(instance, elapsed);
+                case ON_ERROR -> tracker.completed(instance, elapsed, true);
+                default -> {
+                    HttpStatusCode status = exchange.getResponse().getStatusCode();
+                    tracker.completed(instance, elapsed, status != null && status.is5xxServerError());
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,113 @@
+package com.kozitskiy.apigateway.loadbalancer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Peak-EWMA latency and in-flight count per upstream instance, fed by {@link InstanceLoadFilter}
+ * and read by {@link PeakEwmaLoadBalancer}.
+ * <p>
+ * A sample slower than the current estimate replaces it at once; faster samples and idle time
+ * pull it back down with time constant {@code gateway.load-balancer.decay}. Failures and 5xx
+ * count as at least {@code gateway.load-balancer.error-penalty}, so a broken instance is
+ * avoided and then probed again once its penalty has decayed.
+ */
+@Component
+public class InstanceLoadTracker {
+
+    private final LongSupplier nanoClock;
+    private final double decayNanos;
+    private final long errorPenaltyNanos;
+    private final ConcurrentMap<String, InstanceLoad> loads = new ConcurrentHashMap<>();
+
+    @Autowired
+    public InstanceLoadTracker(@Value("${gateway.load-balancer.decay:PT10S}") Duration decay,
+                               @Value("${gateway.load-balancer.error-penalty:PT1S}") Duration errorPenalty) {
+        this(decay, errorPenalty, System::nanoTime);
+    }
+
+    InstanceLoadTracker(Duration decay, Duration errorPenalty, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.decayNanos = decay.toNanos();
+        this.errorPenaltyNanos = errorPenalty.toNanos();
+    }
+
+    /**
+     * Expected cost of sending one more request: decayed latency estimate times queue depth.
+     */
+    public double cost(ServiceInstance instance) {
+        InstanceLoad load = loads.get(key(instance));
+        return load == null ? 0 : load.cost(nanoClock.getAsLong(), decayNanos);
+    }
+
+    public void started(ServiceInstance instance) {
+        load(instance).start();
+    }
+
+    public void completed(ServiceInstance instance, long latencyNanos, boolean failed) {
+        long sample = failed ? Math.max(latencyNanos, errorPenaltyNanos) : latencyNanos;
+        load(instance).complete(nanoClock.getAsLong(), sample, decayNanos);
+    }
+
+    /**
+     * The call was cancelled before the instance answered, for example the losing copy of a
+     * hedged request. The time waited so far is a lower bound on the instance's latency and is
+     * recorded as such.
+     */
+    public void abandoned(ServiceInstance instance, long waitedNanos) {
+        load(instance).complete(nanoClock.getAsLong(), waitedNanos, decayNanos);
+    }
+
+    int inFlight(ServiceInstance instance) {
+        InstanceLoad load = loads.get(key(instance));
+        return load == null ? 0 : load.inFlight();
+    }
+
+    private InstanceLoad load(ServiceInstance instance) {
+        return loads.computeIfAbsent(key(instance), k -> new InstanceLoad());
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getHost() + ':' + instance.getPort();
+    }
+
+    private static final class InstanceLoad {
+
+        private int inFlight;
+        private double latencyNanos;
+        private long updatedAt;
+
+        synchronized void start() {
+            inFlight++;
+        }
+
+        synchronized void complete(long now, long sampleNanos, double decayNanos) {
+            inFlight = Math.max(0, inFlight - 1);
+
+            double weight = weight(now, decayNanos);
+            double decayed = latencyNanos * weight;
+            latencyNanos = sampleNanos > decayed ? sampleNanos : decayed + sampleNanos * (1 - weight);
+            updatedAt = now;
+        }
+
+        synchronized int inFlight() {
+            return inFlight;
+        }
+
+        synchronized double cost(long now, double decayNanos) {
+            // +1 ns keeps in-flight counts meaningful while an instance has no latency estimate yet
+            return (latencyNanos * weight(now, decayNanos) + 1) * (inFlight + 1);
+        }
+
+        private double weight(long now, double decayNanos) {
+            return updatedAt == 0 ? 0 : Math.exp(-(now - updatedAt) / decayNanos);
+        }
+    }
+}
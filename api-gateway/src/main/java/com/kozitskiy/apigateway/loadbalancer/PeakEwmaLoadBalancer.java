@@ -0,0 +1,115 @@
+package com.kozitskiy.apigateway.loadbalancer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Power-of-two-choices over {@link InstanceLoadTracker} costs: two distinct instances are picked
+ * at random and the cheaper one wins. Unlike always taking the global minimum, this never sends
+ * a burst of requests to a single instance that merely looked best a moment ago.
+ * <p>
+ * An exchange carrying {@link #AVOID_INSTANCE_ATTRIBUTE} is never sent to that instance, which
+ * lets a hedged request go to a different instance than the one it backs up. Instances matching
+ * {@code excluded}, such as mirroring candidates, are never chosen.
+ */
+@Slf4j
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    public static final String AVOID_INSTANCE_ATTRIBUTE = PeakEwmaLoadBalancer.class.getName() + ".avoidInstance";
+
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final String serviceId;
+    private final InstanceLoadTracker tracker;
+    private final Predicate<ServiceInstance> excluded;
+
+    public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider,
+                                String serviceId,
+                                InstanceLoadTracker tracker) {
+        this(supplierProvider, serviceId, tracker, instance -> false);
+    }
+
+    public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider,
+                                String serviceId,
+                                InstanceLoadTracker tracker,
+                                Predicate<ServiceInstance> excluded) {
+        this.supplierProvider = supplierProvider;
+        this.serviceId = serviceId;
+        this.tracker = tracker;
+        this.excluded = excluded;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        ServiceInstance avoid = avoidedInstance(request);
+        return supplier.get(request).next()
+                .map(this::eligible)
+                .map(instances -> avoid == null ? instances : without(instances, avoid))
+                .map(instances -> choose(supplier, instances));
+    }
+
+    private Response<ServiceInstance> choose(ServiceInstanceListSupplier supplier, List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            log.warn("No servers available for service: {}", serviceId);
+            return new EmptyResponse();
+        }
+
+        ServiceInstance chosen = instances.get(0);
+        if (instances.size() > 1) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(instances.size());
+            int second = random.nextInt(instances.size() - 1);
+            if (second >= first) {
+                second++;
+            }
+            ServiceInstance a = instances.get(first);
+            ServiceInstance b = instances.get(second);
+            chosen = tracker.cost(b) < tracker.cost(a) ? b : a;
+        }
+
+        if (supplier instanceof SelectedInstanceCallback callback) {
+            callback.selectedServiceInstance(chosen);
+        }
+        return new DefaultResponse(chosen);
+    }
+
+    private List<ServiceInstance> eligible(List<ServiceInstance> instances) {
+        for (ServiceInstance instance : instances) {
+            if (excluded.test(instance)) {
+                return instances.stream().filter(excluded.negate()).toList();
+            }
+        }
+        return instances;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static ServiceInstance avoidedInstance(Request request) {
+        if (request.getContext() instanceof RequestDataContext context
+                && context.getClientRequest().getAttributes().get(AVOID_INSTANCE_ATTRIBUTE) instanceof ServiceInstance avoid) {
+            return avoid;
+        }
+        return null;
+    }
+
+    private static List<ServiceInstance> without(List<ServiceInstance> instances, ServiceInstance avoid) {
+        return instances.stream()
+                .filter(instance -> !(instance.getHost().equals(avoid.getHost()) && instance.getPort() == avoid.getPort()))
+                .toList();
+    }
+}
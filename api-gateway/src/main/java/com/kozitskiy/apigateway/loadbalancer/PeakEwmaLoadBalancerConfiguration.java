@@ -0,0 +1,28 @@
+package com.kozitskiy.apigateway.loadbalancer;
+
+import com.kozitskiy.apigateway.config.MirrorProperties;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Per-service load-balancer configuration, registered through {@code @LoadBalancerClients}.
+ * Deliberately not a {@code @Configuration}: it must only be loaded into the per-service child
+ * contexts, never picked up by component scanning.
+ */
+public class PeakEwmaLoadBalancerConfiguration {
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(Environment environment,
+                                                                                   LoadBalancerClientFactory clientFactory,
+                                                                                   InstanceLoadTracker tracker,
+                                                                                   MirrorProperties mirrorProperties) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new PeakEwmaLoadBalancer(
+                clientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class), serviceId, tracker,
+                mirrorProperties::isCandidate);
+    }
+}
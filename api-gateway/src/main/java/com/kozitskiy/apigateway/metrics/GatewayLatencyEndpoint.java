@@ -0,0 +1,33 @@
+package com.kozitskiy.apigateway.metrics;
+
+import com.kozitskiy.apigateway.metrics.GatewayLatencyRecorder.RouteLatency;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Served at {@code /actuator/gateway-latency} (see {@code management.endpoints.web.path-mapping}).
+ */
+@Component
+@Endpoint(id = "gatewayLatency")
+@RequiredArgsConstructor
+public class GatewayLatencyEndpoint {
+
+    private final GatewayLatencyRecorder recorder;
+
+    @ReadOperation
+    public List<RouteLatency> latency() {
+        return recorder.snapshot();
+    }
+
+    @ReadOperation
+    public List<RouteLatency> routeLatency(@Selector String routeId) {
+        return recorder.snapshot().stream()
+                .filter(latency -> latency.route().equals(routeId))
+                .toList();
+    }
+}
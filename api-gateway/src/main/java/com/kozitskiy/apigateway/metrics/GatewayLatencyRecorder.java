@@ -0,0 +1,121 @@
+package com.kozitskiy.apigateway.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-route, per-status, per-upstream-instance latency, split into time spent in the gateway
+ * and time waiting for the upstream's response headers.
+ * <p>
+ * Recorded as Micrometer timers ({@code gateway.latency}, tag {@code phase}) whose percentiles
+ * come from Micrometer's HdrHistogram recorders over a sliding window, so p999 stays accurate
+ * without exporting full histograms.
+ */
+@Component
+public class GatewayLatencyRecorder {
+
+    public static final String METRIC_NAME = "gateway.latency";
+    public static final String NO_UPSTREAM = "none";
+
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+    private static final Duration WINDOW = Duration.ofMinutes(1);
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<Key, Timers> timers = new ConcurrentHashMap<>();
+
+    public GatewayLatencyRecorder(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param upstreamNanos time until the upstream's response headers, or a negative value if the
+     *                      request never left the gateway
+     */
+    public void record(String routeId, String status, String instance, long totalNanos, long upstreamNanos) {
+        Key key = new Key(routeId, status, instance);
+        Timers routeTimers = timers.get(key);
+        if (routeTimers == null) {
+            routeTimers = timers.computeIfAbsent(key, this::createTimers);
+        }
+
+        routeTimers.total().record(totalNanos, TimeUnit.NANOSECONDS);
+        if (upstreamNanos >= 0) {
+            routeTimers.upstream().record(upstreamNanos, TimeUnit.NANOSECONDS);
+            routeTimers.gateway().record(Math.max(0, totalNanos - upstreamNanos), TimeUnit.NANOSECONDS);
+        } else {
+            routeTimers.gateway().record(totalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public List<RouteLatency> snapshot() {
+        return timers.entrySet().stream()
+                .sorted(Comparator.comparing((Map.Entry<Key, Timers> e) -> e.getKey().route())
+                        .thenComparing(e -> e.getKey().status())
+                        .thenComparing(e -> e.getKey().instance()))
+                .map(e -> new RouteLatency(
+                        e.getKey().route(),
+                        e.getKey().status(),
+                        e.getKey().instance(),
+                        PhaseLatency.of(e.getValue().total().takeSnapshot()),
+                        PhaseLatency.of(e.getValue().gateway().takeSnapshot()),
+                        PhaseLatency.of(e.getValue().upstream().takeSnapshot())))
+                .toList();
+    }
+
+    private Timers createTimers(Key key) {
+        return new Timers(timer(key, "total"), timer(key, "gateway"), timer(key, "upstream"));
+    }
+
+    private Timer timer(Key key, String phase) {
+        return Timer.builder(METRIC_NAME)
+                .tag("route", key.route())
+                .tag("status", key.status())
+                .tag("instance", key.instance())
+                .tag("phase", phase)
+                .publishPercentiles(PERCENTILES)
+                .distributionStatisticExpiry(WINDOW)
+                .register(meterRegistry);
+    }
+
+    public record RouteLatency(String route,
+                               String status,
+                               String instance,
+                               PhaseLatency total,
+                               PhaseLatency gateway,
+                               PhaseLatency upstream) {
+    }
+
+    /**
+     * Count is cumulative; max and percentiles cover the last minute. Times are in milliseconds.
+     */
+    public record PhaseLatency(long count, double meanMs, double maxMs, double p50Ms, double p99Ms, double p999Ms) {
+
+        static PhaseLatency of(HistogramSnapshot snapshot) {
+            ValueAtPercentile[] percentiles = snapshot.percentileValues();
+            return new PhaseLatency(
+                    snapshot.count(),
+                    snapshot.mean(TimeUnit.MILLISECONDS),
+                    snapshot.max(TimeUnit.MILLISECONDS),
+                    percentiles[0].value(TimeUnit.MILLISECONDS),
+                    percentiles[1].value(TimeUnit.MILLISECONDS),
+                    percentiles[2].value(TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private record Key(String route, String status, String instance) {
+    }
+
+    private record Timers(Timer total, Timer gateway, Timer upstream) {
+    }
+}
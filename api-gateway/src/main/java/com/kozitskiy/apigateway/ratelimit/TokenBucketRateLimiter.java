@@ -0,0 +1,132 @@
+package com.kozitskiy.apigateway.ratelimit;
+
+import com.kozitskiy.apigateway.config.RateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory token buckets, one per route and caller.
+ * <p>
+ * Each bucket is a single {@link AtomicLong} holding the theoretical arrival time of the next
+ * request (GCRA), so acquiring a token is one CAS and needs no lock and no refill timer.
+ * Idle buckets are swept lazily by whichever request first passes the sweep deadline; a bucket
+ * idle for longer than its refill time is full anyway, so dropping it loses nothing.
+ * <p>
+ * Callers are keyed by the object itself (a JWT subject or an {@code InetAddress}) rather than a
+ * concatenated string, so the lookup neither allocates nor touches the key's characters when the
+ * same subject instance comes back from the token cache.
+ */
+@Component
+public class TokenBucketRateLimiter {
+
+    private final LongSupplier nanoClock;
+    private final long idleNanos;
+    private final long maxBuckets;
+    private final ConcurrentMap<String, ConcurrentMap<Object, AtomicLong>> routes = new ConcurrentHashMap<>();
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicLong nextSweep;
+    private final Counter overflow;
+
+    @Autowired
+    public TokenBucketRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.idleNanos = properties.getIdleTimeout().toNanos();
+        this.maxBuckets = properties.getMaxBuckets();
+        this.nextSweep = new AtomicLong(nanoClock.getAsLong() + idleNanos);
+
+        Gauge.builder("gateway.rate.limit.buckets", size, AtomicLong::get)
+                .register(meterRegistry);
+        this.overflow = Counter.builder("gateway.rate.limit.overflow")
+                .description("Requests let through untracked because max-buckets was reached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes one token from the caller's bucket.
+     *
+     * @return 0 if the request is allowed, otherwise the nanoseconds until a token is available
+     */
+    public long tryAcquire(String routeId, Object caller, Rate rate) {
+        long now = nanoClock.getAsLong();
+        ConcurrentMap<Object, AtomicLong> buckets = routes.get(routeId);
+        if (buckets == null) {
+            buckets = routes.computeIfAbsent(routeId, id -> new ConcurrentHashMap<>());
+        }
+        AtomicLong bucket = buckets.get(caller);
+        if (bucket == null) {
+            bucket = newBucket(buckets, caller, now);
+        }
+
+        while (true) {
+            long theoreticalArrival = bucket.get();
+            long next = Math.max(theoreticalArrival, now) + rate.intervalNanos();
+            long wait = next - now - rate.burstNanos();
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(theoreticalArrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public long size() {
+        return size.get();
+    }
+
+    private AtomicLong newBucket(ConcurrentMap<Object, AtomicLong> buckets, Object caller, long now) {
+        long deadline = nextSweep.get();
+        if (now - deadline >= 0 && nextSweep.compareAndSet(deadline, now + idleNanos)) {
+            sweep(now);
+        }
+        if (size.get() >= maxBuckets) {
+            // Fail open rather than grow without bound; counted so it shows up on the dashboard
+            overflow.increment();
+            return new AtomicLong(now);
+        }
+        return buckets.computeIfAbsent(caller, k -> {
+            size.incrementAndGet();
+            return new AtomicLong(now);
+        });
+    }
+
+    // A request racing with the sweep may update a bucket that was just removed; it then starts the next one full
+    private void sweep(long now) {
+        for (ConcurrentMap<Object, AtomicLong> buckets : routes.values()) {
+            buckets.values().removeIf(bucket -> {
+                boolean idle = now - bucket.get() > idleNanos;
+                if (idle) {
+                    size.decrementAndGet();
+                }
+                return idle;
+            });
+        }
+    }
+
+    /**
+     * A limit converted to GCRA terms: the spacing between requests and the burst it tolerates.
+     */
+    public record Rate(long intervalNanos, long burstNanos) {
+
+        public static Rate of(RateLimitProperties.Limit limit) {
+            if (limit.getReplenishRate() <= 0 || limit.getBurstCapacity() <= 0) {
+                throw new IllegalArgumentException("Rate limit values must be positive");
+            }
+            long interval = TimeUnit.SECONDS.toNanos(1) / limit.getReplenishRate();
+            return new Rate(interval, interval * limit.getBurstCapacity());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.kozitskiy.apigateway.ratelimit;
+
+/**
+ * TCP Vegas applied to request concurrency: the queue building up in front of an upstream is
+ * estimated as {@code limit * (1 - minRtt / rtt)}. While that queue is small the limit grows,
+ * once it exceeds a few requests, or a request fails, the limit shrinks.
+ * <p>
+ * The minimum RTT is re-learned every {@value #PROBE_SAMPLES} samples, so a limit that settled
+ * during a slow period can recover after the upstream speeds up again, and vice versa.
+ */
+public class VegasLimit {
+
+    static final int PROBE_SAMPLES = 1000;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+
+    private volatile int limit;
+    private double estimate;
+    private long minRttNanos;
+    private int samplesSinceProbe;
+
+    public VegasLimit(int initialLimit, int minLimit, int maxLimit, double smoothing) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.limit = initialLimit;
+        this.estimate = initialLimit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @param inFlight requests outstanding on the route when this one started
+     * @param dropped  the request failed or the upstream answered 5xx
+     */
+    public synchronized void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (++samplesSinceProbe >= PROBE_SAMPLES) {
+            samplesSinceProbe = 0;
+            minRttNanos = 0;
+        }
+        if (rttNanos <= 0) {
+            return;
+        }
+        if (minRttNanos == 0 || rttNanos < minRttNanos) {
+            minRttNanos = rttNanos;
+        }
+
+        double step = Math.max(1, Math.log10(estimate));
+        double target;
+        if (dropped) {
+            target = estimate - step;
+        } else if (inFlight * 2 < estimate) {
+            // Too little traffic to tell whether the upstream could take more
+            return;
+        } else {
+            double queue = Math.ceil(estimate * (1 - (double) minRttNanos / rttNanos));
+            if (queue <= step) {
+                target = estimate + 6 * step;
+            } else if (queue < 3 * step) {
+                target = estimate + step;
+            } else if (queue > 6 * step) {
+                target = estimate - step;
+            } else {
+                return;
+            }
+        }
+
+        double smoothed = (1 - smoothing) * estimate + smoothing * target;
+        estimate = Math.max(minLimit, Math.min(maxLimit, smoothed));
+        limit = (int) estimate;
+    }
+}
@@ -0,0 +1,154 @@
+package com.kozitskiy.apigateway.route;
+
+import org.springframework.http.HttpMethod;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Immutable path-segment trie compiled from {@code [METHOD] /path/pattern} entries.
+ * <p>
+ * A segment is either a literal, {@code *} (exactly one segment) or a trailing {@code **}
+ * (zero or more segments). Patterns without a method match any method.
+ * Matching walks the request path in place and does not allocate.
+ */
+public final class RouteMatcher {
+
+    private static final int ANY_METHOD = -1;
+    private static final int OTHER_METHOD = 1 << 8;
+    private static final HttpMethod[] KNOWN_METHODS = {
+            HttpMethod.GET, HttpMethod.HEAD, HttpMethod.POST, HttpMethod.PUT,
+            HttpMethod.PATCH, HttpMethod.DELETE, HttpMethod.OPTIONS, HttpMethod.TRACE
+    };
+
+    private final Node root;
+
+    private RouteMatcher(Node root) {
+        this.root = root;
+    }
+
+    public static RouteMatcher compile(List<String> patterns) {
+        Builder root = new Builder(null);
+        for (String pattern : patterns) {
+            add(root, pattern);
+        }
+        return new RouteMatcher(root.build());
+    }
+
+    public boolean matches(HttpMethod method, String path) {
+        return matches(root, path, 0, methodBit(method));
+    }
+
+    private static boolean matches(Node node, String path, int pos, int methodBit) {
+        if ((node.tailMethods & methodBit) != 0) {
+            return true;
+        }
+
+        int length = path.length();
+        int start = pos;
+        while (start < length && path.charAt(start) == '/') {
+            start++;
+        }
+        if (start >= length) {
+            return (node.terminalMethods & methodBit) != 0;
+        }
+
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = length;
+        }
+        int segmentLength = end - start;
+
+        for (Node child : node.children) {
+            if (child.segment.length() == segmentLength
+                    && path.regionMatches(start, child.segment, 0, segmentLength)
+                    && matches(child, path, end, methodBit)) {
+                return true;
+            }
+        }
+        return node.wildcard != null && matches(node.wildcard, path, end, methodBit);
+    }
+
+    private static int methodBit(HttpMethod method) {
+        for (int i = 0; i < KNOWN_METHODS.length; i++) {
+            if (KNOWN_METHODS[i] == method) {
+                return 1 << i;
+            }
+        }
+        return OTHER_METHOD;
+    }
+
+    private static void add(Builder root, String pattern) {
+        String trimmed = pattern.trim();
+        int space = trimmed.indexOf(' ');
+
+        int methods = ANY_METHOD;
+        String path = trimmed;
+        if (space > 0) {
+            String method = trimmed.substring(0, space).toUpperCase(Locale.ROOT);
+            methods = "*".equals(method) ? ANY_METHOD : methodBit(HttpMethod.valueOf(method));
+            path = trimmed.substring(space + 1).trim();
+        }
+        if (!path.startsWith("/")) {
+            throw new IllegalArgumentException("Route pattern must start with '/': " + pattern);
+        }
+
+        String[] segments = Arrays.stream(path.split("/"))
+                .filter(s -> !s.isEmpty())
+                .toArray(String[]::new);
+
+        Builder node = root;
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if ("**".equals(segment)) {
+                if (i != segments.length - 1) {
+                    throw new IllegalArgumentException("'**' is only supported as the last segment: " + pattern);
+                }
+                node.tailMethods |= methods;
+                return;
+            }
+            node = node.child(segment);
+        }
+        node.terminalMethods |= methods;
+    }
+
+    private record Node(String segment, Node[] children, Node wildcard, int terminalMethods, int tailMethods) {
+    }
+
+    private static final class Builder {
+        private final String segment;
+        private final List<Builder> children = new ArrayList<>();
+        private Builder wildcard;
+        private int terminalMethods;
+        private int tailMethods;
+
+        private Builder(String segment) {
+            this.segment = segment;
+        }
+
+        private Builder child(String segment) {
+            if ("*".equals(segment)) {
+                if (wildcard == null) {
+                    wildcard = new Builder(segment);
+                }
+                return wildcard;
+            }
+            for (Builder child : children) {
+                if (child.segment.equals(segment)) {
+                    return child;
+                }
+            }
+            Builder child = new Builder(segment);
+            children.add(child);
+            return child;
+        }
+
+        private Node build() {
+            Node[] builtChildren = children.stream().map(Builder::build).toArray(Node[]::new);
+            Node builtWildcard = wildcard == null ? null : wildcard.build();
+            return new Node(segment, builtChildren, builtWildcard, terminalMethods, tailMethods);
+        }
+    }
+}
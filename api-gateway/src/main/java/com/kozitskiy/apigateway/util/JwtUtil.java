@@ -1,32 +0,0 @@
-package com.kozitskiy.apigateway.util;
-
-import io.jsonwebtoken.JwtException;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.stereotype.Component;
-
-import javax.crypto.SecretKey;
-
-@Component
-public class JwtUtil {
-
-    private final SecretKey secretKey;
-
-    public JwtUtil(@Value("${jwt.secret}") String secret){
-        this.secretKey = Keys.hmacShaKeyFor(secret.getBytes());
-    }
-
-    public boolean validateToken(String token){
-        try {
-            Jwts.parserBuilder()
-                    .setSigningKey(secretKey)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-            return true;
-        }catch (JwtException | IllegalArgumentException e){
-            return false;
-        }
-    }
-}
@@ -0,0 +1,156 @@
+package com.kozitskiy.apigateway.benchmark;
+
+import com.kozitskiy.apigateway.ApiGatewayApplication;
+import com.kozitskiy.jwt.JwtClaims;
+import com.kozitskiy.jwt.JwtCodec;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The real gateway application, started in-process with its own route table, in front of one
+ * in-process stub backend that answers every service. Eureka is off; the {@code lb://} routes
+ * resolve through the simple discovery client to the stub, so the load balancer, the global
+ * filters and the routing client all stay on the measured path.
+ * <p>
+ * Rate and concurrency limiting, API-key polling and connection pre-warming are switched off:
+ * a fixed-rate run from one client would otherwise measure the limiters rejecting it.
+ * Threads the harness owns are named {@value #THREAD_PREFIX}{@code *}, so they can be left out
+ * when allocations are attributed to the gateway.
+ */
+final class BenchmarkGateway implements AutoCloseable {
+
+    static final String THREAD_PREFIX = "bench-";
+
+    private static final List<String> SERVICES = List.of(
+            "AUTH-SERVICE", "USER-SERVICE", "ORDER-SERVICE", "PAYMENT-SERVICE");
+    private static final byte[] STUB_BODY = "{\"id\":7,\"status\":\"OK\"}".getBytes(StandardCharsets.UTF_8);
+    private static final String FOREIGN_SECRET = "not-the-gateway-secret-but-long-enough-for-hs256";
+
+    private final LoopResources stubLoops;
+    private final DisposableServer stub;
+    private final ConfigurableApplicationContext context;
+    private final String validToken;
+    private final String invalidToken;
+
+    private BenchmarkGateway(LoopResources stubLoops, DisposableServer stub, ConfigurableApplicationContext context) {
+        this.stubLoops = stubLoops;
+        this.stub = stub;
+        this.context = context;
+
+        String secret = context.getEnvironment().getRequiredProperty("jwt.secret");
+        this.validToken = token(secret);
+        this.invalidToken = token(FOREIGN_SECRET);
+    }
+
+    static BenchmarkGateway start() {
+        LoopResources stubLoops = LoopResources.create(THREAD_PREFIX + "stub", 2, true);
+        DisposableServer stub = HttpServer.create()
+                .runOn(stubLoops)
+                .port(0)
+                .handle((request, response) -> request.receive().then(response
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .sendByteArray(Mono.just(STUB_BODY))
+                        .then()))
+                .bindNow();
+
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--management.server.port=0",
+                "--eureka.client.enabled=false",
+                "--gateway.rate-limit.enabled=false",
+                "--gateway.concurrency-limit.enabled=false",
+                "--gateway.api-keys.enabled=false",
+                "--gateway.upstream.prewarm.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.cloud.gateway=WARN"));
+        for (String service : SERVICES) {
+            args.add("--spring.cloud.discovery.client.simple.instances[" + service + "][0].uri=http://localhost:"
+                    + stub.port());
+        }
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ApiGatewayApplication.class)
+                .run(args.toArray(String[]::new));
+        return new BenchmarkGateway(stubLoops, stub, context);
+    }
+
+    int port() {
+        return ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        stub.disposeNow();
+        stubLoops.disposeLater().block(Duration.ofSeconds(5));
+    }
+
+    private static String token(String secret) {
+        long now = System.currentTimeMillis() / 1000;
+        return new JwtCodec(secret).sign(new JwtClaims(
+                "bench@example.com", "USER", null, now, now + Duration.ofHours(1).toSeconds()));
+    }
+
+    /**
+     * The request mixes a run is made of: one open route, and a secured route with a valid,
+     * an invalid and no token.
+     */
+    enum Scenario {
+        OPEN(HttpMethod.POST, "/auth/login", HttpStatus.OK),
+        VALID_TOKEN(HttpMethod.GET, "/api/v1/payments/user/7", HttpStatus.OK),
+        INVALID_TOKEN(HttpMethod.GET, "/api/v1/payments/user/7", HttpStatus.UNAUTHORIZED),
+        MISSING_TOKEN(HttpMethod.GET, "/api/v1/payments/user/7", HttpStatus.UNAUTHORIZED);
+
+        static final String LOGIN_BODY = "{\"email\":\"bench@example.com\",\"password\":\"secret\"}";
+
+        final HttpMethod method;
+        final String path;
+        final HttpStatus expectedStatus;
+
+        Scenario(HttpMethod method, String path, HttpStatus expectedStatus) {
+            this.method = method;
+            this.path = path;
+            this.expectedStatus = expectedStatus;
+        }
+
+        String body() {
+            return this == OPEN ? LOGIN_BODY : null;
+        }
+
+        String authorization(BenchmarkGateway gateway) {
+            return switch (this) {
+                case OPEN, MISSING_TOKEN -> null;
+                case VALID_TOKEN -> "Bearer " + gateway.validToken;
+                case INVALID_TOKEN -> "Bearer " + gateway.invalidToken;
+            };
+        }
+
+        MockServerHttpRequest mockRequest(BenchmarkGateway gateway) {
+            MockServerHttpRequest.BodyBuilder builder = MockServerHttpRequest.method(method, path);
+            String authorization = authorization(gateway);
+            if (authorization != null) {
+                builder.header(HttpHeaders.AUTHORIZATION, authorization);
+            }
+            String body = body();
+            return body == null ? builder.build() : builder.contentType(MediaType.APPLICATION_JSON).body(body);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.kozitskiy.apigateway.benchmark;
+
+import com.kozitskiy.apigateway.benchmark.BenchmarkGateway.Scenario;
+import com.kozitskiy.apigateway.filter.JwtAuthenticationFilter;
+import com.kozitskiy.apigateway.filter.RouteValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.handler.RoutePredicateHandlerMapping;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of the gateway's authentication and routing steps, taken from the running
+ * application in {@link BenchmarkGateway} rather than hand-built instances, for each
+ * {@link Scenario}. End-to-end latency at a fixed rate is measured by {@link GatewayLoadBenchmark}.
+ * <p>
+ * {@code exchange} only builds the mock exchange the other benchmarks consume; subtract it to get
+ * the cost of the step itself. Sample mode reports throughput-equivalent mean, percentiles and,
+ * with the GC profiler, allocations per operation ({@code gc.alloc.rate.norm}). Results are
+ * written to {@code target/benchmark/gateway-filter-chain.json}; keep the file per commit to
+ * compare runs.
+ * <p>
+ * Run with: {@code mvn -pl api-gateway test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * "-Dexec.args=-cp %classpath com.kozitskiy.apigateway.benchmark.GatewayFilterChainBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseG1GC"})
+public class GatewayFilterChainBenchmark {
+
+    private static final GatewayFilterChain CHAIN = exchange -> Mono.empty();
+
+    @Param({"OPEN", "VALID_TOKEN", "INVALID_TOKEN", "MISSING_TOKEN"})
+    public String scenario;
+
+    private BenchmarkGateway gateway;
+    private RouteValidator routeValidator;
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+    private RoutePredicateHandlerMapping routeMapping;
+    private MockServerHttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gateway = BenchmarkGateway.start();
+        routeValidator = gateway.bean(RouteValidator.class);
+        jwtAuthenticationFilter = gateway.bean(JwtAuthenticationFilter.class);
+        routeMapping = gateway.bean(RoutePredicateHandlerMapping.class);
+        request = Scenario.valueOf(scenario).mockRequest(gateway);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        gateway.close();
+    }
+
+    @Benchmark
+    public MockServerWebExchange exchange() {
+        return MockServerWebExchange.from(request);
+    }
+
+    @Benchmark
+    public boolean routeValidator() {
+        return routeValidator.isSecured(request);
+    }
+
+    @Benchmark
+    public Object jwtAuthenticationFilter() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        jwtAuthenticationFilter.filter(exchange, CHAIN).block();
+        return exchange;
+    }
+
+    @Benchmark
+    public Object routeLookup() {
+        return routeMapping.getHandler(MockServerWebExchange.from(request)).block();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new File("target/benchmark").mkdirs();
+        new Runner(new OptionsBuilder()
+                .include(GatewayFilterChainBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/benchmark/gateway-filter-chain.json")
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,218 @@
+package com.kozitskiy.apigateway.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.kozitskiy.apigateway.benchmark.BenchmarkGateway.Scenario;
+import io.netty.handler.codec.http.HttpMethod;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load against {@link BenchmarkGateway}: each {@link Scenario} is sent at a fixed rate
+ * over real connections, and every latency is measured from the moment the request was due, not
+ * from when it was sent, so a stalled gateway is not hidden by a client that waits for it.
+ * <p>
+ * Reports achieved throughput, latency percentiles, response statuses and bytes allocated per
+ * request by every thread except the harness's own (the client and the stub backend). Results
+ * go to {@code target/benchmark/gateway-load.json}; keep the file per commit to compare runs.
+ * <p>
+ * Tunable with {@code -Dbench.rate} (requests/s, default 2000), {@code -Dbench.warmup} and
+ * {@code -Dbench.duration} (ISO-8601, default PT10S and PT30S) and {@code -Dbench.label}
+ * (recorded with the results, e.g. the commit). Run with:
+ * {@code mvn -pl api-gateway test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * "-Dexec.args=-Xms1g -Xmx1g -cp %classpath com.kozitskiy.apigateway.benchmark.GatewayLoadBenchmark"}.
+ */
+public final class GatewayLoadBenchmark {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final BenchmarkGateway gateway;
+    private final HttpClient client;
+    private final int rate;
+
+    private GatewayLoadBenchmark(BenchmarkGateway gateway, HttpClient client, int rate) {
+        this.gateway = gateway;
+        this.client = client;
+        this.rate = rate;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rate = Integer.getInteger("bench.rate", 2000);
+        Duration warmup = Duration.parse(System.getProperty("bench.warmup", "PT10S"));
+        Duration duration = Duration.parse(System.getProperty("bench.duration", "PT30S"));
+        Path output = Path.of(System.getProperty("bench.output", "target/benchmark/gateway-load.json"));
+
+        LoopResources clientLoops = LoopResources.create(BenchmarkGateway.THREAD_PREFIX + "client", 2, true);
+        ConnectionProvider connections = ConnectionProvider.builder(BenchmarkGateway.THREAD_PREFIX + "client")
+                .maxConnections(1000)
+                .pendingAcquireMaxCount(-1)
+                .build();
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        try (BenchmarkGateway gateway = BenchmarkGateway.start()) {
+            HttpClient client = HttpClient.create(connections)
+                    .runOn(clientLoops)
+                    .baseUrl("http://localhost:" + gateway.port());
+            GatewayLoadBenchmark benchmark = new GatewayLoadBenchmark(gateway, client, rate);
+
+            for (Scenario scenario : Scenario.values()) {
+                benchmark.run(scenario, warmup);
+                Map<String, Object> result = benchmark.run(scenario, duration);
+                System.out.println(result);
+                results.add(result);
+            }
+        } finally {
+            connections.disposeLater().block(Duration.ofSeconds(5));
+            clientLoops.disposeLater().block(Duration.ofSeconds(5));
+        }
+
+        write(output, rate, warmup, duration, results);
+    }
+
+    private Map<String, Object> run(Scenario scenario, Duration duration) throws InterruptedException {
+        long total = duration.toSeconds() * rate;
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        Recorder recorder = new Recorder(MAX_LATENCY_NANOS, 3);
+        Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        LongAdder errors = new LongAdder();
+        AtomicLong lastCompletion = new AtomicLong();
+        CountDownLatch done = new CountDownLatch((int) total);
+
+        String authorization = scenario.authorization(gateway);
+        String body = scenario.body();
+        HttpClient scenarioClient = client.headers(headers -> {
+            if (authorization != null) {
+                headers.set(HttpHeaders.AUTHORIZATION, authorization);
+            }
+            if (body != null) {
+                headers.set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+            }
+        });
+        HttpMethod method = HttpMethod.valueOf(scenario.method.name());
+        byte[] payload = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+
+        Map<Long, Long> allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long due = start + i * periodNanos;
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            scenarioClient.request(method)
+                    .uri(scenario.path)
+                    .send((request, outbound) -> payload.length == 0 ? outbound : outbound.sendByteArray(Mono.just(payload)))
+                    .responseSingle((response, content) -> content.then(Mono.just(response.status().code())))
+                    .subscribe(
+                            status -> {
+                                long now = System.nanoTime();
+                                recorder.recordValue(Math.min(now - due, MAX_LATENCY_NANOS));
+                                statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+                                lastCompletion.accumulateAndGet(now, Math::max);
+                                done.countDown();
+                            },
+                            e -> {
+                                errors.increment();
+                                done.countDown();
+                            });
+        }
+
+        boolean completed = done.await(30, TimeUnit.SECONDS);
+        long allocated = allocatedSince(allocatedBefore);
+        Histogram latency = recorder.getIntervalHistogram();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("scenario", scenario.name());
+        result.put("expectedStatus", scenario.expectedStatus.value());
+        result.put("requests", total);
+        result.put("completed", completed);
+        result.put("errors", errors.sum());
+        Map<String, Long> statusCounts = new TreeMap<>();
+        statuses.forEach((status, count) -> statusCounts.put(Integer.toString(status), count.sum()));
+        result.put("statuses", statusCounts);
+        long elapsed = Math.max(1, lastCompletion.get() - start);
+        result.put("throughputPerSecond", Math.round(latency.getTotalCount() * 1e9 / elapsed));
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            percentiles.put("p" + percentile, micros(latency.getValueAtPercentile(percentile)));
+        }
+        percentiles.put("max", micros(latency.getMaxValue()));
+        result.put("latencyMicros", percentiles);
+        result.put("allocatedBytesPerRequest", total == 0 ? 0 : allocated / total);
+        return result;
+    }
+
+    /**
+     * Bytes allocated so far by each live thread outside the harness, keyed by thread id.
+     */
+    private static Map<Long, Long> allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Map<Long, Long> allocated = new HashMap<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (!thread.getName().startsWith(BenchmarkGateway.THREAD_PREFIX) && thread != Thread.currentThread()) {
+                long bytes = threads.getThreadAllocatedBytes(thread.threadId());
+                if (bytes >= 0) {
+                    allocated.put(thread.threadId(), bytes);
+                }
+            }
+        }
+        return allocated;
+    }
+
+    private static long allocatedSince(Map<Long, Long> before) {
+        long total = 0;
+        for (Map.Entry<Long, Long> entry : allocatedBytes().entrySet()) {
+            total += entry.getValue() - before.getOrDefault(entry.getKey(), 0L);
+        }
+        return total;
+    }
+
+    private static double micros(long nanos) {
+        return Math.round(nanos / 100.0) / 10.0;
+    }
+
+    private static void write(Path output, int rate, Duration warmup, Duration duration,
+                              List<Map<String, Object>> results) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", System.getProperty("bench.label", ""));
+        report.put("timestamp", Instant.now().toString());
+        report.put("java", Runtime.version().toString());
+        report.put("processors", Runtime.getRuntime().availableProcessors());
+        report.put("ratePerSecond", rate);
+        report.put("warmup", warmup.toString());
+        report.put("duration", duration.toString());
+        report.put("results", results);
+
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), report);
+        System.out.println("Results written to " + output.toAbsolutePath());
+    }
+}
@@ -0,0 +1,100 @@
+package com.kozitskiy.apigateway.benchmark;
+
+import com.kozitskiy.apigateway.route.RouteMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Compares the compiled {@link RouteMatcher} with the stream-based predicate it replaced.
+ * <p>
+ * Run with: {@code mvn -pl api-gateway test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * "-Dexec.args=-cp %classpath com.kozitskiy.apigateway.benchmark.RouteValidatorBenchmark"}.
+ * The GC profiler reports allocations per operation ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteValidatorBenchmark {
+
+    private static final List<String> LEGACY_OPEN_ENDPOINTS = List.of(
+            "/auth/register",
+            "/auth/login",
+            "/auth/refresh"
+    );
+
+    private static final Predicate<ServerHttpRequest> LEGACY_IS_SECURED = request -> {
+        String path = request.getURI().getPath();
+        return LEGACY_OPEN_ENDPOINTS.stream().noneMatch(path::startsWith);
+    };
+
+    private ServerHttpRequest[] requests;
+    private RouteMatcher matcher;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        matcher = RouteMatcher.compile(List.of(
+                "POST /auth/register",
+                "POST /auth/login",
+                "POST /auth/refresh",
+                "GET /api/v1/items/**"
+        ));
+        requests = new ServerHttpRequest[]{
+                MockServerHttpRequest.post("/auth/login").build(),
+                MockServerHttpRequest.get("/api/v1/orders/42").build(),
+                MockServerHttpRequest.get("/api/v1/users/7/with-cards").build(),
+                MockServerHttpRequest.get("/api/v1/items/15").build(),
+                MockServerHttpRequest.get("/api/v1/payments/user/7").build()
+        };
+        for (ServerHttpRequest request : requests) {
+            request.getURI().getPath();
+        }
+    }
+
+    @Benchmark
+    public boolean legacyStreamPredicate() {
+        return LEGACY_IS_SECURED.test(next());
+    }
+
+    @Benchmark
+    public boolean routeMatcher() {
+        ServerHttpRequest request = next();
+        return !matcher.matches(request.getMethod(), request.getURI().getPath());
+    }
+
+    private ServerHttpRequest next() {
+        ServerHttpRequest request = requests[index];
+        index = (index + 1) % requests.length;
+        return request;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RouteValidatorBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,128 @@
+package com.kozitskiy.apigateway.cache;
+
+import com.kozitskiy.apigateway.config.ApiKeyProperties;
+import com.kozitskiy.security.GatewayIdentity;
+import com.kozitskiy.security.GatewayIdentityCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ApiKeyIndexTest {
+
+    private static final String KEY = "ak_4Jx0bq3Yh1mZKpVw7sDfGtLnRcE2uA9iOyTe5WvXk8M";
+    private static final GatewayIdentityCodec CODEC =
+            new GatewayIdentityCodec("test-gateway-identity-secret-32-chars!");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<ClientRequest> requests = new CopyOnWriteArrayList<>();
+
+    @Test
+    void authenticate_ShouldResolveKnownKeysToIdentity() {
+        long expiresAt = System.currentTimeMillis() / 1000 + 30;
+        ApiKeyIndex index = index(request -> ok("\"v1\"", entry(KEY, "batch@example.com", "USER", expiresAt)));
+
+        index.refresh().block();
+
+        Optional<GatewayIdentity> identity = index.authenticate(KEY);
+        assertThat(identity).isPresent();
+        assertThat(identity.get().subject()).isEqualTo("batch@example.com");
+        assertThat(identity.get().role()).isEqualTo("USER");
+        assertThat(identity.get().expiresAt()).isEqualTo(expiresAt);
+        assertThat(index.authenticate(KEY + "x")).isEmpty();
+
+        // The poll authenticates itself to auth-service as the gateway
+        GatewayIdentity caller = CODEC.decode(requests.get(0).headers().getFirst(GatewayIdentity.HEADER),
+                System.currentTimeMillis() / 1000).orElseThrow();
+        assertThat(caller.role()).isEqualTo(ApiKeyIndex.GATEWAY_ROLE);
+    }
+
+    @Test
+    void authenticate_ShouldRejectExpiredKeys() {
+        long expired = System.currentTimeMillis() / 1000 - 1;
+        ApiKeyIndex index = index(request -> ok("\"v1\"", entry(KEY, "batch@example.com", "USER", expired)));
+
+        index.refresh().block();
+
+        assertThat(index.authenticate(KEY)).isEmpty();
+    }
+
+    @Test
+    void refresh_ShouldKeepSnapshotWhenUnchangedOrUnavailable() {
+        String body = entry(KEY, "batch@example.com", "USER", null);
+        List<Function<ClientRequest, ClientResponse>> responses = List.of(
+                request -> ok("\"v1\"", body),
+                request -> ClientResponse.create(HttpStatus.NOT_MODIFIED).build(),
+                request -> ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build());
+        ApiKeyIndex index = index(request -> responses.get(requests.size() - 1).apply(request));
+
+        index.refresh().block();
+        index.refresh().block();
+        index.refresh().block();
+
+        assertThat(requests.get(1).headers().getIfNoneMatch()).containsExactly("\"v1\"");
+        assertThat(index.authenticate(KEY)).isPresent();
+        assertThat(meterRegistry.get("gateway.api-keys.refresh").tag("outcome", "unchanged").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("gateway.api-keys.refresh").tag("outcome", "failure").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void isAccepted_ShouldOnlyMatchConfiguredEndpoints() {
+        ApiKeyIndex index = index(request -> ok("\"v1\"", "[]"));
+
+        assertThat(index.isAccepted(MockServerHttpRequest.post("/api/v1/orders").build())).isTrue();
+        assertThat(index.isAccepted(MockServerHttpRequest.post("/auth/api-keys").build())).isFalse();
+    }
+
+    private ApiKeyIndex index(Function<ClientRequest, ClientResponse> auth) {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    requests.add(request);
+                    return Mono.just(auth.apply(request));
+                })
+                .build();
+        ApiKeyProperties properties = new ApiKeyProperties();
+        properties.setEndpoints(List.of("/api/v1/orders/**", "/api/v1/payments/**"));
+        return new ApiKeyIndex(webClient, CODEC, properties, meterRegistry);
+    }
+
+    private static ClientResponse ok(String etag, String body) {
+        return ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.ETAG, etag)
+                .body(body)
+                .build();
+    }
+
+    private static String entry(String key, String subject, String role, Long expiresAt) {
+        String hash;
+        try {
+            hash = HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        return """
+                [{"hash": "%s", "subject": "%s", "role": "%s", "expiresAt": %s}]
+                """.formatted(hash, subject, role, expiresAt);
+    }
+}
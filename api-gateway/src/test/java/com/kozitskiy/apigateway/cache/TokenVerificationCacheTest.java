@@ -0,0 +1,70 @@
+package com.kozitskiy.apigateway.cache;
+
+import com.kozitskiy.jwt.JwtClaims;
+import com.kozitskiy.jwt.JwtCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenVerificationCacheTest {
+
+    private static final JwtCodec CODEC = new JwtCodec("test-secret-key-for-gateway-unit-tests-32-chars");
+
+    private SimpleMeterRegistry meterRegistry;
+    private TokenVerificationCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new TokenVerificationCache(CODEC, meterRegistry, 100, Duration.ofHours(1));
+    }
+
+    @Test
+    void verify_ShouldCacheValidTokenAndCountHit() {
+        String token = token("user@test.com", Duration.ofMinutes(30));
+
+        Optional<JwtClaims> first = cache.verify(token);
+        Optional<JwtClaims> second = cache.verify(token);
+
+        assertThat(first).isPresent();
+        assertThat(second).containsSame(first.get());
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void verify_ShouldNotCacheInvalidToken() {
+        String token = token("user@test.com", Duration.ofMinutes(30)) + "tampered";
+
+        assertThat(cache.verify(token)).isEmpty();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void verify_ShouldRejectRefreshToken() {
+        long now = System.currentTimeMillis() / 1000;
+        String token = CODEC.sign(new JwtClaims("user@test.com", null, "8d3c1f52-4a7e-4e5b-9f3a-2b6c0d9e1a47", now, now + 600));
+
+        assertThat(cache.verify(token)).isEmpty();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void verify_ShouldRejectExpiredToken() {
+        String token = token("user@test.com", Duration.ofMinutes(-1));
+
+        assertThat(cache.verify(token)).isEmpty();
+        assertThat(cache.size()).isZero();
+    }
+
+    private static String token(String subject, Duration ttl) {
+        long now = System.currentTimeMillis() / 1000;
+        return CODEC.sign(new JwtClaims(subject, "USER", null, now, now + ttl.toSeconds()));
+    }
+}
@@ -0,0 +1,202 @@
+package com.kozitskiy.apigateway.composite;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kozitskiy.apigateway.config.ConcurrencyLimitProperties;
+import com.kozitskiy.apigateway.config.RateLimitProperties;
+import com.kozitskiy.apigateway.filter.ConcurrencyLimitFilter;
+import com.kozitskiy.apigateway.filter.ETagCacheGatewayFilterFactory;
+import com.kozitskiy.apigateway.filter.RateLimitFilter;
+import com.kozitskiy.apigateway.ratelimit.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class BatchGatewayFilterFactoryTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> calls = new CopyOnWriteArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RateLimitProperties rateLimits = new RateLimitProperties();
+    private final ETagCacheGatewayFilterFactory eTagCache = mock(ETagCacheGatewayFilterFactory.class);
+
+    private final RouteLocator routeLocator = () -> Flux.just(
+            route("composite-batch", "no://op", "/api/v1/batch"),
+            route("order-service", "lb://ORDER-SERVICE", "/api/v1/orders"),
+            route("user-service-users", "lb://USER-SERVICE", "/api/v1/users"));
+
+    @Test
+    void filter_ShouldAnswerInRequestOrderWhateverFinishesFirst() throws Exception {
+        MockServerWebExchange exchange = batch("""
+                [{"method": "GET", "path": "/api/v1/users/7"},
+                 {"method": "POST", "path": "/api/v1/orders", "body": {"userId": 7}},
+                 {"method": "GET", "path": "/api/v1/users/8?verbose=true"}]
+                """);
+
+        JsonNode body = body(exchange);
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(body).hasSize(3);
+        assertThat(body.get(0).get("status").asInt()).isEqualTo(200);
+        assertThat(body.get(0).get("body").get("id").asLong()).isEqualTo(7);
+        assertThat(body.get(1).get("status").asInt()).isEqualTo(201);
+        assertThat(body.get(1).get("body").get("userId").asLong()).isEqualTo(7);
+        assertThat(body.get(2).get("body").get("id").asLong()).isEqualTo(8);
+        assertThat(calls).contains(
+                "GET http://USER-SERVICE/api/v1/users/7 Bearer token",
+                "POST http://ORDER-SERVICE/api/v1/orders Bearer token",
+                "GET http://USER-SERVICE/api/v1/users/8?verbose=true Bearer token");
+    }
+
+    @Test
+    void filter_ShouldReportUnroutableAndFailedSubRequestsInPlace() throws Exception {
+        MockServerWebExchange exchange = batch("""
+                [{"method": "GET", "path": "/api/v1/batch"},
+                 {"method": "GET", "path": "/api/v1/users/500"},
+                 {"method": "TRACE", "path": "/api/v1/users/7"},
+                 {"method": "GET", "path": "/api/v1/users/7"}]
+                """);
+
+        JsonNode body = body(exchange);
+
+        assertThat(body).extracting(element -> element.get("status").asInt())
+                .containsExactly(404, 502, 400, 200);
+        assertThat(calls).hasSize(2);
+    }
+
+    @Test
+    void filter_ShouldPurgeTheETagCacheAroundWrites() throws Exception {
+        MockServerWebExchange exchange = batch("""
+                [{"method": "GET", "path": "/api/v1/users/7"},
+                 {"method": "PUT", "path": "/api/v1/users/8", "body": {"name": "Eve"}}]
+                """);
+
+        assertThat(body(exchange)).extracting(element -> element.get("status").asInt())
+                .containsExactly(200, 200);
+        verify(eTagCache, times(2)).purge("user-service-users", "/api/v1/users/8");
+        verify(eTagCache, times(0)).purge("user-service-users", "/api/v1/users/7");
+    }
+
+    @Test
+    void filter_ShouldChargeEverySubRequestToTheRateLimit() throws Exception {
+        rateLimits.getDefaultLimit().setReplenishRate(1);
+        rateLimits.getDefaultLimit().setBurstCapacity(2);
+
+        MockServerWebExchange exchange = batch("""
+                [{"method": "GET", "path": "/api/v1/users/1"},
+                 {"method": "GET", "path": "/api/v1/users/2"},
+                 {"method": "GET", "path": "/api/v1/users/3"}]
+                """);
+
+        assertThat(body(exchange)).extracting(element -> element.get("status").asInt())
+                .containsExactlyInAnyOrder(200, 200, 429);
+        assertThat(calls).hasSize(2);
+        assertThat(meterRegistry.get("gateway.rate.limit.rejected").tag("route", "user-service-users").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void filter_ShouldRejectOversizedBatch() throws Exception {
+        MockServerWebExchange exchange = batch("""
+                [{"method": "GET", "path": "/api/v1/users/1"},
+                 {"method": "GET", "path": "/api/v1/users/2"},
+                 {"method": "GET", "path": "/api/v1/users/3"}]
+                """, 2);
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(body(exchange).get("error").asText()).contains("at most 2");
+        assertThat(calls).isEmpty();
+        verifyNoInteractions(eTagCache);
+    }
+
+    private MockServerWebExchange batch(String json) {
+        return batch(json, 50);
+    }
+
+    private MockServerWebExchange batch(String json, int maxRequests) {
+        BatchGatewayFilterFactory.Config config = new BatchGatewayFilterFactory.Config();
+        config.setMaxRequests(maxRequests);
+        config.setTimeout(Duration.ofSeconds(1));
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        beans.registerSingleton("routeLocator", routeLocator);
+        RateLimitFilter rateLimitFilter = new RateLimitFilter(
+                rateLimits, new TokenBucketRateLimiter(rateLimits, meterRegistry), meterRegistry);
+        ConcurrencyLimitFilter concurrencyLimitFilter = new ConcurrencyLimitFilter(
+                new ConcurrencyLimitProperties(), meterRegistry);
+        GatewayFilter filter = new BatchGatewayFilterFactory(backend(), objectMapper, rateLimitFilter,
+                concurrencyLimitFilter, eTagCache, beans.getBeanProvider(RouteLocator.class))
+                .apply(config);
+
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/api/v1/batch")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer token")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json));
+        filter.filter(exchange, e -> Mono.error(new IllegalStateException("chain must not be called"))).block();
+        return exchange;
+    }
+
+    // The first user lookup is the slowest, so responses complete out of order
+    private WebClient backend() {
+        return WebClient.builder()
+                .exchangeFunction(request -> {
+                    calls.add(request.method() + " " + request.url() + " "
+                            + request.headers().getFirst(HttpHeaders.AUTHORIZATION));
+                    String path = request.url().getPath();
+                    if (path.equals("/api/v1/users/500")) {
+                        return Mono.error(new IllegalStateException("connection refused"));
+                    }
+                    if (request.method() == HttpMethod.POST) {
+                        return json(HttpStatus.CREATED, "{\"userId\":7}");
+                    }
+                    if (request.method() == HttpMethod.PUT) {
+                        return json(HttpStatus.OK, "{\"name\":\"Eve\"}");
+                    }
+                    String id = path.substring(path.lastIndexOf('/') + 1);
+                    return json(HttpStatus.OK, "{\"id\":" + id + "}")
+                            .delayElement(Duration.ofMillis(id.equals("7") ? 100 : 0));
+                })
+                .build();
+    }
+
+    private static Mono<ClientResponse> json(HttpStatus status, String body) {
+        return Mono.just(ClientResponse.create(status)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build());
+    }
+
+    private static Route route(String id, String uri, String pathPrefix) {
+        return Route.async()
+                .id(id)
+                .uri(uri)
+                .predicate(exchange -> exchange.getRequest().getURI().getPath().startsWith(pathPrefix))
+                .build();
+    }
+
+    private JsonNode body(MockServerWebExchange exchange) throws Exception {
+        return objectMapper.readTree(exchange.getResponse().getBodyAsString().block());
+    }
+}
@@ -0,0 +1,96 @@
+package com.kozitskiy.apigateway.composite;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserDashboardGatewayFilterFactoryTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void filter_ShouldMergeAllBranches() throws Exception {
+        MockServerWebExchange exchange = dashboard(backend(Map.of(
+                "/api/v1/users/7/with-cards", json("{\"id\":7,\"cards\":[]}"),
+                "/api/v1/orders/user/7", json("[{\"id\":1}]"),
+                "/api/v1/payments/user/7", json("[{\"id\":2}]"))));
+
+        JsonNode body = body(exchange);
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(body.get("user").get("id").asLong()).isEqualTo(7);
+        assertThat(body.get("orders")).hasSize(1);
+        assertThat(body.get("payments").get(0).get("id").asLong()).isEqualTo(2);
+        assertThat(body.get("missing")).isEmpty();
+    }
+
+    @Test
+    void filter_ShouldMarkFailedAndSlowBranchesAsMissing() throws Exception {
+        MockServerWebExchange exchange = dashboard(backend(Map.of(
+                "/api/v1/users/7/with-cards", json("{\"id\":7}"),
+                "/api/v1/orders/user/7", Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build()),
+                "/api/v1/payments/user/7", json("[]").delayElement(Duration.ofSeconds(5)))));
+
+        JsonNode body = body(exchange);
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(body.get("user").get("id").asLong()).isEqualTo(7);
+        assertThat(body.get("orders").isNull()).isTrue();
+        assertThat(body.get("payments").isNull()).isTrue();
+        assertThat(body.get("missing")).extracting(JsonNode::asText).containsExactly("orders", "payments");
+    }
+
+    @Test
+    void filter_ShouldReturnNotFoundForUnknownUser() {
+        MockServerWebExchange exchange = dashboard(backend(Map.of(
+                "/api/v1/users/7/with-cards", Mono.just(ClientResponse.create(HttpStatus.NOT_FOUND).build()),
+                "/api/v1/orders/user/7", json("[]"),
+                "/api/v1/payments/user/7", json("[]"))));
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    private MockServerWebExchange dashboard(WebClient webClient) {
+        UserDashboardGatewayFilterFactory.Config config = new UserDashboardGatewayFilterFactory.Config();
+        config.setPaymentsTimeout(Duration.ofMillis(200));
+        GatewayFilter filter = new UserDashboardGatewayFilterFactory(webClient, objectMapper).apply(config);
+
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/api/v1/composite/users/7/dashboard"));
+        ServerWebExchangeUtils.putUriTemplateVariables(exchange, Map.of("id", "7"));
+        filter.filter(exchange, e -> Mono.error(new IllegalStateException("chain must not be called"))).block();
+        return exchange;
+    }
+
+    private static WebClient backend(Map<String, Mono<ClientResponse>> responses) {
+        return WebClient.builder()
+                .exchangeFunction(request -> responses.get(request.url().getPath()))
+                .build();
+    }
+
+    private static Mono<ClientResponse> json(String body) {
+        return Mono.just(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build());
+    }
+
+    private JsonNode body(MockServerWebExchange exchange) throws Exception {
+        return objectMapper.readTree(exchange.getResponse().getBodyAsString().block());
+    }
+}
@@ -0,0 +1,102 @@
+package com.kozitskiy.apigateway.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CoalesceGatewayFilterFactoryTest {
+
+    private final AtomicInteger backendCalls = new AtomicInteger();
+    private final Sinks.Empty<Void> release = Sinks.empty();
+    private final GatewayFilterChain backend = exchange -> {
+        backendCalls.incrementAndGet();
+        return release.asMono().then(Mono.defer(() -> {
+            var response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            byte[] body = "{\"id\":5}".getBytes(StandardCharsets.UTF_8);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        }));
+    };
+
+    private SimpleMeterRegistry meterRegistry;
+    private GatewayFilter filter;
+    private UpstreamChain chain;
+
+    @BeforeEach
+    void setUp() {
+        CoalesceGatewayFilterFactory.Config config = new CoalesceGatewayFilterFactory.Config();
+        config.setRouteId("user-service-users");
+
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new CoalesceGatewayFilterFactory(meterRegistry).apply(config);
+        chain = new UpstreamChain("{\"id\":5}", release.asMono(), List.of(filter));
+    }
+
+    @Test
+    void filter_ShouldShareOneUpstreamCallBetweenConcurrentGets() {
+        MockServerWebExchange leader = get("/api/v1/users/5", "alice");
+        MockServerWebExchange follower = get("/api/v1/users/5", "alice");
+
+        Mono<Void> both = Mono.when(chain.handle(leader), chain.handle(follower));
+        Mono.when(both, Mono.fromRunnable(release::tryEmitEmpty)).block();
+
+        assertThat(chain.calls()).isEqualTo(1);
+        assertThat(leader.getResponse().getBodyAsString().block()).isEqualTo("{\"id\":5}");
+        assertThat(follower.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(follower.getResponse().getBodyAsString().block()).isEqualTo("{\"id\":5}");
+        assertThat(requests("coalesced")).isEqualTo(1);
+        assertThat(meterRegistry.get("gateway.coalescing.in.flight").gauge().value()).isZero();
+    }
+
+    @Test
+    void filter_ShouldNotShareResponsesBetweenSubjects() {
+        Mono<Void> both = Mono.when(
+                chain.handle(get("/api/v1/users/5", "alice")),
+                chain.handle(get("/api/v1/users/5", "bob")));
+        Mono.when(both, Mono.fromRunnable(release::tryEmitEmpty)).block();
+
+        assertThat(chain.calls()).isEqualTo(2);
+        assertThat(requests("leader")).isEqualTo(2);
+    }
+
+    @Test
+    void filter_ShouldFallBackToUpstreamWhenLeaderFails() {
+        AtomicInteger calls = new AtomicInteger();
+        GatewayFilterChain failingOnce = exchange -> calls.getAndIncrement() == 0
+                ? release.asMono().then(Mono.error(new IllegalStateException("upstream reset")))
+                : backend.filter(exchange);
+
+        MockServerWebExchange follower = get("/api/v1/users/5", "alice");
+        Mono<Void> both = Mono.when(
+                filter.filter(get("/api/v1/users/5", "alice"), failingOnce).onErrorResume(e -> Mono.empty()),
+                filter.filter(follower, failingOnce));
+        Mono.when(both, Mono.fromRunnable(release::tryEmitEmpty)).block();
+
+        assertThat(calls).hasValue(2);
+        assertThat(follower.getResponse().getBodyAsString().block()).isEqualTo("{\"id\":5}");
+        assertThat(requests("fallback")).isEqualTo(1);
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("gateway.coalescing.requests").tag("result", result).counter().count();
+    }
+
+    private static MockServerWebExchange get(String path, String subject) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(path));
+        exchange.getAttributes().put(JwtAuthenticationFilter.SUBJECT_ATTRIBUTE, subject);
+        return exchange;
+    }
+}
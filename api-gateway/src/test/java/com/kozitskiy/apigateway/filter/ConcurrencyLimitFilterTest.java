@@ -0,0 +1,102 @@
+package com.kozitskiy.apigateway.filter;
+
+import com.kozitskiy.apigateway.config.ConcurrencyLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+class ConcurrencyLimitFilterTest {
+
+    private final Sinks.Empty<Void> release = Sinks.empty();
+    private final GatewayFilterChain slowUpstream = exchange -> release.asMono();
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(10);
+        properties.setReadShare(0.5);
+        properties.setProtectedEndpoints(List.of("POST /auth/login"));
+        properties.setExcludedRoutes(Set.of("order-service-events"));
+
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new ConcurrencyLimitFilter(properties, meterRegistry);
+    }
+
+    @Test
+    void filter_ShouldShedReadsBeforeWrites() {
+        for (int i = 0; i < 5; i++) {
+            filter.filter(exchange(HttpMethod.GET, "/api/v1/orders/1"), slowUpstream).subscribe();
+        }
+
+        MockServerWebExchange read = exchange(HttpMethod.GET, "/api/v1/orders/1");
+        filter.filter(read, slowUpstream).block();
+        MockServerWebExchange write = exchange(HttpMethod.POST, "/api/v1/orders");
+        filter.filter(write, slowUpstream).subscribe();
+
+        assertThat(read.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(write.getResponse().getStatusCode()).isNull();
+        assertThat(meterRegistry.get("gateway.concurrency.rejected").tag("priority", "read").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("gateway.concurrency.in.flight").gauge().value()).isEqualTo(6);
+    }
+
+    @Test
+    void filter_ShouldNeverShedProtectedEndpoints() {
+        for (int i = 0; i < 10; i++) {
+            filter.filter(exchange(HttpMethod.POST, "/api/v1/orders"), slowUpstream).subscribe();
+        }
+
+        MockServerWebExchange write = exchange(HttpMethod.POST, "/api/v1/orders");
+        filter.filter(write, slowUpstream).block();
+        MockServerWebExchange login = exchange(HttpMethod.POST, "/auth/login");
+        filter.filter(login, slowUpstream).subscribe();
+
+        assertThat(write.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(login.getResponse().getStatusCode()).isNull();
+    }
+
+    @Test
+    void filter_ShouldReleaseOnCompletion() {
+        for (int i = 0; i < 10; i++) {
+            filter.filter(exchange(HttpMethod.POST, "/api/v1/orders"), slowUpstream).subscribe();
+        }
+        release.tryEmitEmpty();
+
+        assertThat(meterRegistry.get("gateway.concurrency.in.flight").gauge().value()).isZero();
+        assertThat(meterRegistry.get("gateway.concurrency.limit").gauge().value()).isEqualTo(10);
+    }
+
+    @Test
+    void filter_ShouldNotLimitExcludedRoutes() {
+        Route events = Route.async().id("order-service-events").uri("lb://ORDER-SERVICE").predicate(e -> true).build();
+        for (int i = 0; i < 20; i++) {
+            MockServerWebExchange stream = exchange(HttpMethod.GET, "/api/v1/orders/1/events");
+            stream.getAttributes().put(GATEWAY_ROUTE_ATTR, events);
+            filter.filter(stream, slowUpstream).subscribe();
+            assertThat(stream.getResponse().getStatusCode()).isNull();
+        }
+
+        assertThat(meterRegistry.find("gateway.concurrency.in.flight").gauge()).isNull();
+    }
+
+    private static MockServerWebExchange exchange(HttpMethod method, String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.method(method, path));
+    }
+}
@@ -0,0 +1,144 @@
+package com.kozitskiy.apigateway.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ETagCacheGatewayFilterFactoryTest {
+
+    private final AtomicInteger backendCalls = new AtomicInteger();
+    private final GatewayFilterChain backend = exchange -> {
+        backendCalls.incrementAndGet();
+        var response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.OK);
+        byte[] body = "{\"id\":5}".getBytes(StandardCharsets.UTF_8);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    };
+
+    private GatewayFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        ETagCacheGatewayFilterFactory.Config config = new ETagCacheGatewayFilterFactory.Config();
+        config.setRouteId("user-service-users");
+        config.setPaths(List.of("/api/v1/users/*", "/api/v1/users/*/with-cards"));
+
+        filter = new ETagCacheGatewayFilterFactory(new SimpleMeterRegistry()).apply(config);
+    }
+
+    @Test
+    void filter_ShouldServeSecondGetFromCache() {
+        MockServerWebExchange first = get("/api/v1/users/5");
+        MockServerWebExchange second = get("/api/v1/users/5");
+
+        filter.filter(first, backend).block();
+        filter.filter(second, backend).block();
+
+        assertThat(backendCalls).hasValue(1);
+        assertThat(second.getResponse().getBodyAsString().block()).isEqualTo("{\"id\":5}");
+        assertThat(second.getResponse().getHeaders().getETag())
+                .isEqualTo(first.getResponse().getHeaders().getETag());
+    }
+
+    @Test
+    void filter_ShouldAnswerNotModifiedWithoutBackendCall() {
+        MockServerWebExchange first = get("/api/v1/users/5");
+        filter.filter(first, backend).block();
+        String etag = first.getResponse().getHeaders().getETag();
+
+        MockServerWebExchange revalidation = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/users/5")
+                .header(HttpHeaders.IF_NONE_MATCH, etag));
+        filter.filter(revalidation, backend).block();
+
+        assertThat(backendCalls).hasValue(1);
+        assertThat(revalidation.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    void filter_ShouldPurgeNestedEntriesOnWrite() {
+        filter.filter(get("/api/v1/users/5"), backend).block();
+        filter.filter(get("/api/v1/users/5/with-cards"), backend).block();
+        filter.filter(get("/api/v1/users/50"), backend).block();
+
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.put("/api/v1/users/5")), backend).block();
+        filter.filter(get("/api/v1/users/5"), backend).block();
+        filter.filter(get("/api/v1/users/5/with-cards"), backend).block();
+        filter.filter(get("/api/v1/users/50"), backend).block();
+
+        assertThat(backendCalls).hasValue(6);
+    }
+
+    @Test
+    void filter_ShouldNotCacheUnlistedPaths() {
+        filter.filter(get("/api/v1/users"), backend).block();
+        filter.filter(get("/api/v1/users"), backend).block();
+
+        assertThat(backendCalls).hasValue(2);
+    }
+
+    @Test
+    void filter_ShouldCacheBodiesWrittenByTheGatewayFilterChain() {
+        UpstreamChain chain = new UpstreamChain("{\"id\":5}", Mono.empty(), List.of(filter), new AuthenticationStub());
+
+        chain.handle(authenticated("/api/v1/users/5")).block();
+        MockServerWebExchange second = authenticated("/api/v1/users/5");
+        chain.handle(second).block();
+
+        assertThat(chain.calls()).isEqualTo(1);
+        assertThat(second.getResponse().getBodyAsString().block()).isEqualTo("{\"id\":5}");
+    }
+
+    @Test
+    void filter_ShouldNotServeCachedBodiesToUnauthenticatedCallers() {
+        UpstreamChain chain = new UpstreamChain("{\"id\":5}", Mono.empty(), List.of(filter), new AuthenticationStub());
+        chain.handle(authenticated("/api/v1/users/5")).block();
+
+        MockServerWebExchange anonymous = get("/api/v1/users/5");
+        chain.handle(anonymous).block();
+
+        assertThat(anonymous.getResponse().getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(anonymous.getResponse().getBodyAsString().block()).isEmpty();
+    }
+
+    private static MockServerWebExchange authenticated(String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path).header(HttpHeaders.AUTHORIZATION, "Bearer token"));
+    }
+
+    private static MockServerWebExchange get(String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path));
+    }
+
+    // Stands in for JwtAuthenticationFilter, at its order
+    private static final class AuthenticationStub implements GlobalFilter, Ordered {
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+            if (!exchange.getRequest().getHeaders().containsKey(HttpHeaders.AUTHORIZATION)) {
+                exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+                return exchange.getResponse().setComplete();
+            }
+            return chain.filter(exchange);
+        }
+
+        @Override
+        public int getOrder() {
+            return JwtAuthenticationFilter.ORDER;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.kozitskiy.apigateway.filter;
+
+import com.kozitskiy.apigateway.loadbalancer.InstanceLoadFilter;
+import com.kozitskiy.apigateway.loadbalancer.InstanceLoadTracker;
+import com.kozitskiy.apigateway.loadbalancer.PeakEwmaLoadBalancer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+
+class HedgeGatewayFilterFactoryTest {
+
+    private static final ServiceInstance PAUSED = new DefaultServiceInstance("a", "USER-SERVICE", "10.0.0.1", 8080, false);
+    private static final ServiceInstance HEALTHY = new DefaultServiceInstance("b", "USER-SERVICE", "10.0.0.2", 8080, false);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InstanceLoadTracker loadTracker = new InstanceLoadTracker(Duration.ofSeconds(10), Duration.ofSeconds(1));
+    private final List<ServerWebExchange> attempts = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean primaryCancelled = new AtomicBoolean();
+
+    @Test
+    void filter_ShouldNotHedgeWhenPrimaryAnswersInTime() {
+        MockServerWebExchange exchange = get();
+
+        filter(1.0).filter(exchange, upstream(Duration.ofMillis(5), Duration.ofMillis(5))).block();
+
+        assertThat(attempts).hasSize(1);
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(exchange.getResponse().getHeaders().getFirst("X-Instance")).isEqualTo("10.0.0.1");
+        assertThat(count("gateway.hedging.sent")).isZero();
+    }
+
+    @Test
+    void filter_ShouldUseHedgeToAnotherInstanceWhenPrimaryIsSlow() {
+        MockServerWebExchange exchange = get();
+
+        filter(1.0).filter(exchange, upstream(Duration.ofSeconds(5), Duration.ofMillis(5))).block(Duration.ofSeconds(2));
+
+        assertThat(attempts).hasSize(2);
+        assertThat((Object) attempts.get(1).getAttribute(PeakEwmaLoadBalancer.AVOID_INSTANCE_ATTRIBUTE)).isEqualTo(PAUSED);
+        assertThat(exchange.getResponse().getHeaders().getFirst("X-Instance")).isEqualTo("10.0.0.2");
+        assertThat(exchange.getResponse().getHeaders().get("X-Instance")).hasSize(1);
+        assertThat(primaryCancelled).isTrue();
+        assertThat(count("gateway.hedging.won")).isEqualTo(1);
+        assertThat(loadTracker.cost(PAUSED)).isGreaterThan(loadTracker.cost(HEALTHY));
+    }
+
+    @Test
+    void filter_ShouldNotHedgeBeyondBudget() {
+        MockServerWebExchange exchange = get();
+
+        filter(0.05).filter(exchange, upstream(Duration.ofMillis(200), Duration.ofMillis(5))).block();
+
+        assertThat(attempts).hasSize(1);
+        assertThat(exchange.getResponse().getHeaders().getFirst("X-Instance")).isEqualTo("10.0.0.1");
+        assertThat(count("gateway.hedging.budget.exhausted")).isEqualTo(1);
+    }
+
+    private GatewayFilter filter(double budget) {
+        HedgeGatewayFilterFactory.Config config = new HedgeGatewayFilterFactory.Config();
+        config.setRouteId("user-service-users");
+        config.setDelay(Duration.ofMillis(50));
+        config.setBudget(budget);
+        return new HedgeGatewayFilterFactory(meterRegistry).apply(config);
+    }
+
+    // Stands in for the load balancer, InstanceLoadFilter and NettyRoutingFilter: the first call
+    // lands on PAUSED
+    private GatewayFilterChain upstream(Duration primaryLatency, Duration hedgeLatency) {
+        AtomicInteger calls = new AtomicInteger();
+        InstanceLoadFilter loadFilter = new InstanceLoadFilter(loadTracker);
+        return exchange -> {
+            boolean primary = calls.getAndIncrement() == 0;
+            ServiceInstance instance = primary ? PAUSED : HEALTHY;
+            attempts.add(exchange);
+            exchange.getAttributes().put(GATEWAY_LOADBALANCER_RESPONSE_ATTR, new DefaultResponse(instance));
+
+            return loadFilter.filter(exchange, routed -> Mono.delay(primary ? primaryLatency : hedgeLatency)
+                    .doOnCancel(() -> primaryCancelled.set(primary))
+                    .then(Mono.fromRunnable(() -> {
+                        routed.getResponse().setStatusCode(HttpStatus.OK);
+                        routed.getResponse().getHeaders().add("X-Instance", instance.getHost());
+                    })));
+        };
+    }
+
+    private double count(String name) {
+        return meterRegistry.get(name).tag("route", "user-service-users").counter().count();
+    }
+
+    private static MockServerWebExchange get() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/users/5"));
+    }
+}
@@ -0,0 +1,75 @@
+package com.kozitskiy.apigateway.filter;
+
+import com.kozitskiy.apigateway.metrics.GatewayLatencyRecorder;
+import com.kozitskiy.apigateway.metrics.GatewayLatencyRecorder.RouteLatency;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+class LatencyRecordingFilterTest {
+
+    private GatewayLatencyRecorder recorder;
+    private LatencyRecordingFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        recorder = new GatewayLatencyRecorder(new SimpleMeterRegistry());
+        filter = new LatencyRecordingFilter(recorder);
+    }
+
+    @Test
+    void filter_ShouldTagUpstreamInstanceAndStatus() {
+        MockServerWebExchange exchange = exchange();
+        GatewayFilterChain upstream = e -> {
+            e.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, URI.create("http://10.0.0.5:8081/api/v1/orders/1"));
+            e.getResponse().setStatusCode(HttpStatus.NOT_FOUND);
+            return new UpstreamTimingFilter().filter(e, ignored -> Mono.empty());
+        };
+
+        filter.filter(exchange, upstream).block();
+
+        RouteLatency latency = recorder.snapshot().get(0);
+        assertThat(latency.route()).isEqualTo("order-service");
+        assertThat(latency.status()).isEqualTo("404");
+        assertThat(latency.instance()).isEqualTo("10.0.0.5:8081");
+        assertThat(latency.upstream().count()).isEqualTo(1);
+    }
+
+    @Test
+    void filter_ShouldRecordRejectedRequestsWithoutInstance() {
+        MockServerWebExchange exchange = exchange();
+        GatewayFilterChain rejecting = e -> {
+            e.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+            return e.getResponse().setComplete();
+        };
+
+        filter.filter(exchange, rejecting).block();
+
+        RouteLatency latency = recorder.snapshot().get(0);
+        assertThat(latency.status()).isEqualTo("401");
+        assertThat(latency.instance()).isEqualTo(GatewayLatencyRecorder.NO_UPSTREAM);
+        assertThat(latency.upstream().count()).isZero();
+    }
+
+    private static MockServerWebExchange exchange() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/orders/1"));
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, Route.async()
+                .id("order-service")
+                .uri("lb://ORDER-SERVICE")
+                .predicate(e -> true)
+                .build());
+        return exchange;
+    }
+}
@@ -0,0 +1,130 @@
+package com.kozitskiy.apigateway.filter;
+
+import com.kozitskiy.apigateway.config.MirrorProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+class MirrorGatewayFilterFactoryTest {
+
+    private static final ServiceInstance PRODUCTION = new DefaultServiceInstance(
+            "a", "USER-SERVICE", "10.0.0.1", 8080, false);
+    private static final ServiceInstance CANDIDATE = new DefaultServiceInstance(
+            "b", "USER-SERVICE", "10.0.0.2", 8080, false, Map.of("track", "candidate"));
+    private static final Route ROUTE = Route.async()
+            .id("user-service-users").uri("lb://USER-SERVICE").predicate(exchange -> true).build();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<ClientRequest> mirrored = new CopyOnWriteArrayList<>();
+    private final GatewayFilterChain upstream = exchange -> {
+        exchange.getResponse().setStatusCode(HttpStatus.OK);
+        return Mono.empty();
+    };
+
+    @Test
+    void filter_ShouldCopySampledReadsToCandidateOnly() {
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/api/v1/users/5?details=true")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer token")
+                .build());
+
+        filter(Duration.ZERO).filter(exchange, upstream).block();
+
+        assertThat(mirrored).hasSize(1);
+        ClientRequest copy = mirrored.get(0);
+        assertThat(copy.url().toString()).isEqualTo("http://10.0.0.2:8080/api/v1/users/5?details=true");
+        assertThat(copy.headers().getFirst(HttpHeaders.AUTHORIZATION)).isEqualTo("Bearer token");
+        assertThat(copy.headers().getFirst(MirrorGatewayFilterFactory.SHADOW_HEADER)).isEqualTo("true");
+        assertThat(timerCount("production", "200")).isEqualTo(1);
+        assertThat(timerCount("candidate", "404")).isEqualTo(1);
+    }
+
+    @Test
+    void filter_ShouldNotMirrorWrites() {
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.post("/api/v1/users").body("{}"));
+
+        filter(Duration.ZERO).filter(exchange, upstream).block();
+
+        assertThat(mirrored).isEmpty();
+        assertThat(meterRegistry.find("gateway.mirror.latency").timer()).isNull();
+    }
+
+    @Test
+    void filter_ShouldNotWaitForCandidate() {
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/api/v1/users/5").build());
+
+        long start = System.nanoTime();
+        filter(Duration.ofSeconds(5)).filter(exchange, upstream).block();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(timerCount("production", "200")).isEqualTo(1);
+    }
+
+    private GatewayFilter filter(Duration candidateLatency) {
+        ReactiveDiscoveryClient discoveryClient = new ReactiveDiscoveryClient() {
+            @Override
+            public String description() {
+                return "test";
+            }
+
+            @Override
+            public Flux<ServiceInstance> getInstances(String serviceId) {
+                return Flux.just(PRODUCTION, CANDIDATE);
+            }
+
+            @Override
+            public Flux<String> getServices() {
+                return Flux.just("USER-SERVICE");
+            }
+        };
+        WebClient.Builder candidate = WebClient.builder().exchangeFunction(request -> {
+            mirrored.add(request);
+            Mono<ClientResponse> response = Mono.just(ClientResponse.create(HttpStatus.NOT_FOUND).build());
+            // delayElement hops to another thread even for zero, and the candidate would race the assertions
+            return candidateLatency.isZero() ? response : response.delayElement(candidateLatency);
+        });
+
+        MirrorGatewayFilterFactory.Config config = new MirrorGatewayFilterFactory.Config();
+        config.setRouteId("user-service-users");
+        config.setSampleRate(1.0);
+        return new MirrorGatewayFilterFactory(discoveryClient, candidate, new MirrorProperties(), meterRegistry)
+                .apply(config);
+    }
+
+    private long timerCount(String track, String status) {
+        return meterRegistry.get("gateway.mirror.latency")
+                .tag("route", "user-service-users")
+                .tag("track", track)
+                .tag("status", status)
+                .timer()
+                .count();
+    }
+
+    private static MockServerWebExchange exchange(MockServerHttpRequest request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, ROUTE);
+        return exchange;
+    }
+}
@@ -0,0 +1,82 @@
+package com.kozitskiy.apigateway.filter;
+
+import com.kozitskiy.apigateway.config.RateLimitProperties;
+import com.kozitskiy.apigateway.ratelimit.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private final AtomicInteger passed = new AtomicInteger();
+    private final GatewayFilterChain chain = exchange -> {
+        passed.incrementAndGet();
+        return Mono.empty();
+    };
+
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getDefaultLimit().setReplenishRate(1);
+        properties.getDefaultLimit().setBurstCapacity(2);
+
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new RateLimitFilter(properties, new TokenBucketRateLimiter(properties, meterRegistry), meterRegistry);
+    }
+
+    @Test
+    void filter_ShouldRejectWithRetryAfterOnceBurstIsSpent() {
+        filter.filter(exchange("alice", "10.0.0.1"), chain).block();
+        filter.filter(exchange("alice", "10.0.0.1"), chain).block();
+        MockServerWebExchange limited = exchange("alice", "10.0.0.1");
+        filter.filter(limited, chain).block();
+
+        assertThat(passed).hasValue(2);
+        assertThat(limited.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(limited.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(meterRegistry.get("gateway.rate.limit.rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void filter_ShouldLimitBySubjectRatherThanAddress() {
+        filter.filter(exchange("alice", "10.0.0.1"), chain).block();
+        filter.filter(exchange("alice", "10.0.0.2"), chain).block();
+        filter.filter(exchange("alice", "10.0.0.3"), chain).block();
+        filter.filter(exchange("bob", "10.0.0.1"), chain).block();
+
+        assertThat(passed).hasValue(3);
+    }
+
+    @Test
+    void filter_ShouldFallBackToClientAddressWithoutSubject() {
+        filter.filter(exchange(null, "10.0.0.1"), chain).block();
+        filter.filter(exchange(null, "10.0.0.1"), chain).block();
+        filter.filter(exchange(null, "10.0.0.1"), chain).block();
+        filter.filter(exchange(null, "10.0.0.2"), chain).block();
+
+        assertThat(passed).hasValue(3);
+    }
+
+    private static MockServerWebExchange exchange(String subject, String address) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/orders/1")
+                .remoteAddress(new InetSocketAddress(address, 40000)));
+        if (subject != null) {
+            exchange.getAttributes().put(JwtAuthenticationFilter.SUBJECT_ATTRIBUTE, subject);
+        }
+        return exchange;
+    }
+}
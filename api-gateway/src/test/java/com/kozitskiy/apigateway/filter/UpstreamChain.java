@@ -0,0 +1,105 @@
+package com.kozitskiy.apigateway.filter;
+
+import io.netty.channel.Channel;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.Connection;
+import reactor.netty.NettyInbound;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * The gateway's {@link FilteringWebHandler} with the route filters under test, the real
+ * {@link NettyWriteResponseFilter}, and a stub in {@link NettyRoutingFilter}'s place that hands
+ * it an upstream connection, as the routing filter does. Filters run in their configured order,
+ * so a response decorator placed after {@link NettyWriteResponseFilter} never sees the body,
+ * just as in the running gateway.
+ */
+final class UpstreamChain {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final Route route;
+    private final FilteringWebHandler handler;
+
+    /**
+     * @param answered the upstream answers once this completes
+     */
+    UpstreamChain(String body, Mono<Void> answered, List<GatewayFilter> routeFilters, GlobalFilter... globalFilters) {
+        this.route = Route.async()
+                .id("route-under-test")
+                .uri("http://upstream")
+                .predicate(exchange -> true)
+                .filters(routeFilters)
+                .build();
+
+        List<GlobalFilter> filters = new ArrayList<>(List.of(globalFilters));
+        filters.add(new NettyWriteResponseFilter(List.of(MediaType.TEXT_EVENT_STREAM)));
+        filters.add(new RoutingStub(body, answered));
+        this.handler = new FilteringWebHandler(filters);
+    }
+
+    Mono<Void> handle(ServerWebExchange exchange) {
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, route);
+        return handler.handle(exchange);
+    }
+
+    int calls() {
+        return calls.get();
+    }
+
+    private final class RoutingStub implements GlobalFilter, Ordered {
+
+        private final String body;
+        private final Mono<Void> answered;
+
+        private RoutingStub(String body, Mono<Void> answered) {
+            this.body = body;
+            this.answered = answered;
+        }
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+            calls.incrementAndGet();
+            return answered.then(Mono.defer(() -> {
+                ServerHttpResponse response = exchange.getResponse();
+                response.setStatusCode(HttpStatus.OK);
+                response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                exchange.getAttributes().put(CLIENT_RESPONSE_CONN_ATTR, connection());
+                return chain.filter(exchange);
+            }));
+        }
+
+        @Override
+        public int getOrder() {
+            return NettyRoutingFilter.ORDER;
+        }
+
+        private Connection connection() {
+            NettyInbound inbound = mock(NettyInbound.class);
+            when(inbound.receive()).thenReturn(ByteBufFlux.fromString(Mono.just(body)));
+            Connection connection = mock(Connection.class);
+            when(connection.inbound()).thenReturn(inbound);
+            when(connection.channel()).thenReturn(mock(Channel.class));
+            return connection;
+        }
+    }
+}
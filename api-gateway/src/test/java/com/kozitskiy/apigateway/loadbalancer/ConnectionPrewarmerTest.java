@@ -0,0 +1,119 @@
+package com.kozitskiy.apigateway.loadbalancer;
+
+import com.kozitskiy.apigateway.config.MirrorProperties;
+import com.kozitskiy.apigateway.config.UpstreamProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import reactor.core.publisher.Flux;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConnectionPrewarmerTest {
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final List<ServiceInstance> registry = new CopyOnWriteArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DisposableServer server;
+    private ConnectionPrewarmer prewarmer;
+
+    @BeforeEach
+    void setUp() {
+        server = HttpServer.create()
+                .port(0)
+                .handle((request, response) -> {
+                    requests.add(request.method() + " " + request.uri());
+                    return response.send();
+                })
+                .bindNow();
+
+        RouteLocator routeLocator = () -> Flux.just(
+                Route.async().id("user-service-users").uri("lb://USER-SERVICE").predicate(e -> true).build(),
+                Route.async().id("eureka-server-static").uri("http://localhost:8761").predicate(e -> true).build());
+        ReactiveDiscoveryClient discoveryClient = new ReactiveDiscoveryClient() {
+            @Override
+            public String description() {
+                return "test";
+            }
+
+            @Override
+            public Flux<ServiceInstance> getInstances(String serviceId) {
+                return Flux.fromIterable(registry).filter(instance -> instance.getServiceId().equals(serviceId));
+            }
+
+            @Override
+            public Flux<String> getServices() {
+                return Flux.just("USER-SERVICE");
+            }
+        };
+        prewarmer = new ConnectionPrewarmer(HttpClient.create(), discoveryClient, routeLocator,
+                new UpstreamProperties(), new MirrorProperties(), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.disposeNow();
+    }
+
+    @Test
+    void refresh_ShouldWarmEachNewInstanceOnce() {
+        registry.add(instance("a", server.port()));
+
+        prewarmer.refresh().block();
+        prewarmer.refresh().block();
+
+        assertThat(requests).containsExactly("HEAD /");
+        assertThat(meterRegistry.get("gateway.upstream.prewarmed").tag("outcome", "success").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void refresh_ShouldSkipMirroringCandidates() {
+        registry.add(new DefaultServiceInstance("b", "USER-SERVICE", "localhost", server.port(), false,
+                Map.of("track", "candidate")));
+
+        prewarmer.refresh().block();
+
+        assertThat(requests).isEmpty();
+    }
+
+    @Test
+    void refresh_ShouldCountUnreachableInstancesAsFailures() {
+        registry.add(instance("a", server.port()));
+        server.disposeNow();
+
+        prewarmer.refresh().block();
+
+        assertThat(meterRegistry.get("gateway.upstream.prewarmed").tag("outcome", "failure").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void refresh_ShouldRetryInstancesThatCouldNotBeWarmed() {
+        registry.add(instance("a", server.port()));
+        server.disposeNow();
+
+        prewarmer.refresh().block();
+        prewarmer.refresh().block();
+
+        assertThat(meterRegistry.get("gateway.upstream.prewarmed").tag("outcome", "failure").counter().count())
+                .isEqualTo(2);
+    }
+
+    private static ServiceInstance instance(String id, int port) {
+        return new DefaultServiceInstance(id, "USER-SERVICE", "localhost", port, false);
+    }
+}
@@ -0,0 +1,96 @@
+package com.kozitskiy.apigateway.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+
+class InstanceLoadFilterTest {
+
+    private static final ServiceInstance INSTANCE = new DefaultServiceInstance("a", "ORDER-SERVICE", "10.0.0.1", 8080, false);
+    private static final Duration ERROR_PENALTY = Duration.ofSeconds(1);
+
+    // Frozen clock: the latency estimate does not decay between the call and the assertions
+    private final InstanceLoadTracker tracker = new InstanceLoadTracker(Duration.ofSeconds(10), ERROR_PENALTY, () -> 1L);
+    private final InstanceLoadFilter filter = new InstanceLoadFilter(tracker);
+
+    @Test
+    void filter_ShouldReleaseInstanceWhenExchangeIsCancelled() {
+        MockServerWebExchange exchange = routedTo(INSTANCE);
+        AtomicBoolean upstreamCancelled = new AtomicBoolean();
+
+        Disposable call = filter.filter(exchange, routed -> Mono.<Void>never()
+                        .doOnCancel(() -> upstreamCancelled.set(true)))
+                .subscribe();
+        assertThat(tracker.inFlight(INSTANCE)).isEqualTo(1);
+
+        call.dispose();
+
+        assertThat(upstreamCancelled).isTrue();
+        assertThat(tracker.inFlight(INSTANCE)).isZero();
+        assertThat(tracker.cost(INSTANCE)).isGreaterThan(1);
+    }
+
+    @Test
+    void filter_ShouldReleaseInstanceWhenResponseArrives() {
+        MockServerWebExchange exchange = routedTo(INSTANCE);
+
+        filter.filter(exchange, routed -> Mono.fromRunnable(() -> routed.getResponse().setStatusCode(HttpStatus.OK)))
+                .block();
+
+        assertThat(tracker.inFlight(INSTANCE)).isZero();
+        assertThat(tracker.cost(INSTANCE)).isLessThan(ERROR_PENALTY.toNanos());
+    }
+
+    @Test
+    void filter_ShouldCountServerErrorAsAtLeastErrorPenalty() {
+        MockServerWebExchange exchange = routedTo(INSTANCE);
+
+        filter.filter(exchange, routed -> Mono.fromRunnable(
+                        () -> routed.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE)))
+                .block();
+
+        assertThat(tracker.inFlight(INSTANCE)).isZero();
+        assertThat(tracker.cost(INSTANCE)).isGreaterThanOrEqualTo(ERROR_PENALTY.toNanos());
+    }
+
+    @Test
+    void filter_ShouldCountUpstreamErrorAsAtLeastErrorPenalty() {
+        MockServerWebExchange exchange = routedTo(INSTANCE);
+
+        filter.filter(exchange, routed -> Mono.error(new IllegalStateException("connection refused")))
+                .onErrorComplete()
+                .block();
+
+        assertThat(tracker.inFlight(INSTANCE)).isZero();
+        assertThat(tracker.cost(INSTANCE)).isGreaterThanOrEqualTo(ERROR_PENALTY.toNanos());
+    }
+
+    @Test
+    void filter_ShouldPassThroughWhenNoInstanceWasChosen() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/orders/5"));
+        AtomicBoolean called = new AtomicBoolean();
+
+        filter.filter(exchange, routed -> Mono.fromRunnable(() -> called.set(true))).block();
+
+        assertThat(called).isTrue();
+        assertThat(tracker.cost(INSTANCE)).isZero();
+    }
+
+    private static MockServerWebExchange routedTo(ServiceInstance instance) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/orders/5"));
+        exchange.getAttributes().put(GATEWAY_LOADBALANCER_RESPONSE_ATTR, new DefaultResponse(instance));
+        return exchange;
+    }
+}
@@ -0,0 +1,130 @@
+package com.kozitskiy.apigateway.loadbalancer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Discrete-event simulation in virtual time: three AUTH-SERVICE stubs, one of them slow
+ * (a pod busy with BCrypt), under Poisson arrivals. Compares the tail latency callers see
+ * with round robin against peak-EWMA power-of-two-choices.
+ */
+class PeakEwmaLoadBalancerSimulationTest {
+
+    private static final String SERVICE_ID = "AUTH-SERVICE";
+    private static final ServiceInstance FAST_1 = instance("10.0.0.1");
+    private static final ServiceInstance FAST_2 = instance("10.0.0.2");
+    private static final ServiceInstance SLOW = instance("10.0.0.3");
+    private static final Map<ServiceInstance, Duration> MEAN_LATENCY = Map.of(
+            FAST_1, Duration.ofMillis(10),
+            FAST_2, Duration.ofMillis(10),
+            SLOW, Duration.ofMillis(200));
+
+    private static final int REQUESTS = 30_000;
+    private static final double REQUESTS_PER_SECOND = 300;
+
+    private final ObjectProvider<ServiceInstanceListSupplier> supplier =
+            ServiceInstanceListSuppliers.toProvider(SERVICE_ID, FAST_1, FAST_2, SLOW);
+
+    @Test
+    @DisplayName("P2C with peak EWMA keeps p99 near the fast instances while round robin inherits the slow one")
+    void peakEwma_ShouldCutTailLatencyComparedToRoundRobin() {
+        long[] roundRobin = simulate(new RoundRobinLoadBalancer(supplier, SERVICE_ID), null, new AtomicLong());
+
+        AtomicLong clock = new AtomicLong();
+        InstanceLoadTracker tracker = new InstanceLoadTracker(Duration.ofSeconds(10), Duration.ofSeconds(1), clock::get);
+        long[] peakEwma = simulate(new PeakEwmaLoadBalancer(supplier, SERVICE_ID, tracker), tracker, clock);
+
+        double roundRobinP99 = percentileMillis(roundRobin, 0.99);
+        double peakEwmaP99 = percentileMillis(peakEwma, 0.99);
+
+        assertThat(roundRobinP99).isGreaterThan(200);
+        assertThat(peakEwmaP99).isLessThan(roundRobinP99 / 4);
+    }
+
+    @Test
+    void peakEwma_ShouldProbePenalizedInstanceAgainAfterDecay() {
+        AtomicLong clock = new AtomicLong(1);
+        InstanceLoadTracker tracker = new InstanceLoadTracker(Duration.ofSeconds(10), Duration.ofSeconds(1), clock::get);
+
+        tracker.started(SLOW);
+        tracker.completed(SLOW, TimeUnit.MILLISECONDS.toNanos(5), true);
+        tracker.started(FAST_1);
+        tracker.completed(FAST_1, TimeUnit.MILLISECONDS.toNanos(10), false);
+
+        assertThat(tracker.cost(SLOW)).isGreaterThan(tracker.cost(FAST_1));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+
+        assertThat(tracker.cost(SLOW)).isLessThan(TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    private static long[] simulate(ReactorServiceInstanceLoadBalancer loadBalancer,
+                                   InstanceLoadTracker tracker,
+                                   AtomicLong clock) {
+        Random random = new Random(42);
+        PriorityQueue<Completion> inFlight = new PriorityQueue<>();
+        long[] latencies = new long[REQUESTS];
+        long now = 1;
+
+        for (int i = 0; i < REQUESTS; i++) {
+            now += exponential(random, TimeUnit.SECONDS.toNanos(1) / REQUESTS_PER_SECOND);
+            while (!inFlight.isEmpty() && inFlight.peek().at() <= now) {
+                Completion done = inFlight.poll();
+                clock.set(done.at());
+                if (tracker != null) {
+                    tracker.completed(done.instance(), done.latency(), false);
+                }
+            }
+            clock.set(now);
+
+            ServiceInstance instance = loadBalancer.choose(new DefaultRequest<>()).block().getServer();
+            if (tracker != null) {
+                tracker.started(instance);
+            }
+            long latency = exponential(random, MEAN_LATENCY.get(instance).toNanos());
+            inFlight.add(new Completion(now + latency, instance, latency));
+            latencies[i] = latency;
+        }
+        return latencies;
+    }
+
+    private static long exponential(Random random, double mean) {
+        return Math.max(1, (long) (-Math.log(1 - random.nextDouble()) * mean));
+    }
+
+    private static double percentileMillis(long[] latencies, double percentile) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(percentile * sorted.length) - 1] / 1_000_000.0;
+    }
+
+    private static ServiceInstance instance(String host) {
+        return new DefaultServiceInstance(host + ":8081", SERVICE_ID, host, 8081, false);
+    }
+
+    private record Completion(long at, ServiceInstance instance, long latency) implements Comparable<Completion> {
+
+        @Override
+        public int compareTo(Completion other) {
+            return Long.compare(at, other.at);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.kozitskiy.apigateway.metrics;
+
+import com.kozitskiy.apigateway.metrics.GatewayLatencyRecorder.RouteLatency;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class GatewayLatencyRecorderTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private GatewayLatencyRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        recorder = new GatewayLatencyRecorder(meterRegistry);
+    }
+
+    @Test
+    void record_ShouldSplitGatewayAndUpstreamTime() {
+        recorder.record("order-service", "200", "10.0.0.5:8080", millis(30), millis(25));
+
+        RouteLatency latency = recorder.snapshot().get(0);
+
+        assertThat(latency.total().count()).isEqualTo(1);
+        assertThat(latency.total().maxMs()).isCloseTo(30, within(0.01));
+        assertThat(latency.upstream().maxMs()).isCloseTo(25, within(0.01));
+        assertThat(latency.gateway().maxMs()).isCloseTo(5, within(0.01));
+    }
+
+    @Test
+    void record_ShouldCountRequestsAnsweredByGatewayAsGatewayTimeOnly() {
+        recorder.record("order-service", "429", GatewayLatencyRecorder.NO_UPSTREAM, millis(1), -1);
+
+        RouteLatency latency = recorder.snapshot().get(0);
+
+        assertThat(latency.gateway().count()).isEqualTo(1);
+        assertThat(latency.upstream().count()).isZero();
+    }
+
+    @Test
+    void snapshot_ShouldReportPercentilesPerRouteStatusAndInstance() {
+        for (int i = 1; i <= 1000; i++) {
+            recorder.record("order-service", "200", "10.0.0.5:8080", millis(i), millis(i));
+        }
+        recorder.record("order-service", "500", "10.0.0.6:8080", millis(5), millis(5));
+
+        List<RouteLatency> snapshot = recorder.snapshot();
+
+        assertThat(snapshot).extracting(RouteLatency::status).containsExactly("200", "500");
+        assertThat(snapshot.get(0).total().p50Ms()).isCloseTo(500, within(25.0));
+        assertThat(snapshot.get(0).total().p999Ms()).isCloseTo(1000, within(50.0));
+        assertThat(meterRegistry.get(GatewayLatencyRecorder.METRIC_NAME).tag("phase", "upstream").timers()).hasSize(2);
+    }
+
+    private static long millis(long value) {
+        return TimeUnit.MILLISECONDS.toNanos(value);
+    }
+}
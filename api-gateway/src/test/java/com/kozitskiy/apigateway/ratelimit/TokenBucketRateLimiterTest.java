@@ -0,0 +1,85 @@
+package com.kozitskiy.apigateway.ratelimit;
+
+import com.kozitskiy.apigateway.config.RateLimitProperties;
+import com.kozitskiy.apigateway.ratelimit.TokenBucketRateLimiter.Rate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketRateLimiterTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final Rate rate = Rate.of(limit(10, 3));
+
+    private TokenBucketRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setIdleTimeout(Duration.ofMinutes(1));
+        rateLimiter = new TokenBucketRateLimiter(properties, new SimpleMeterRegistry(), nanos::get);
+    }
+
+    @Test
+    void tryAcquire_ShouldAllowBurstThenReject() {
+        assertThat(rateLimiter.tryAcquire("orders", "alice", rate)).isZero();
+        assertThat(rateLimiter.tryAcquire("orders", "alice", rate)).isZero();
+        assertThat(rateLimiter.tryAcquire("orders", "alice", rate)).isZero();
+
+        assertThat(rateLimiter.tryAcquire("orders", "alice", rate)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    void tryAcquire_ShouldRefillAtReplenishRate() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("orders", "alice", rate);
+        }
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+
+        assertThat(rateLimiter.tryAcquire("orders", "alice", rate)).isZero();
+        assertThat(rateLimiter.tryAcquire("orders", "alice", rate)).isPositive();
+    }
+
+    @Test
+    void tryAcquire_ShouldKeepSeparateBucketsPerKey() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("orders", "alice", rate);
+        }
+
+        assertThat(rateLimiter.tryAcquire("orders", "alice", rate)).isPositive();
+        assertThat(rateLimiter.tryAcquire("orders", "bob", rate)).isZero();
+    }
+
+    @Test
+    void tryAcquire_ShouldKeepSeparateBucketsPerRoute() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("orders", "alice", rate);
+        }
+
+        assertThat(rateLimiter.tryAcquire("payments", "alice", rate)).isZero();
+    }
+
+    @Test
+    void tryAcquire_ShouldEvictIdleBuckets() {
+        rateLimiter.tryAcquire("orders", "alice", rate);
+
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(2));
+        rateLimiter.tryAcquire("orders", "bob", rate);
+
+        assertThat(rateLimiter.size()).isEqualTo(1);
+    }
+
+    private static RateLimitProperties.Limit limit(long replenishRate, long burstCapacity) {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setReplenishRate(replenishRate);
+        limit.setBurstCapacity(burstCapacity);
+        return limit;
+    }
+}
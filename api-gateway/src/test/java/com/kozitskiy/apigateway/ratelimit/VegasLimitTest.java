@@ -0,0 +1,57 @@
+package com.kozitskiy.apigateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VegasLimitTest {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(20);
+
+    @Test
+    void onSample_ShouldGrowWhileLatencyStaysAtItsMinimum() {
+        VegasLimit limit = new VegasLimit(20, 5, 1000, 0.2);
+
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(RTT, limit.getLimit(), false);
+        }
+
+        assertThat(limit.getLimit()).isGreaterThan(50);
+    }
+
+    @Test
+    void onSample_ShouldShrinkOnceRequestsQueueUpstream() {
+        VegasLimit limit = new VegasLimit(100, 5, 1000, 0.2);
+        limit.onSample(RTT, 100, false);
+
+        for (int i = 0; i < 500; i++) {
+            limit.onSample(4 * RTT, limit.getLimit(), false);
+        }
+
+        assertThat(limit.getLimit()).isLessThan(30);
+    }
+
+    @Test
+    void onSample_ShouldShrinkOnFailuresButNotBelowMinimum() {
+        VegasLimit limit = new VegasLimit(20, 5, 1000, 0.2);
+
+        for (int i = 0; i < 500; i++) {
+            limit.onSample(RTT, 1, true);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    void onSample_ShouldNotGrowWithoutEnoughTraffic() {
+        VegasLimit limit = new VegasLimit(20, 5, 1000, 0.2);
+
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(RTT, 2, false);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(20);
+    }
+}
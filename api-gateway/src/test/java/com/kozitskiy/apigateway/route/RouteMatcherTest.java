@@ -0,0 +1,47 @@
+package com.kozitskiy.apigateway.route;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RouteMatcherTest {
+
+    private final RouteMatcher matcher = RouteMatcher.compile(List.of(
+            "POST /auth/login",
+            "GET /api/v1/items/**",
+            "/api/v1/public/*/info",
+            "* /health"
+    ));
+
+    @Test
+    void matches_ShouldRespectMethod() {
+        assertThat(matcher.matches(HttpMethod.POST, "/auth/login")).isTrue();
+        assertThat(matcher.matches(HttpMethod.GET, "/auth/login")).isFalse();
+        assertThat(matcher.matches(HttpMethod.POST, "/auth/login/extra")).isFalse();
+    }
+
+    @Test
+    void matches_ShouldTreatDoubleWildcardAsAnyTail() {
+        assertThat(matcher.matches(HttpMethod.GET, "/api/v1/items")).isTrue();
+        assertThat(matcher.matches(HttpMethod.GET, "/api/v1/items/5/details")).isTrue();
+        assertThat(matcher.matches(HttpMethod.DELETE, "/api/v1/items/5")).isFalse();
+        assertThat(matcher.matches(HttpMethod.GET, "/api/v1/itemsX")).isFalse();
+    }
+
+    @Test
+    void matches_ShouldTreatSingleWildcardAsOneSegment() {
+        assertThat(matcher.matches(HttpMethod.PUT, "/api/v1/public/abc/info")).isTrue();
+        assertThat(matcher.matches(HttpMethod.GET, "/api/v1/public/abc/def/info")).isFalse();
+        assertThat(matcher.matches(HttpMethod.GET, "/health/")).isTrue();
+    }
+
+    @Test
+    void compile_ShouldRejectDoubleWildcardInTheMiddle() {
+        assertThatThrownBy(() -> RouteMatcher.compile(List.of("/api/**/items")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
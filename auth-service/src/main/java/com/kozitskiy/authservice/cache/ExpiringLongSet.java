@@ -0,0 +1,159 @@
+package com.kozitskiy.authservice.cache;
+
+/**
+ * Concurrent set of 64-bit keys, each stored with an expiry, kept in primitive open-addressing
+ * arrays instead of boxed map entries: about 32 bytes per key at the worst load factor. Split
+ * into lock-striped segments so writers to different segments do not contend.
+ * <p>
+ * Key {@code 0} marks an empty slot and is stored as {@code 1}; callers hash their keys first.
+ */
+public final class ExpiringLongSet {
+
+    private static final int SEGMENTS = 64;
+    private static final int INITIAL_SEGMENT_CAPACITY = 64;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    public ExpiringLongSet() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * @return {@code false} if the key was already present, in which case its expiry is kept
+     */
+    public boolean add(long key, long expiresAt) {
+        key = normalize(key);
+        return segment(key).add(key, expiresAt);
+    }
+
+    public boolean contains(long key) {
+        key = normalize(key);
+        return segment(key).contains(key);
+    }
+
+    /**
+     * Removes the key if it expired at or before {@code now}.
+     *
+     * @return {@code true} if the key is gone afterwards, whether it was removed now or was absent
+     */
+    public boolean removeIfExpired(long key, long now) {
+        key = normalize(key);
+        return segment(key).removeIfExpired(key, now);
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long memoryBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.capacity() * 2L * Long.BYTES;
+        }
+        return bytes;
+    }
+
+    private Segment segment(long key) {
+        return segments[(int) (key >>> 58)];
+    }
+
+    private static long normalize(long key) {
+        return key == 0 ? 1 : key;
+    }
+
+    private static final class Segment {
+
+        private long[] keys = new long[INITIAL_SEGMENT_CAPACITY];
+        private long[] expiries = new long[INITIAL_SEGMENT_CAPACITY];
+        private int size;
+
+        synchronized boolean add(long key, long expiresAt) {
+            int slot = find(keys, key);
+            if (keys[slot] == key) {
+                return false;
+            }
+            keys[slot] = key;
+            expiries[slot] = expiresAt;
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+            return true;
+        }
+
+        synchronized boolean contains(long key) {
+            return keys[find(keys, key)] == key;
+        }
+
+        synchronized boolean removeIfExpired(long key, long now) {
+            int slot = find(keys, key);
+            if (keys[slot] != key) {
+                return true;
+            }
+            if (expiries[slot] > now) {
+                return false;
+            }
+            remove(slot);
+            return true;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized int capacity() {
+            return keys.length;
+        }
+
+        // Backward-shift deletion: later keys of the probe run move up, so no tombstones are needed
+        private void remove(int slot) {
+            int mask = keys.length - 1;
+            int gap = slot;
+            int next = (gap + 1) & mask;
+            while (keys[next] != 0) {
+                int home = home(keys[next], mask);
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    keys[gap] = keys[next];
+                    expiries[gap] = expiries[next];
+                    gap = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[gap] = 0;
+            expiries[gap] = 0;
+            size--;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            long[] oldExpiries = expiries;
+            keys = new long[oldKeys.length * 2];
+            expiries = new long[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = find(keys, oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    expiries[slot] = oldExpiries[i];
+                }
+            }
+        }
+
+        private static int find(long[] keys, long key) {
+            int mask = keys.length - 1;
+            int slot = home(key, mask);
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private static int home(long key, int mask) {
+            return (int) (key ^ (key >>> 32)) & mask;
+        }
+    }
+}
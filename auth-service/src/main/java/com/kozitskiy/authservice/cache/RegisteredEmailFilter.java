@@ -0,0 +1,117 @@
+package com.kozitskiy.authservice.cache;
+
+import com.kozitskiy.authservice.entity.User;
+import com.kozitskiy.authservice.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter of the emails in {@code auth_users}, consulted before the database: an email the
+ * filter has never seen skips the query. A probable match is always confirmed by the database, so
+ * false positives and emails of deleted users cost a query.
+ * <p>
+ * Filled from the table once the application is ready, then kept current by
+ * {@link RegisteredEmailListener} with the users this instance inserts. An email registered
+ * through another instance reads as absent here, so the filter only fronts the registration
+ * pre-check, which {@link com.kozitskiy.authservice.service.RegistrationService} repeats in its
+ * transaction; it must not answer lookups where a miss has to be true, such as login. Until the
+ * initial load has finished, or with the filter disabled, every email counts as a probable match.
+ */
+@Slf4j
+@Component
+public class RegisteredEmailFilter {
+
+    private final UserRepository userRepository;
+    private final Counter skipped;
+    private final Counter confirmed;
+    private final Counter falsePositives;
+    private final ScalableBloomFilter filter;
+    private volatile boolean loaded;
+
+    public RegisteredEmailFilter(UserRepository userRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${auth.email-filter.enabled:true}") boolean enabled,
+                                 @Value("${auth.email-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        // Created up front so users inserted before and during the load are never missed;
+        // sized for twice the current users before the first slice fills
+        this.filter = enabled
+                ? new ScalableBloomFilter(Math.max(1024, userRepository.count() * 2), falsePositiveRate)
+                : null;
+        this.skipped = checks(meterRegistry, "negative");
+        this.confirmed = checks(meterRegistry, "confirmed");
+        this.falsePositives = checks(meterRegistry, "false-positive");
+
+        if (filter != null) {
+            Gauge.builder("auth.email-filter.size", filter, ScalableBloomFilter::size)
+                    .description("Emails in the filter, not counting ones it already reported as present")
+                    .register(meterRegistry);
+            Gauge.builder("auth.email-filter.memory", filter, ScalableBloomFilter::memoryBytes)
+                    .description("Size of the filter's bit arrays")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+            Gauge.builder("auth.email-filter.expected-fpp", filter, ScalableBloomFilter::expectedFalsePositiveRate)
+                    .description("False-positive rate expected from the filter's fill")
+                    .register(meterRegistry);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        if (filter == null) {
+            return;
+        }
+        try (Stream<String> emails = userRepository.streamAllEmails()) {
+            emails.forEach(filter::add);
+        }
+        loaded = true;
+        log.info("Email filter loaded: {} emails, {} bytes", filter.size(), filter.memoryBytes());
+    }
+
+    public void add(String email) {
+        if (filter != null) {
+            filter.add(email);
+        }
+    }
+
+    public Optional<User> find(String email) {
+        if (!mightExist(email)) {
+            return Optional.empty();
+        }
+        Optional<User> user = userRepository.findUserByEmail(email);
+        confirm(user.isPresent());
+        return user;
+    }
+
+    private boolean mightExist(String email) {
+        if (!loaded || email == null || filter.mightContain(email)) {
+            return true;
+        }
+        skipped.increment();
+        return false;
+    }
+
+    private void confirm(boolean exists) {
+        if (loaded) {
+            (exists ? confirmed : falsePositives).increment();
+        }
+    }
+
+    private static Counter checks(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("auth.email-filter.checks")
+                .description("Email existence checks by outcome; only negatives skip the database")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
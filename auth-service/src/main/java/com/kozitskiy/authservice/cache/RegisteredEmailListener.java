@@ -0,0 +1,25 @@
+package com.kozitskiy.authservice.cache;
+
+import com.kozitskiy.authservice.entity.User;
+import jakarta.persistence.PostPersist;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener on {@link User} that adds every new email to the {@link RegisteredEmailFilter}.
+ * Added on insert rather than on commit: a rolled-back email only costs one confirming query.
+ */
+@Component
+public class RegisteredEmailListener {
+
+    private final ObjectProvider<RegisteredEmailFilter> registeredEmailFilter;
+
+    public RegisteredEmailListener(ObjectProvider<RegisteredEmailFilter> registeredEmailFilter) {
+        this.registeredEmailFilter = registeredEmailFilter;
+    }
+
+    @PostPersist
+    public void onInsert(User user) {
+        registeredEmailFilter.ifAvailable(filter -> filter.add(user.getEmail()));
+    }
+}
@@ -0,0 +1,168 @@
+package com.kozitskiy.authservice.cache;
+
+import com.kozitskiy.authservice.entity.RevokedRefreshToken;
+import com.kozitskiy.authservice.repository.RevokedRefreshTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The {@code jti}s of refresh tokens that have been used, each kept until the token expires.
+ * Checks and revocations are answered from memory: a 64-bit fingerprint of the {@code jti} in an
+ * {@link ExpiringLongSet}, pruned by a {@link TimingWheel} as the tokens expire.
+ * <p>
+ * Revocations are written to {@code revoked_refresh_tokens} in batches on every sync, which also
+ * reads the rows other instances wrote since the newest {@code revoked_at} seen so far; the
+ * database stamps that column, so the watermark never depends on this instance's clock. A
+ * revocation made elsewhere is seen here within about one sync interval. The table is loaded once the application is ready, and
+ * until then a token not revoked in memory is looked up in the table.
+ */
+@Slf4j
+@Component
+public class RevokedRefreshTokens {
+
+    private final RevokedRefreshTokenRepository repository;
+    private final ExpiringLongSet revoked = new ExpiringLongSet();
+    private final TimingWheel wheel;
+    private final Queue<RevokedRefreshToken> pending = new ConcurrentLinkedQueue<>();
+    private final int batchSize;
+    private final Duration syncOverlap;
+    private final Counter rotated;
+    private final Counter reused;
+    private volatile Instant syncedUpTo;
+    private volatile boolean loaded;
+
+    public RevokedRefreshTokens(RevokedRefreshTokenRepository repository,
+                                MeterRegistry meterRegistry,
+                                @Value("${auth.refresh-tokens.wheel-tick:PT1M}") Duration wheelTick,
+                                @Value("${auth.refresh-tokens.wheel-size:1024}") int wheelSize,
+                                @Value("${auth.refresh-tokens.batch-size:500}") int batchSize,
+                                @Value("${auth.refresh-tokens.sync-overlap:PT2S}") Duration syncOverlap) {
+        this.repository = repository;
+        this.wheel = new TimingWheel(wheelTick, wheelSize, System.currentTimeMillis());
+        this.batchSize = batchSize;
+        this.syncOverlap = syncOverlap;
+        this.rotated = rotations(meterRegistry, "rotated");
+        this.reused = rotations(meterRegistry, "reused");
+
+        Gauge.builder("auth.refresh-tokens.revoked", revoked, ExpiringLongSet::size)
+                .description("Revoked refresh tokens that have not expired yet")
+                .register(meterRegistry);
+        Gauge.builder("auth.refresh-tokens.revoked.memory", revoked, ExpiringLongSet::memoryBytes)
+                .description("Size of the in-memory revocation set")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("auth.refresh-tokens.revoked.pending", pending, Queue::size)
+                .description("Revocations not yet written to the database")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        syncedUpTo = readRevokedSince(Instant.EPOCH);
+        loaded = true;
+        log.info("Revoked refresh tokens loaded: {} tokens, {} bytes", revoked.size(), revoked.memoryBytes());
+    }
+
+    /**
+     * Revokes the token, unless it already was.
+     *
+     * @param expiresAt the token's {@code exp}, in epoch seconds
+     * @return {@code false} if the token had been revoked before
+     */
+    public boolean revoke(UUID jti, long expiresAt) {
+        long key = key(jti);
+        if ((!loaded && repository.exists(jti)) || !revoked.add(key, expiresAt)) {
+            reused.increment();
+            return false;
+        }
+        wheel.schedule(key, expiresAt * 1000);
+        pending.add(new RevokedRefreshToken(jti, Instant.ofEpochSecond(expiresAt), null));
+        rotated.increment();
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${auth.refresh-tokens.sync-interval:PT1S}")
+    public void sync() {
+        flush();
+        if (loaded) {
+            syncedUpTo = readRevokedSince(syncedUpTo);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${auth.refresh-tokens.wheel-tick:PT1M}")
+    public void prune() {
+        long now = System.currentTimeMillis();
+        int dropped = wheel.advance(now, key -> revoked.removeIfExpired(key, now / 1000));
+        int deleted = repository.deleteExpired(Instant.ofEpochMilli(now));
+        if (dropped > 0 || deleted > 0) {
+            log.debug("Pruned {} expired refresh tokens from memory, {} from the database", dropped, deleted);
+        }
+    }
+
+    private void flush() {
+        List<RevokedRefreshToken> batch = new ArrayList<>();
+        RevokedRefreshToken token;
+        while ((token = pending.poll()) != null) {
+            batch.add(token);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            repository.insertAll(batch, batchSize);
+        } catch (DataAccessException e) {
+            // Still revoked here; retried on the next sync
+            pending.addAll(batch);
+            log.warn("Could not persist {} revoked refresh tokens: {}", batch.size(), e.toString());
+        }
+    }
+
+    // Rows are stamped before their batch commits, so the last few seconds are read again
+    private Instant readRevokedSince(Instant watermark) {
+        Instant[] newest = {watermark};
+        repository.forEachRevokedAfter(watermark.minus(syncOverlap), Instant.now(), token -> {
+            remember(token);
+            if (token.revokedAt().isAfter(newest[0])) {
+                newest[0] = token.revokedAt();
+            }
+        });
+        return newest[0];
+    }
+
+    private void remember(RevokedRefreshToken token) {
+        long key = key(token.jti());
+        if (revoked.add(key, token.expiresAt().getEpochSecond())) {
+            wheel.schedule(key, token.expiresAt().toEpochMilli());
+        }
+    }
+
+    // Random UUIDs: two tokens sharing a fingerprint while both are live is vanishingly unlikely
+    private static long key(UUID jti) {
+        return jti.getMostSignificantBits() ^ jti.getLeastSignificantBits();
+    }
+
+    private static Counter rotations(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("auth.refresh-tokens.rotations")
+                .description("Refresh token uses by outcome; a reused token is refused")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,162 @@
+package com.kozitskiy.authservice.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filter of strings that grows instead of degrading: when the current slice has taken its
+ * capacity, a slice twice as large with half the false-positive rate is added, so the combined
+ * rate stays under the target however many strings go in. Nothing is ever removed; a removed
+ * string stays a probable member.
+ * <p>
+ * Safe for concurrent use: bits are set atomically and lookups never block.
+ */
+public final class ScalableBloomFilter {
+
+    private static final double LN2 = Math.log(2);
+    private static final int GROWTH = 2;
+    private static final double TIGHTENING = 0.5;
+
+    private final double firstFalsePositiveRate;
+    private volatile List<Slice> slices;
+
+    /**
+     * @param initialCapacity   strings the first slice is sized for
+     * @param falsePositiveRate bound on the combined false-positive rate of all slices
+     */
+    public ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        // Slices get rates p/2, p/4, p/8...; together they stay under p
+        this.firstFalsePositiveRate = falsePositiveRate * (1 - TIGHTENING);
+        this.slices = List.of(new Slice(Math.max(1, initialCapacity), firstFalsePositiveRate));
+    }
+
+    public void add(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        if (mightContain(h1, h2)) {
+            return;
+        }
+        Slice current = current();
+        if (current.count.sum() >= current.capacity) {
+            current = grow(current);
+        }
+        current.add(h1, h2);
+    }
+
+    public boolean mightContain(String value) {
+        long h1 = hash(value);
+        return mightContain(h1, mix(h1 ^ 0x9E3779B97F4A7C15L) | 1);
+    }
+
+    public long size() {
+        long size = 0;
+        for (Slice slice : slices) {
+            size += slice.count.sum();
+        }
+        return size;
+    }
+
+    public long memoryBytes() {
+        long bits = 0;
+        for (Slice slice : slices) {
+            bits += slice.bits;
+        }
+        return bits / Byte.SIZE;
+    }
+
+    /**
+     * False-positive rate for the strings added so far, estimated from how full each slice is.
+     */
+    public double expectedFalsePositiveRate() {
+        double allNegative = 1;
+        for (Slice slice : slices) {
+            allNegative *= 1 - slice.expectedFalsePositiveRate();
+        }
+        return 1 - allNegative;
+    }
+
+    private boolean mightContain(long h1, long h2) {
+        for (Slice slice : slices) {
+            if (slice.mightContain(h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Slice current() {
+        List<Slice> current = slices;
+        return current.get(current.size() - 1);
+    }
+
+    private synchronized Slice grow(Slice full) {
+        Slice current = current();
+        if (current != full) {
+            return current;
+        }
+        List<Slice> grown = new ArrayList<>(slices);
+        Slice next = new Slice(full.capacity * GROWTH,
+                firstFalsePositiveRate * Math.pow(TIGHTENING, grown.size()));
+        grown.add(next);
+        slices = List.copyOf(grown);
+        return next;
+    }
+
+    // 64-bit FNV-1a over the UTF-8 bytes, finished with a mixer so the two derived hashes are independent
+    private static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    private static final class Slice {
+
+        private final long capacity;
+        private final long bits;
+        private final int hashes;
+        private final AtomicLongArray words;
+        private final LongAdder count = new LongAdder();
+
+        private Slice(long capacity, double falsePositiveRate) {
+            long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (LN2 * LN2));
+            this.capacity = capacity;
+            this.bits = Math.max(Long.SIZE, (bits + Long.SIZE - 1) / Long.SIZE * Long.SIZE);
+            this.hashes = Math.max(1, (int) Math.round((double) this.bits / capacity * LN2));
+            this.words = new AtomicLongArray(Math.toIntExact(this.bits / Long.SIZE));
+        }
+
+        private void add(long h1, long h2) {
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+                words.getAndAccumulate((int) (bit >>> 6), 1L << bit, (word, mask) -> word | mask);
+            }
+            count.increment();
+        }
+
+        private boolean mightContain(long h1, long h2) {
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private double expectedFalsePositiveRate() {
+            return Math.pow(1 - Math.exp(-hashes * count.sum() / (double) bits), hashes);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.kozitskiy.authservice.cache;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Hashed timing wheel of 64-bit keys: a key is filed under the tick of its deadline, and each
+ * advance only looks at the buckets of the ticks that have passed, instead of scanning every key.
+ * Deadlines further out than one revolution share buckets with nearer ones; the wheel does not
+ * store deadlines, so the caller decides per key whether it is due or stays for a later round.
+ */
+public final class TimingWheel {
+
+    private final long tickMillis;
+    private final int mask;
+    private final Bucket[] buckets;
+    private volatile long lastTick;
+
+    /**
+     * @param wheelSize number of buckets, rounded up to a power of two
+     */
+    public TimingWheel(Duration tick, int wheelSize, long nowMillis) {
+        int size = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.tickMillis = tick.toMillis();
+        this.mask = size - 1;
+        this.buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.lastTick = nowMillis / tickMillis - 1;
+    }
+
+    public void schedule(long key, long deadlineMillis) {
+        // A deadline in a tick already advanced past goes to the next one, not a revolution later
+        long tick = Math.max(deadlineMillis / tickMillis, lastTick + 1);
+        buckets[(int) (tick & mask)].add(key);
+    }
+
+    /**
+     * Visits the keys filed under every tick that has fully elapsed by {@code nowMillis}, so a key
+     * is rarely seen before its deadline; at most one revolution is visited however long ago the
+     * last advance was.
+     *
+     * @param due drops the key when it returns {@code true}; a key it keeps is visited again a
+     *            revolution later
+     * @return the number of keys dropped
+     */
+    public synchronized int advance(long nowMillis, LongPredicate due) {
+        long target = nowMillis / tickMillis - 1;
+        int dropped = 0;
+        for (long tick = Math.max(lastTick + 1, target - mask); tick <= target; tick++) {
+            dropped += buckets[(int) (tick & mask)].removeIf(due);
+        }
+        lastTick = Math.max(lastTick, target);
+        return dropped;
+    }
+
+    private static final class Bucket {
+
+        private long[] keys = new long[8];
+        private int size;
+
+        synchronized void add(long key) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            keys[size++] = key;
+        }
+
+        synchronized int removeIf(LongPredicate due) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (!due.test(keys[i])) {
+                    keys[kept++] = keys[i];
+                }
+            }
+            int dropped = size - kept;
+            size = kept;
+            if (keys.length > 8 && size < keys.length / 4) {
+                keys = Arrays.copyOf(keys, Math.max(8, keys.length / 2));
+            }
+            return dropped;
+        }
+    }
+}
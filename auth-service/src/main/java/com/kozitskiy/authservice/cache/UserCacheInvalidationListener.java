@@ -0,0 +1,45 @@
+package com.kozitskiy.authservice.cache;
+
+import com.kozitskiy.authservice.entity.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA listener on {@link User} that evicts a changed or deleted user, so a new role or password
+ * takes effect without waiting for the cache TTL. Instantiated by Hibernate through Spring, so
+ * the cache is looked up lazily rather than injected while the persistence unit starts.
+ */
+@Component
+public class UserCacheInvalidationListener {
+
+    private final ObjectProvider<UserDetailsCache> userDetailsCache;
+
+    public UserCacheInvalidationListener(ObjectProvider<UserDetailsCache> userDetailsCache) {
+        this.userDetailsCache = userDetailsCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(User user) {
+        String email = user.getEmail();
+        evict(email);
+
+        // Again once committed: a concurrent request may have re-cached the old row in between
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(email);
+                }
+            });
+        }
+    }
+
+    private void evict(String email) {
+        userDetailsCache.ifAvailable(cache -> cache.evict(email));
+    }
+}
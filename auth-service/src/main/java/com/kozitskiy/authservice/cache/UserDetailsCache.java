@@ -0,0 +1,66 @@
+package com.kozitskiy.authservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Bounded, TTL-based cache of {@link UserDetails} read when a refresh token is exchanged, so the
+ * new access token carries the user's current role and a disabled user is refused. Entries hold
+ * no password hash, so login keeps going to the database through the {@link UserDetailsService}
+ * itself.
+ * <p>
+ * Local changes evict through {@link UserCacheInvalidationListener}; changes made by another
+ * instance are picked up when the entry expires.
+ */
+@Component
+public class UserDetailsCache {
+
+    public static final String CACHE_NAME = "user-details";
+
+    private final UserDetailsService userDetailsService;
+    private final Cache<String, UserDetails> cache;
+
+    public UserDetailsCache(UserDetailsService userDetailsService,
+                            MeterRegistry meterRegistry,
+                            @Value("${auth.user-cache.enabled:true}") boolean enabled,
+                            @Value("${auth.user-cache.max-size:10000}") long maxSize,
+                            @Value("${auth.user-cache.ttl:PT5M}") Duration ttl) {
+        this.userDetailsService = userDetailsService;
+        if (enabled) {
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(maxSize)
+                    .expireAfterWrite(ttl)
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        } else {
+            this.cache = null;
+        }
+    }
+
+    public UserDetails load(String email) {
+        if (cache == null) {
+            return userDetailsService.loadUserByUsername(email);
+        }
+        return cache.get(email, key -> withoutPassword(userDetailsService.loadUserByUsername(key)));
+    }
+
+    public void evict(String email) {
+        if (cache != null) {
+            cache.invalidate(email);
+        }
+    }
+
+    private static UserDetails withoutPassword(UserDetails userDetails) {
+        return User.withUserDetails(userDetails).password("").build();
+    }
+}
@@ -0,0 +1,31 @@
+package com.kozitskiy.authservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "jwt")
+public class JwtProperties {
+
+    /**
+     * Secret of the key new tokens are signed with.
+     */
+    private String secret;
+
+    /**
+     * Id of that key, carried in the {@code kid} header of the tokens it signs.
+     */
+    private String keyId = "default";
+
+    /**
+     * Secrets of rotated-out keys by key id, still accepted until their tokens have expired.
+     */
+    private Map<String, String> previousKeys = new HashMap<>();
+}
@@ -0,0 +1,19 @@
+package com.kozitskiy.authservice.config;
+
+import com.kozitskiy.dto.KafkaTopics;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+public class KafkaConfig {
+
+    @Bean
+    public NewTopic userRegisteredTopic(){
+        return TopicBuilder.name(KafkaTopics.USER_REGISTERED)
+                .partitions(3)
+                .replicas(1)
+                .build();
+    }
+}
@@ -0,0 +1,58 @@
+package com.kozitskiy.authservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "auth.password-hashing")
+public class PasswordHashingProperties {
+
+    /**
+     * Threads hashing and verifying passwords; 0 means one per available processor.
+     */
+    private int threads = 0;
+
+    /**
+     * Hash operations allowed to wait for a thread before new ones are rejected.
+     */
+    private int queueCapacity = 64;
+
+    /**
+     * Longest a request waits for its hash, also bounded by the request deadline.
+     */
+    private Duration maxWait = Duration.ofSeconds(5);
+
+    /**
+     * Sent as {@code Retry-After} when a hash operation is rejected.
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    /**
+     * BCrypt cost of new hashes; unset means calibrated at startup against {@link #targetVerifyTime}.
+     * Stored hashes with a lower cost are rehashed on the next successful login, and with a higher
+     * one only when this is set.
+     */
+    private Integer strength;
+
+    /**
+     * Time one password verification may take when the cost is calibrated.
+     */
+    private Duration targetVerifyTime = Duration.ofMillis(250);
+
+    /**
+     * Bounds of the calibrated cost; the lower one is the floor regardless of the hardware.
+     */
+    private int minStrength = 10;
+
+    private int maxStrength = 14;
+
+    public int resolvedThreads() {
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -1,7 +1,17 @@
 package com.kozitskiy.authservice.config;
 
 import com.kozitskiy.authservice.filter.JwtAuthenticationFilter;
+import com.kozitskiy.authservice.util.BCryptCostCalibration;
+import com.kozitskiy.authservice.util.BoundedPasswordEncoder;
+import com.kozitskiy.authservice.util.CostAwareBCryptPasswordEncoder;
+import com.kozitskiy.jwt.JwtCodec;
+import com.kozitskiy.security.GatewayIdentityCodec;
+import com.kozitskiy.security.GatewayIdentityFilter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -9,7 +19,6 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -17,19 +26,24 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @Configuration
 @EnableWebSecurity
 @RequiredArgsConstructor
+@Slf4j
 public class SecurityConfig {
     private final JwtAuthenticationFilter jwtFilter;
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception{
+    public SecurityFilterChain filterChain(HttpSecurity http, GatewayIdentityCodec identityCodec) throws Exception{
         http
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(
                         sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(
-                        auth -> auth.requestMatchers("/auth/**").permitAll()
+                        auth -> auth.requestMatchers("/auth/api-keys/**").authenticated()
+                                // Reached only by the gateway itself, which is not routed to /internal
+                                .requestMatchers("/internal/**").hasRole("GATEWAY")
+                                .requestMatchers("/auth/**").permitAll()
                                 .anyRequest().authenticated()
                 )
+                .addFilterBefore(new GatewayIdentityFilter(identityCodec), UsernamePasswordAuthenticationFilter.class)
                 .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
                 .httpBasic(httpBasic -> httpBasic.disable());
 
@@ -38,8 +52,33 @@ public class SecurityConfig {
 
 
     @Bean
-    public PasswordEncoder passwordEncoder(){
-        return new BCryptPasswordEncoder();
+    public GatewayIdentityCodec gatewayIdentityCodec(@Value("${gateway.identity.secret}") String secret){
+        return new GatewayIdentityCodec(secret);
+    }
+
+    @Bean
+    public JwtCodec jwtCodec(JwtProperties properties){
+        return new JwtCodec(properties.getKeyId(), properties.getSecret(), properties.getPreviousKeys());
+    }
+
+    @Bean
+    public PasswordEncoder passwordEncoder(PasswordHashingProperties properties, MeterRegistry meterRegistry){
+        int strength;
+        if (properties.getStrength() != null) {
+            strength = properties.getStrength();
+            log.info("BCrypt cost {} (configured)", strength);
+        } else {
+            strength = BCryptCostCalibration.select(properties.getTargetVerifyTime(),
+                    properties.getMinStrength(), properties.getMaxStrength());
+            log.info("BCrypt cost {} (calibrated for a {} ms verify budget)", strength,
+                    properties.getTargetVerifyTime().toMillis());
+        }
+        Gauge.builder("auth.password.hash.cost", () -> strength)
+                .description("BCrypt cost of newly hashed passwords")
+                .register(meterRegistry);
+        // Only a configured cost may lower stored hashes; calibrated costs vary between instances
+        PasswordEncoder bcrypt = new CostAwareBCryptPasswordEncoder(strength, properties.getStrength() != null);
+        return new BoundedPasswordEncoder(bcrypt, properties, meterRegistry);
     }
 
     @Bean
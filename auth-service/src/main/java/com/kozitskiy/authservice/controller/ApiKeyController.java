@@ -0,0 +1,52 @@
+package com.kozitskiy.authservice.controller;
+
+import com.kozitskiy.authservice.dto.ApiKeyIndexEntry;
+import com.kozitskiy.authservice.dto.ApiKeyResponse;
+import com.kozitskiy.authservice.dto.CreateApiKeyRequest;
+import com.kozitskiy.authservice.service.ApiKeyService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.security.Principal;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class ApiKeyController {
+
+    private final ApiKeyService apiKeyService;
+
+    @PostMapping("/auth/api-keys")
+    public ResponseEntity<ApiKeyResponse> issue(@Valid @RequestBody CreateApiKeyRequest request, Principal principal) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(apiKeyService.issue(principal.getName(), request));
+    }
+
+    @GetMapping("/auth/api-keys")
+    public ResponseEntity<List<ApiKeyResponse>> list(Principal principal) {
+        return ResponseEntity.ok(apiKeyService.list(principal.getName()));
+    }
+
+    @DeleteMapping("/auth/api-keys/{id}")
+    public ResponseEntity<Void> revoke(@PathVariable Long id, Principal principal) {
+        apiKeyService.revoke(principal.getName(), id);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Snapshot of the active keys for the api-gateway's index. Not routed by the gateway;
+     * polled by it directly with {@code If-None-Match}, so an unchanged key set costs one
+     * query and an empty 304.
+     */
+    @GetMapping("/internal/api-keys")
+    public ResponseEntity<List<ApiKeyIndexEntry>> index(WebRequest webRequest) {
+        List<ApiKeyIndexEntry> entries = apiKeyService.indexEntries();
+        if (webRequest.checkNotModified('"' + apiKeyService.indexVersion(entries) + '"')) {
+            return null;
+        }
+        return ResponseEntity.ok(entries);
+    }
+}
@@ -3,14 +3,18 @@ package com.kozitskiy.authservice.controller;
 import com.kozitskiy.authservice.dto.JwtResponse;
 import com.kozitskiy.authservice.dto.LoginRequest;
 import com.kozitskiy.authservice.dto.RegisterRequest;
+import com.kozitskiy.authservice.dto.RegistrationResponse;
 import com.kozitskiy.authservice.service.AuthService;
+import com.kozitskiy.authservice.service.RegistrationService;
 import com.kozitskiy.authservice.util.JwtUtil;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.Map;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/auth")
@@ -19,11 +23,20 @@ public class AuthController {
 
     private final JwtUtil jwtUtil;
     private final AuthService authService;
+    private final RegistrationService registrationService;
 
+    // The profile is created asynchronously; poll the Location until the status is no longer PENDING
     @PostMapping("/register")
-    public ResponseEntity<String> register(@Valid @RequestBody RegisterRequest request){
-        authService.register(request);
-        return ResponseEntity.ok("User registered successfully");
+    public ResponseEntity<RegistrationResponse> register(@Valid @RequestBody RegisterRequest request){
+        RegistrationResponse registration = authService.register(request);
+        return ResponseEntity.accepted()
+                .location(URI.create("/auth/registrations/" + registration.registrationId()))
+                .body(registration);
+    }
+
+    @GetMapping("/registrations/{registrationId}")
+    public ResponseEntity<RegistrationResponse> registrationStatus(@PathVariable UUID registrationId){
+        return ResponseEntity.ok(registrationService.status(registrationId));
     }
 
     @PostMapping("/login")
@@ -0,0 +1,22 @@
+package com.kozitskiy.authservice.dto;
+
+import com.kozitskiy.authservice.entity.UserRole;
+
+import java.time.Instant;
+
+/**
+ * One active key as replicated to the api-gateway's in-memory index.
+ *
+ * @param hash      hex SHA-256 digest of the key
+ * @param expiresAt epoch seconds, or {@code null} for keys that do not expire
+ */
+public record ApiKeyIndexEntry(
+        String hash,
+        String subject,
+        String role,
+        Long expiresAt
+) {
+    public ApiKeyIndexEntry(String hash, String subject, UserRole role, Instant expiresAt) {
+        this(hash, subject, role.name(), expiresAt == null ? null : expiresAt.getEpochSecond());
+    }
+}
@@ -0,0 +1,20 @@
+package com.kozitskiy.authservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+
+import java.time.Instant;
+
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ApiKeyResponse(
+        Long id,
+        String name,
+        String prefix,
+        Instant createdAt,
+        Instant expiresAt,
+        // Plaintext key, only present in the response that issued it
+        String key
+) {
+
+}
@@ -0,0 +1,19 @@
+package com.kozitskiy.authservice.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.Builder;
+
+@Builder
+public record CreateApiKeyRequest(
+        @NotBlank(message = "Name is required")
+        @Size(max = 100, message = "Name must be at most 100 characters")
+        String name,
+
+        // Omitted for keys that do not expire
+        @Positive(message = "Validity must be a positive number of days")
+        Integer validDays
+) {
+
+}
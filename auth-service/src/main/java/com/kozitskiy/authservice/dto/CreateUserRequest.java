@@ -1,30 +0,0 @@
-package com.kozitskiy.authservice.dto;
-
-import jakarta.validation.constraints.*;
-import lombok.AllArgsConstructor;
-import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-import java.time.LocalDate;
-
-
-@Builder
-public record CreateUserRequest(
-        @NotBlank(message = "Name is required")
-        @Size(min = 2, max = 50, message = "Name must be between 2 and 50 characters")
-        String name,
-
-        @NotBlank(message = "Surname is required")
-        String surname,
-
-        @NotNull(message = "Birth date is required")
-        @Past(message = "Birth date must be in the past")
-        LocalDate birthDate,
-
-        @Email(message = "Email should be valid")
-        @NotBlank(message = "Email is required")
-        String email
-) {
-
-}
@@ -0,0 +1,18 @@
+package com.kozitskiy.authservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.kozitskiy.authservice.entity.RegistrationStatus;
+import lombok.Builder;
+
+import java.util.UUID;
+
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RegistrationResponse(
+        UUID registrationId,
+        RegistrationStatus status,
+        // Why user-service rejected the profile, only for FAILED
+        String error
+) {
+
+}
@@ -0,0 +1,7 @@
+package com.kozitskiy.authservice.entity;
+
+public enum RegistrationStatus {
+    PENDING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,12 @@
+package com.kozitskiy.authservice.entity;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Row of {@code revoked_refresh_tokens}; written in JDBC batches, so not a JPA entity.
+ *
+ * @param revokedAt stamped by the database on insert; {@code null} until the row has been written
+ */
+public record RevokedRefreshToken(UUID jti, Instant expiresAt, Instant revokedAt) {
+}
@@ -1,10 +1,13 @@
 package com.kozitskiy.authservice.entity;
 
+import com.kozitskiy.authservice.cache.RegisteredEmailListener;
+import com.kozitskiy.authservice.cache.UserCacheInvalidationListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import lombok.*;
 
 import java.util.Objects;
+import java.util.UUID;
 
 
 @Getter
@@ -14,6 +17,7 @@ import java.util.Objects;
 @Builder
 @Entity
 @Table(name = "auth_users")
+@EntityListeners({UserCacheInvalidationListener.class, RegisteredEmailListener.class})
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -30,6 +34,18 @@ public class User {
     @Column(nullable = false)
     private UserRole role = UserRole.USER;
 
+    // Set by registration, completed once user-service has created the profile
+    @Column(name = "registration_id", unique = true)
+    private UUID registrationId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "registration_status", nullable = false, length = 20)
+    @Builder.Default
+    private RegistrationStatus registrationStatus = RegistrationStatus.COMPLETED;
+
+    @Column(name = "registration_error", length = 500)
+    private String registrationError;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,7 @@
+package com.kozitskiy.authservice.exception;
+
+public class ApiKeyNotFoundException extends RuntimeException {
+    public ApiKeyNotFoundException(Long id) {
+        super("API key " + id + " not found");
+    }
+}
@@ -1,7 +0,0 @@
-package com.kozitskiy.authservice.exception;
-
-public class RegistrationFailedException extends RuntimeException {
-    public RegistrationFailedException(String message, Throwable cause) {
-        super(message, cause);
-    }
-}
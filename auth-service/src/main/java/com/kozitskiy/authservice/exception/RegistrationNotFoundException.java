@@ -0,0 +1,9 @@
+package com.kozitskiy.authservice.exception;
+
+import java.util.UUID;
+
+public class RegistrationNotFoundException extends RuntimeException {
+    public RegistrationNotFoundException(UUID registrationId) {
+        super("Registration " + registrationId + " not found");
+    }
+}
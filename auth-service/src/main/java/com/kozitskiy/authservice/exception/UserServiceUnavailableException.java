@@ -1,7 +0,0 @@
-package com.kozitskiy.authservice.exception;
-
-public class UserServiceUnavailableException extends RuntimeException {
-    public UserServiceUnavailableException(String message) {
-        super(message);
-    }
-}
@@ -1,25 +1,30 @@
 package com.kozitskiy.authservice.filter;
 
 import com.kozitskiy.authservice.util.JwtUtil;
+import com.kozitskiy.jwt.JwtClaims;
+import com.kozitskiy.security.GatewayIdentity;
+import com.kozitskiy.security.GatewayIdentityFilter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
-    private final UserDetailsService userDetailsService;
 
 
     @Override
@@ -27,21 +32,39 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
 
+        // Identity already verified by the gateway: no token parsing and no DB lookup needed.
+        // Only taken for identities that carry a role, which every access token does
+        GatewayIdentity identity = GatewayIdentityFilter.current(request);
+        if (identity != null && identity.role() != null) {
+            authenticate(userDetails(identity.subject(), identity.role()));
+
+            filterChain.doFilter(request, response);
+            return;
+        }
+
         String authHeader = request.getHeader("Authorization");
 
         if (authHeader != null && authHeader.startsWith("Bearer ")){
             String token = authHeader.substring(7);
-            if (jwtUtil.validate(token)){
-                String email = jwtUtil.getEmailFromToken(token);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-
-                UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(userDetails, null,
-                                userDetails.getAuthorities());
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-            }
+            // Refresh tokens are signed with the same key but only accepted by the refresh endpoint
+            Optional<JwtClaims> claims = jwtUtil.parse(token).filter(JwtClaims::isAccessToken);
+            claims.ifPresent(verified -> authenticate(userDetails(verified.subject(), verified.role())));
         }
 
         filterChain.doFilter(request, response);
     }
+
+    private static UserDetails userDetails(String subject, String role) {
+        return User.withUsername(subject)
+                .password("")
+                .authorities(List.of(new SimpleGrantedAuthority("ROLE_" + role)))
+                .build();
+    }
+
+    private void authenticate(UserDetails userDetails) {
+        UsernamePasswordAuthenticationToken authToken =
+                new UsernamePasswordAuthenticationToken(userDetails, null,
+                        userDetails.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+    }
 }
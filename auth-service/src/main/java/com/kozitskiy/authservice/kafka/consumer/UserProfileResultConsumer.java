@@ -0,0 +1,23 @@
+package com.kozitskiy.authservice.kafka.consumer;
+
+import com.kozitskiy.authservice.service.RegistrationService;
+import com.kozitskiy.dto.KafkaTopics;
+import com.kozitskiy.dto.UserProfileResultEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserProfileResultConsumer {
+
+    private final RegistrationService registrationService;
+
+    @KafkaListener(topics = KafkaTopics.USER_PROFILE_RESULT, groupId = "auth-service-group")
+    public void handleProfileResult(UserProfileResultEvent event){
+        log.info("Received profile result for registration {}: {}", event.registrationId(), event.status());
+        registrationService.complete(event);
+    }
+}
@@ -0,0 +1,144 @@
+package com.kozitskiy.authservice.kafka.producer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kozitskiy.authservice.entity.OutboxEvent;
+import com.kozitskiy.authservice.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes {@link OutboxEvent}s to Kafka and marks them published once the broker has
+ * acknowledged them. Delivery is at least once: an event whose acknowledgement is lost is sent
+ * again, so consumers must be idempotent.
+ * <p>
+ * Each batch is locked with {@code SKIP LOCKED}, so several instances can relay side by side
+ * without sending the same rows. A batch that published completely is followed by the next one
+ * right away; otherwise the relay waits for the next poll.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration sendTimeout;
+    private final Duration retention;
+    private final Counter published;
+    private final Counter failed;
+    private final Timer lag;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       KafkaTemplate<String, Object> kafkaTemplate,
+                       ObjectMapper objectMapper,
+                       TransactionTemplate transactionTemplate,
+                       MeterRegistry meterRegistry,
+                       @Value("${auth.outbox.batch-size:100}") int batchSize,
+                       @Value("${auth.outbox.send-timeout:PT5S}") Duration sendTimeout,
+                       @Value("${auth.outbox.retention:P1D}") Duration retention) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.sendTimeout = sendTimeout;
+        this.retention = retention;
+        this.published = relayed(meterRegistry, "success");
+        this.failed = relayed(meterRegistry, "failure");
+        this.lag = Timer.builder("auth.outbox.lag")
+                .description("Time from writing an outbox event to the broker acknowledging it")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.outbox.poll-interval:PT0.5S}")
+    public void relay() {
+        Integer sent;
+        do {
+            sent = transactionTemplate.execute(status -> publishBatch());
+        } while (sent != null && sent == batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.outbox.cleanup-interval:PT1H}")
+    public void deletePublished() {
+        Integer deleted = transactionTemplate.execute(status ->
+                outboxEventRepository.deletePublishedBefore(Instant.now().minus(retention)));
+        if (deleted != null && deleted > 0) {
+            log.debug("Deleted {} published outbox events", deleted);
+        }
+    }
+
+    /**
+     * Sends the oldest unpublished events and waits for all acknowledgements together.
+     *
+     * @return the number published, or 0 if any of them failed
+     */
+    private int publishBatch() {
+        List<OutboxEvent> events = outboxEventRepository.lockUnpublished(batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<SendResult<String, Object>>> sends = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            sends.add(send(event));
+        }
+
+        long deadline = System.nanoTime() + sendTimeout.toNanos();
+        int sent = 0;
+        for (int i = 0; i < events.size(); i++) {
+            OutboxEvent event = events.get(i);
+            try {
+                sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                Instant now = Instant.now();
+                event.setPublishedAt(now);
+                lag.record(Duration.between(event.getCreatedAt(), now));
+                published.increment();
+                sent++;
+            } catch (ExecutionException | TimeoutException e) {
+                event.setAttempts(event.getAttempts() + 1);
+                failed.increment();
+                log.warn("Could not publish outbox event {} to {} (attempt {}): {}",
+                        event.getId(), event.getTopic(), event.getAttempts(), e.toString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return sent == events.size() ? sent : 0;
+    }
+
+    private CompletableFuture<SendResult<String, Object>> send(OutboxEvent event) {
+        try {
+            Object payload = objectMapper.readValue(event.getPayload(), Class.forName(event.getPayloadType()));
+            return kafkaTemplate.send(event.getTopic(), event.getMessageKey(), payload);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static Counter relayed(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("auth.outbox.published")
+                .description("Outbox events sent to Kafka, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
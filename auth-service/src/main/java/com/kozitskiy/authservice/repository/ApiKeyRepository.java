@@ -0,0 +1,25 @@
+package com.kozitskiy.authservice.repository;
+
+import com.kozitskiy.authservice.dto.ApiKeyIndexEntry;
+import com.kozitskiy.authservice.entity.ApiKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface ApiKeyRepository extends JpaRepository<ApiKey, Long> {
+
+    List<ApiKey> findAllByUserEmailAndRevokedAtIsNullOrderByCreatedAtDesc(String email);
+
+    Optional<ApiKey> findByIdAndUserEmail(Long id, String email);
+
+    @Query("""
+            select new com.kozitskiy.authservice.dto.ApiKeyIndexEntry(k.keyHash, u.email, u.role, k.expiresAt)
+            from ApiKey k join k.user u
+            where k.revokedAt is null and (k.expiresAt is null or k.expiresAt > :now)
+            order by k.id
+            """)
+    List<ApiKeyIndexEntry> findActiveIndexEntries(Instant now);
+}
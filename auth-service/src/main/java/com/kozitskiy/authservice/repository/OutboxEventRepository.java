@@ -0,0 +1,26 @@
+package com.kozitskiy.authservice.repository;
+
+import com.kozitskiy.authservice.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, UUID> {
+
+    // Rows another instance is already relaying are skipped, not waited for
+    @Query(value = """
+            select * from outbox_events
+            where published_at is null
+            order by created_at
+            limit :limit
+            for update skip locked""", nativeQuery = true)
+    List<OutboxEvent> lockUnpublished(int limit);
+
+    @Modifying
+    @Query("delete from OutboxEvent e where e.publishedAt < :before")
+    int deletePublishedBefore(Instant before);
+}
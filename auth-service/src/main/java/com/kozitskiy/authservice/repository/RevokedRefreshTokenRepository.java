@@ -0,0 +1,68 @@
+package com.kozitskiy.authservice.repository;
+
+import com.kozitskiy.authservice.entity.RevokedRefreshToken;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Plain JDBC rather than Spring Data: inserts go out as one batch that ignores rows another
+ * instance already wrote, and reads stream rows without loading entities into a persistence context.
+ * <p>
+ * {@code revoked_at} is stamped by the database on insert, so every instance syncs against one
+ * clock and a batch retried after a failed write is still newer than what peers have read.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RevokedRefreshTokenRepository {
+
+    private static final String INSERT =
+            "INSERT INTO revoked_refresh_tokens (jti, expires_at, revoked_at) VALUES (?, ?, now()) ON CONFLICT (jti) DO NOTHING";
+    private static final String SELECT_REVOKED_AFTER =
+            "SELECT jti, expires_at, revoked_at FROM revoked_refresh_tokens WHERE revoked_at > ? AND expires_at > ?";
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertAll(List<RevokedRefreshToken> tokens, int batchSize) {
+        jdbcTemplate.batchUpdate(INSERT, tokens, batchSize, (statement, token) -> {
+            statement.setObject(1, token.jti());
+            statement.setTimestamp(2, Timestamp.from(token.expiresAt()));
+        });
+    }
+
+    public boolean exists(UUID jti) {
+        Boolean exists = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM revoked_refresh_tokens WHERE jti = ?)", Boolean.class, jti);
+        return Boolean.TRUE.equals(exists);
+    }
+
+    /**
+     * Streams the tokens revoked after {@code revokedAfter} that have not expired by {@code now}.
+     */
+    public void forEachRevokedAfter(Instant revokedAfter, Instant now, Consumer<RevokedRefreshToken> action) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_REVOKED_AFTER);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setTimestamp(1, Timestamp.from(revokedAfter));
+            statement.setTimestamp(2, Timestamp.from(now));
+            return statement;
+        }, resultSet -> {
+            action.accept(new RevokedRefreshToken(
+                    resultSet.getObject("jti", UUID.class),
+                    resultSet.getTimestamp("expires_at").toInstant(),
+                    resultSet.getTimestamp("revoked_at").toInstant()));
+        });
+    }
+
+    public int deleteExpired(Instant now) {
+        return jdbcTemplate.update("DELETE FROM revoked_refresh_tokens WHERE expires_at <= ?", Timestamp.from(now));
+    }
+}
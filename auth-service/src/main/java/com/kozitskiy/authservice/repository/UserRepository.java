@@ -2,11 +2,19 @@ package com.kozitskiy.authservice.repository;
 
 import com.kozitskiy.authservice.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findUserByEmail(String email);
 
     boolean existsByEmail(String email);
+
+    Optional<User> findByRegistrationId(UUID registrationId);
+
+    @Query("select u.email from User u")
+    Stream<String> streamAllEmails();
 }
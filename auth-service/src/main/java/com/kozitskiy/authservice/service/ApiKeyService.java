@@ -0,0 +1,128 @@
+package com.kozitskiy.authservice.service;
+
+import com.kozitskiy.authservice.dto.ApiKeyIndexEntry;
+import com.kozitskiy.authservice.dto.ApiKeyResponse;
+import com.kozitskiy.authservice.dto.CreateApiKeyRequest;
+import com.kozitskiy.authservice.entity.ApiKey;
+import com.kozitskiy.authservice.entity.User;
+import com.kozitskiy.authservice.exception.ApiKeyNotFoundException;
+import com.kozitskiy.authservice.repository.ApiKeyRepository;
+import com.kozitskiy.authservice.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Issues and revokes API keys for machine clients. Keys carry 256 bits of randomness, so a
+ * plain SHA-256 digest is enough to store them safely, and, unlike a salted password hash,
+ * lets the api-gateway find a key with a single lookup.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ApiKeyService {
+
+    static final String KEY_PREFIX = "ak_";
+    private static final int KEY_BYTES = 32;
+    private static final int DISPLAY_PREFIX_LENGTH = KEY_PREFIX.length() + 8;
+    private static final int INDEX_VERSION_LENGTH = 32;
+
+    private final ApiKeyRepository apiKeyRepository;
+    private final UserRepository userRepository;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Transactional
+    public ApiKeyResponse issue(String email, CreateApiKeyRequest request) {
+        User user = userRepository.findUserByEmail(email)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + email));
+
+        byte[] secret = new byte[KEY_BYTES];
+        secureRandom.nextBytes(secret);
+        String key = KEY_PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
+
+        Instant now = Instant.now();
+        ApiKey apiKey = apiKeyRepository.save(ApiKey.builder()
+                .user(user)
+                .name(request.name())
+                .prefix(key.substring(0, DISPLAY_PREFIX_LENGTH))
+                .keyHash(hash(key))
+                .createdAt(now)
+                .updatedAt(now)
+                .expiresAt(request.validDays() == null ? null : now.plus(Duration.ofDays(request.validDays())))
+                .build());
+
+        log.info("Issued API key {} ({}) for {}", apiKey.getId(), apiKey.getPrefix(), email);
+        return toResponse(apiKey, key);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ApiKeyResponse> list(String email) {
+        return apiKeyRepository.findAllByUserEmailAndRevokedAtIsNullOrderByCreatedAtDesc(email).stream()
+                .map(apiKey -> toResponse(apiKey, null))
+                .toList();
+    }
+
+    @Transactional
+    public void revoke(String email, Long id) {
+        ApiKey apiKey = apiKeyRepository.findByIdAndUserEmail(id, email)
+                .orElseThrow(() -> new ApiKeyNotFoundException(id));
+        if (apiKey.getRevokedAt() == null) {
+            Instant now = Instant.now();
+            apiKey.setRevokedAt(now);
+            apiKey.setUpdatedAt(now);
+            log.info("Revoked API key {} ({}) of {}", apiKey.getId(), apiKey.getPrefix(), email);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<ApiKeyIndexEntry> indexEntries() {
+        return apiKeyRepository.findActiveIndexEntries(Instant.now());
+    }
+
+    /**
+     * Version of the served entries, derived from their content: it changes when a key is issued,
+     * revoked or expires, and also when an owner's role changes, which touches no key row.
+     */
+    public String indexVersion(List<ApiKeyIndexEntry> entries) {
+        StringBuilder content = new StringBuilder();
+        for (ApiKeyIndexEntry entry : entries) {
+            content.append(entry.hash()).append(' ')
+                    .append(entry.subject()).append(' ')
+                    .append(entry.role()).append(' ')
+                    .append(entry.expiresAt()).append('\n');
+        }
+        return hash(content.toString()).substring(0, INDEX_VERSION_LENGTH);
+    }
+
+    static String hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static ApiKeyResponse toResponse(ApiKey apiKey, String key) {
+        return ApiKeyResponse.builder()
+                .id(apiKey.getId())
+                .name(apiKey.getName())
+                .prefix(apiKey.getPrefix())
+                .createdAt(apiKey.getCreatedAt())
+                .expiresAt(apiKey.getExpiresAt())
+                .key(key)
+                .build();
+    }
+}
@@ -1,74 +1,65 @@
 package com.kozitskiy.authservice.service;
 
-import com.kozitskiy.authservice.client.UserClient;
-import com.kozitskiy.authservice.dto.CreateUserRequest;
+import com.kozitskiy.authservice.cache.RegisteredEmailFilter;
+import com.kozitskiy.authservice.cache.RevokedRefreshTokens;
+import com.kozitskiy.authservice.cache.UserDetailsCache;
 import com.kozitskiy.authservice.dto.JwtResponse;
 import com.kozitskiy.authservice.dto.LoginRequest;
 import com.kozitskiy.authservice.dto.RegisterRequest;
-import com.kozitskiy.authservice.entity.User;
-import com.kozitskiy.authservice.entity.UserRole;
+import com.kozitskiy.authservice.dto.RegistrationResponse;
+import com.kozitskiy.authservice.entity.RegistrationStatus;
 import com.kozitskiy.authservice.exception.EmailAlreadyExistsException;
-import com.kozitskiy.authservice.exception.RegistrationFailedException;
-import com.kozitskiy.authservice.repository.UserRepository;
+import com.kozitskiy.authservice.exception.InvalidRefreshTokenException;
 import com.kozitskiy.authservice.util.JwtUtil;
+import com.kozitskiy.jwt.JwtClaims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.UUID;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AuthService {
 
-    private final UserRepository userRepository;
+    private final RegisteredEmailFilter registeredEmailFilter;
+    private final RegistrationService registrationService;
+    private final RevokedRefreshTokens revokedRefreshTokens;
+    private final UserDetailsCache userDetailsCache;
     private final PasswordEncoder passwordEncoder;
-    private final UserClient userClient;
     private final JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
 
+    private static final String ROLE_PREFIX = "ROLE_";
 
-    public void register(RegisterRequest request){
-        if (userRepository.existsByEmail(request.email())){
-            throw new EmailAlreadyExistsException("Email already in use: " + request.email());
-        }
-
-        User authUser = new User();
-        authUser.setEmail(request.email());
-        authUser.setPassword(passwordEncoder.encode(request.password()));
-        authUser.setRole(UserRole.USER);
-
-        User savedUser = userRepository.save(authUser);
-
-        try {
-            CreateUserRequest userRequest = CreateUserRequest.builder()
-                    .name(request.name())
-                    .surname(request.surname())
-                    .birthDate(request.birthDate())
-                    .email(request.email())
-                    .build();
-
-            userClient.createUser(userRequest);
-
-            log.info("User registered successfully: {}", savedUser.getEmail());
-        }catch (Exception e){
-
-            log.error("Error creating user profile in User-Service. Rolling back Auth User id: {}", savedUser.getId());
-            userRepository.deleteById(savedUser.getId());
-            throw new RegistrationFailedException("Failed to create user profile. Registration rolled back.", e);
-        }
 
+    // Checked before hashing so a taken email costs no BCrypt; checked again in the transaction
+    public RegistrationResponse register(RegisterRequest request){
+        registeredEmailFilter.find(request.email())
+                .filter(user -> user.getRegistrationStatus() != RegistrationStatus.FAILED)
+                .ifPresent(user -> {
+                    throw new EmailAlreadyExistsException("Email already in use: " + request.email());
+                });
 
+        return registrationService.register(request, passwordEncoder.encode(request.password()));
     }
 
     public JwtResponse login(LoginRequest request){
-        authenticationManager.authenticate(
+        Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(request.email(), request.password())
         );
 
-        String accessToken = jwtUtil.generateAccessToken(request.email());
+        String accessToken = jwtUtil.generateAccessToken(request.email(), role(authentication.getAuthorities()));
         String refreshToken = jwtUtil.generateRefreshToken(request.email());
 
         return JwtResponse.builder()
@@ -77,24 +68,54 @@ public class AuthService {
                 .build();
     }
 
+    // Refresh tokens are single-use: each refresh revokes the presented token and issues a new one.
+    // The user is checked first, so a failed lookup leaves the token usable for a retry
     public JwtResponse refresh(String refreshToken){
-        if(!jwtUtil.validate(refreshToken)){
-            throw new RuntimeException("Invalid refresh token");
+        JwtClaims claims = jwtUtil.parse(refreshToken)
+                .orElseThrow(() -> new InvalidRefreshTokenException("Invalid refresh token"));
+        UUID tokenId = tokenId(claims);
+
+        // The current role, not the one at login, goes into the new access token; the cache is
+        // evicted when the user changes, so the common case reads nothing from the database
+        String email = claims.subject();
+        UserDetails user;
+        try {
+            user = userDetailsCache.load(email);
+        } catch (UsernameNotFoundException e){
+            throw new InvalidRefreshTokenException("Invalid refresh token");
         }
-
-        String email = jwtUtil.getEmailFromToken(refreshToken);
-
-        if (!userRepository.existsByEmail(email)){
-            throw new RuntimeException("User not found");
+        if (!user.isEnabled()){
+            throw new DisabledException("Registration was not completed");
         }
 
-        String newAccessToken = jwtUtil.generateAccessToken(email);
+        if (!revokedRefreshTokens.revoke(tokenId, claims.expiresAt())){
+            throw new InvalidRefreshTokenException("Refresh token has already been used");
+        }
 
         return JwtResponse.builder()
-                .accessToken(newAccessToken)
-                .refreshToken(refreshToken)
+                .accessToken(jwtUtil.generateAccessToken(email, role(user.getAuthorities())))
+                .refreshToken(jwtUtil.generateRefreshToken(email))
                 .build();
     }
 
+    // Tokens issued before rotation carry no jti and could never be revoked, so they are refused
+    private static UUID tokenId(JwtClaims claims){
+        if (claims.tokenId() == null){
+            throw new InvalidRefreshTokenException("Invalid refresh token");
+        }
+        try {
+            return UUID.fromString(claims.tokenId());
+        } catch (IllegalArgumentException e){
+            throw new InvalidRefreshTokenException("Invalid refresh token");
+        }
+    }
 
+    private static String role(Collection<? extends GrantedAuthority> authorities){
+        return authorities.stream()
+                .map(GrantedAuthority::getAuthority)
+                .filter(authority -> authority.startsWith(ROLE_PREFIX))
+                .map(authority -> authority.substring(ROLE_PREFIX.length()))
+                .findFirst()
+                .orElse(null);
+    }
 }
@@ -0,0 +1,41 @@
+package com.kozitskiy.authservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kozitskiy.authservice.entity.OutboxEvent;
+import com.kozitskiy.authservice.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    // Only meaningful as part of the caller's transaction: the event commits or rolls back with its change
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String topic, String key, Object payload) {
+        OutboxEvent event = OutboxEvent.builder()
+                .topic(topic)
+                .messageKey(key)
+                .payloadType(payload.getClass().getName())
+                .payload(write(payload))
+                .createdAt(Instant.now())
+                .build();
+        outboxEventRepository.save(event);
+    }
+
+    private String write(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize outbox payload " + payload.getClass().getName(), e);
+        }
+    }
+}
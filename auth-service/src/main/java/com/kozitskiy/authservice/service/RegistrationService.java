@@ -0,0 +1,110 @@
+package com.kozitskiy.authservice.service;
+
+import com.kozitskiy.authservice.dto.RegisterRequest;
+import com.kozitskiy.authservice.dto.RegistrationResponse;
+import com.kozitskiy.authservice.entity.RegistrationStatus;
+import com.kozitskiy.authservice.entity.User;
+import com.kozitskiy.authservice.entity.UserRole;
+import com.kozitskiy.authservice.exception.EmailAlreadyExistsException;
+import com.kozitskiy.authservice.exception.RegistrationNotFoundException;
+import com.kozitskiy.authservice.repository.UserRepository;
+import com.kozitskiy.dto.KafkaTopics;
+import com.kozitskiy.dto.UserProfileResultEvent;
+import com.kozitskiy.dto.UserRegisteredEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+/**
+ * Registration as a two-step process: the auth user and a {@link UserRegisteredEvent} are stored
+ * together, user-service creates the profile from the event, and its {@link UserProfileResultEvent}
+ * completes or fails the registration.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RegistrationService {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final UserRepository userRepository;
+    private final OutboxService outboxService;
+
+    @Transactional
+    public RegistrationResponse register(RegisterRequest request, String encodedPassword){
+        userRepository.findUserByEmail(request.email()).ifPresent(existing -> {
+            if (existing.getRegistrationStatus() != RegistrationStatus.FAILED){
+                throw new EmailAlreadyExistsException("Email already in use: " + request.email());
+            }
+            // A failed registration does not keep the email from being registered again
+            userRepository.delete(existing);
+            userRepository.flush();
+        });
+
+        User authUser = new User();
+        authUser.setEmail(request.email());
+        authUser.setPassword(encodedPassword);
+        authUser.setRole(UserRole.USER);
+        authUser.setRegistrationId(UUID.randomUUID());
+        authUser.setRegistrationStatus(RegistrationStatus.PENDING);
+        User savedUser = userRepository.save(authUser);
+
+        outboxService.append(KafkaTopics.USER_REGISTERED, request.email(), UserRegisteredEvent.builder()
+                .registrationId(savedUser.getRegistrationId())
+                .email(request.email())
+                .name(request.name())
+                .surname(request.surname())
+                .birthDate(request.birthDate())
+                .build());
+
+        log.info("Registration {} accepted for user id: {}", savedUser.getRegistrationId(), savedUser.getId());
+        return toResponse(savedUser);
+    }
+
+    @Transactional(readOnly = true)
+    public RegistrationResponse status(UUID registrationId){
+        return userRepository.findByRegistrationId(registrationId)
+                .map(RegistrationService::toResponse)
+                .orElseThrow(() -> new RegistrationNotFoundException(registrationId));
+    }
+
+    // Results can be redelivered; only the first one for a pending registration counts
+    @Transactional
+    public void complete(UserProfileResultEvent result){
+        User user = userRepository.findByRegistrationId(result.registrationId()).orElse(null);
+        if (user == null){
+            log.warn("Profile result for unknown registration {}", result.registrationId());
+            return;
+        }
+        if (user.getRegistrationStatus() != RegistrationStatus.PENDING){
+            return;
+        }
+
+        if ("SUCCESS".equals(result.status())){
+            user.setRegistrationStatus(RegistrationStatus.COMPLETED);
+            log.info("Registration {} completed, profile id: {}", result.registrationId(), result.userId());
+        } else {
+            user.setRegistrationStatus(RegistrationStatus.FAILED);
+            user.setRegistrationError(truncate(result.reason()));
+            log.warn("Registration {} failed: {}", result.registrationId(), result.reason());
+        }
+    }
+
+    private static RegistrationResponse toResponse(User user){
+        return RegistrationResponse.builder()
+                .registrationId(user.getRegistrationId())
+                .status(user.getRegistrationStatus())
+                .error(user.getRegistrationError())
+                .build();
+    }
+
+    private static String truncate(String reason){
+        if (reason == null){
+            return "Profile could not be created";
+        }
+        return reason.length() <= MAX_ERROR_LENGTH ? reason : reason.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -1,23 +1,30 @@
 package com.kozitskiy.authservice.service;
 
+import com.kozitskiy.authservice.entity.RegistrationStatus;
 import com.kozitskiy.authservice.entity.User;
 import com.kozitskiy.authservice.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
 import java.util.List;
 
 @Service
 @RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+@Slf4j
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository userRepository;
 
+    // Only a COMPLETED registration has a profile in user-service; PENDING and FAILED users are
+    // disabled, so they can neither log in nor refresh until the profile exists
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         User user = userRepository.findUserByEmail(email)
@@ -30,6 +37,22 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                 .withUsername(user.getEmail())
                 .password(user.getPassword())
                 .authorities(authorities)
+                .disabled(user.getRegistrationStatus() != RegistrationStatus.COMPLETED)
+                .build();
+    }
+
+    // Called after a successful login whose stored hash CostAwareBCryptPasswordEncoder wants rehashed
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findUserByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + userDetails.getUsername()));
+        user.setPassword(newPassword);
+        log.debug("Rehashed password of user id: {}", user.getId());
+
+        return org.springframework.security.core.userdetails.User
+                .withUserDetails(userDetails)
+                .password(newPassword)
                 .build();
     }
 }
@@ -0,0 +1,47 @@
+package com.kozitskiy.authservice.util;
+
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.time.Duration;
+
+/**
+ * Picks the BCrypt cost for this hardware: times a hash at the lowest allowed cost, then takes
+ * the highest cost whose extrapolated time, doubling per step, stays within the budget. Verifying
+ * a password costs the same as hashing it, so the budget is the verify time a login pays.
+ */
+public final class BCryptCostCalibration {
+
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 5;
+
+    private BCryptCostCalibration() {
+    }
+
+    public static int select(Duration target, int minCost, int maxCost) {
+        long nanos = measure(minCost);
+        int cost = minCost;
+        while (cost < maxCost && nanos * 2 <= target.toNanos()) {
+            nanos *= 2;
+            cost++;
+        }
+        return cost;
+    }
+
+    /**
+     * Fastest of a few hashes at the given cost, in nanoseconds; the fastest is the least disturbed
+     * by whatever else is starting up at the same time.
+     */
+    public static long measure(int cost) {
+        String salt = BCrypt.gensalt(cost);
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            BCrypt.hashpw("calibration", salt);
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
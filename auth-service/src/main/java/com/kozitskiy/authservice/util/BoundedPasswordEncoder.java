@@ -0,0 +1,134 @@
+package com.kozitskiy.authservice.util;
+
+import com.kozitskiy.authservice.config.PasswordHashingProperties;
+import com.kozitskiy.authservice.exception.PasswordHashingUnavailableException;
+import com.kozitskiy.deadline.Deadline;
+import com.kozitskiy.deadline.DeadlineExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs a CPU-heavy {@link PasswordEncoder} on its own pool, sized to the processors, so a burst
+ * of logins or registrations cannot occupy every request thread with hashing. The queue is
+ * bounded: once it is full, and when a queued hash outlives the wait limit, the caller gets a
+ * {@link PasswordHashingUnavailableException} (503) instead of piling up behind the others.
+ * <p>
+ * Request threads only block on the result; with virtual request threads that wait is cheap.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    private static final String POOL_NAME = "password-hashing";
+
+    private final PasswordEncoder delegate;
+    private final PasswordHashingProperties properties;
+    private final ThreadPoolExecutor pool;
+    private final ExecutorService executor;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate,
+                                  PasswordHashingProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.properties = properties;
+        int threads = properties.resolvedThreads();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                Thread.ofPlatform().name("password-hash-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        // executor.queued and executor.active report the backlog, executor.idle the time spent queued
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, POOL_NAME);
+        this.encodeTimer = hashTimer(meterRegistry, "encode");
+        this.matchesTimer = hashTimer(meterRegistry, "matches");
+        this.rejected = Counter.builder("auth.password.hash.rejected")
+                .description("Hash operations refused because the hashing pool was saturated")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return call(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return call(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    // A rehash is one more hash on a login that already passed; put it off while others are queued
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return pool.getQueue().isEmpty() && delegate.upgradeEncoding(encodedPassword);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private <T> T call(Timer timer, Callable<T> operation) {
+        Future<T> result;
+        try {
+            result = executor.submit(() -> timer.recordCallable(operation));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw unavailable();
+        }
+
+        long now = System.currentTimeMillis();
+        long waitMillis = properties.getMaxWait().toMillis();
+        Deadline deadline = Deadline.current().orElse(null);
+        boolean deadlineBound = deadline != null && deadline.remainingMillis(now) < waitMillis;
+        if (deadlineBound) {
+            waitMillis = Math.max(0, deadline.remainingMillis(now));
+        }
+
+        try {
+            return result.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(false);
+            if (deadlineBound) {
+                throw new DeadlineExceededException("Deadline passed while waiting for password hashing");
+            }
+            throw unavailable();
+        } catch (InterruptedException e) {
+            result.cancel(false);
+            Thread.currentThread().interrupt();
+            throw unavailable();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private PasswordHashingUnavailableException unavailable() {
+        return new PasswordHashingUnavailableException("Too many password operations in progress, please retry",
+                properties.getRetryAfter());
+    }
+
+    private static Timer hashTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("auth.password.hash")
+                .description("Time spent hashing or verifying a password, excluding the wait for a thread")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
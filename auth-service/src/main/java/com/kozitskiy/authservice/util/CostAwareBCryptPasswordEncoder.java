@@ -0,0 +1,44 @@
+package com.kozitskiy.authservice.util;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link BCryptPasswordEncoder} that asks for a rehash when a stored hash has a lower cost than
+ * this encoder's, and, when lowering is allowed, a higher one.
+ * <p>
+ * Only allow lowering for an explicitly configured cost. Calibrated costs differ between
+ * instances, and instances that rehash in both directions would keep rewriting each other's
+ * hashes and silently weaken them to the slowest instance's cost.
+ */
+public class CostAwareBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final Pattern BCRYPT = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+    private final int strength;
+    private final boolean lowerCost;
+
+    /**
+     * @param lowerCost whether hashes with a higher cost than {@code strength} are rehashed too
+     */
+    public CostAwareBCryptPasswordEncoder(int strength, boolean lowerCost) {
+        super(strength);
+        this.strength = strength;
+        this.lowerCost = lowerCost;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT.matcher(encodedPassword);
+        if (!matcher.matches()) {
+            return false;
+        }
+        int cost = Integer.parseInt(matcher.group(1));
+        return cost < strength || (lowerCost && cost > strength);
+    }
+}
@@ -1,57 +1,50 @@
 package com.kozitskiy.authservice.util;
 
-import com.auth0.jwt.JWT;
-import com.auth0.jwt.algorithms.Algorithm;
-import com.auth0.jwt.exceptions.JWTVerificationException;
-import jakarta.annotation.PostConstruct;
+import com.kozitskiy.jwt.JwtClaims;
+import com.kozitskiy.jwt.JwtCodec;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secretKey;
+    private final JwtCodec jwtCodec;
+    private final long accessExpire;
+    private final long refreshExpire;
 
-    @Value("${jwt.access-expire}")
-    private long accessExpire;
-
-    @Value("${jwt.refresh-expire}")
-    private long refreshExpire;
-
-    @PostConstruct
-    public void init() {
-        System.out.println("JWT Secret Key: " +
-                (secretKey != null ? "***" + secretKey.substring(secretKey.length() - 4) : "NULL"));
-        System.out.println("Access expire: " + accessExpire);
-        System.out.println("Refresh expire: " + refreshExpire);
+    public JwtUtil(JwtCodec jwtCodec,
+                   @Value("${jwt.access-expire}") long accessExpire,
+                   @Value("${jwt.refresh-expire}") long refreshExpire) {
+        this.jwtCodec = jwtCodec;
+        this.accessExpire = accessExpire;
+        this.refreshExpire = refreshExpire;
     }
 
-    public String generateAccessToken(String email){
-        return JWT.create()
-                .withSubject(email)
-                .withExpiresAt(new Date(System.currentTimeMillis() + accessExpire))
-                .sign(Algorithm.HMAC256(secretKey));
+    // The role travels in the access token so requests can be authenticated from claims alone
+    public String generateAccessToken(String email, String role){
+        return generate(email, role, null, accessExpire);
     }
 
+    // A fresh jti per token, so each refresh token can be revoked on its own once used
     public String generateRefreshToken(String email){
-        return JWT.create()
-                .withSubject(email)
-                .withExpiresAt(new Date(System.currentTimeMillis() + refreshExpire))
-                .sign(Algorithm.HMAC256(secretKey));
+        return generate(email, null, UUID.randomUUID().toString(), refreshExpire);
     }
 
+    // Verified and parsed once; callers read the subject from the result instead of decoding again
+    public Optional<JwtClaims> parse(String token){
+        return jwtCodec.verify(token, System.currentTimeMillis() / 1000);
+    }
+
+    // Only access tokens authenticate requests; a refresh token is valid solely at /auth/refresh
     public boolean validate(String token){
-        try {
-            JWT.require(Algorithm.HMAC256(secretKey)).build().verify(token);
-            return true;
-        }catch (JWTVerificationException e){
-            return false;
-        }
+        return parse(token).filter(JwtClaims::isAccessToken).isPresent();
     }
 
-    public String getEmailFromToken(String token){
-        return JWT.decode(token).getSubject();
-    }}
+    private String generate(String email, String role, String tokenId, long expireMillis){
+        long now = System.currentTimeMillis() / 1000;
+        return jwtCodec.sign(new JwtClaims(email, role, tokenId, now, now + expireMillis / 1000));
+    }
+}
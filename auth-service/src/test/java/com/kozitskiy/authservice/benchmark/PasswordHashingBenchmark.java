@@ -0,0 +1,94 @@
+package com.kozitskiy.authservice.benchmark;
+
+import com.kozitskiy.authservice.config.PasswordHashingProperties;
+import com.kozitskiy.authservice.util.BCryptCostCalibration;
+import com.kozitskiy.authservice.util.BoundedPasswordEncoder;
+import com.kozitskiy.authservice.util.CostAwareBCryptPasswordEncoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Password verifications per second, the CPU part of a login, at each BCrypt cost, with as many
+ * concurrent callers as processors: once through the bounded hashing pool the service uses and
+ * once on the calling threads, as before the pool existed.
+ * <p>
+ * {@link #main} also prints the cost {@link BCryptCostCalibration} selects on this machine for
+ * the default verify budget. Run with: {@code mvn -pl auth-service test-compile exec:exec
+ * -Dexec.classpathScope=test -Dexec.executable=java
+ * "-Dexec.args=-cp %classpath com.kozitskiy.authservice.benchmark.PasswordHashingBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(Threads.MAX)
+@Fork(1)
+public class PasswordHashingBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"10", "11", "12", "13"})
+    public int cost;
+
+    private CostAwareBCryptPasswordEncoder bcrypt;
+    private BoundedPasswordEncoder bounded;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        PasswordHashingProperties properties = new PasswordHashingProperties();
+        properties.setQueueCapacity(1024);
+        properties.setMaxWait(Duration.ofMinutes(1));
+
+        bcrypt = new CostAwareBCryptPasswordEncoder(cost, true);
+        bounded = new BoundedPasswordEncoder(bcrypt, properties, new SimpleMeterRegistry());
+        hash = bcrypt.encode(PASSWORD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        bounded.close();
+    }
+
+    @Benchmark
+    public boolean verifyOnPool() {
+        return bounded.matches(PASSWORD, hash);
+    }
+
+    @Benchmark
+    public boolean verifyOnCaller() {
+        return bcrypt.matches(PASSWORD, hash);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        PasswordHashingProperties defaults = new PasswordHashingProperties();
+        System.out.printf("Calibrated cost for a %d ms verify budget: %d%n",
+                defaults.getTargetVerifyTime().toMillis(),
+                BCryptCostCalibration.select(defaults.getTargetVerifyTime(),
+                        defaults.getMinStrength(), defaults.getMaxStrength()));
+
+        new Runner(new OptionsBuilder()
+                .include(PasswordHashingBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,87 @@
+package com.kozitskiy.authservice.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpiringLongSetTest {
+
+    // Keys of this form share segment 0 and home slot 0, so they form one probe run
+    private static final long A = 1L << 40;
+    private static final long B = 2L << 40;
+    private static final long C = 3L << 40;
+    // Segment 0, home slot 1
+    private static final long D = 1L;
+
+    private final ExpiringLongSet set = new ExpiringLongSet();
+
+    @Test
+    void add_ShouldKeepTheFirstExpiryOfADuplicate() {
+        assertThat(set.add(A, 100)).isTrue();
+        assertThat(set.add(A, 200)).isFalse();
+
+        assertThat(set.removeIfExpired(A, 150)).isTrue();
+        assertThat(set.contains(A)).isFalse();
+        assertThat(set.size()).isZero();
+    }
+
+    @Test
+    void add_ShouldStoreKeyZeroAsOne() {
+        set.add(0, 100);
+
+        assertThat(set.contains(0)).isTrue();
+        assertThat(set.contains(1)).isTrue();
+        assertThat(set.add(1, 100)).isFalse();
+    }
+
+    @Test
+    void removeIfExpired_ShouldKeepKeysThatHaveNotExpired() {
+        set.add(A, 100);
+
+        assertThat(set.removeIfExpired(A, 99)).isFalse();
+        assertThat(set.contains(A)).isTrue();
+        assertThat(set.removeIfExpired(B, 99)).isTrue();
+    }
+
+    @Test
+    void removeIfExpired_ShouldShiftTheRestOfTheProbeRunBack() {
+        set.add(A, 100);
+        set.add(B, 200);
+        set.add(C, 200);
+
+        set.removeIfExpired(A, 100);
+
+        assertThat(set.contains(A)).isFalse();
+        assertThat(set.contains(B)).isTrue();
+        assertThat(set.contains(C)).isTrue();
+        assertThat(set.size()).isEqualTo(2);
+    }
+
+    @Test
+    void removeIfExpired_ShouldNotShiftKeysAboveTheirHomeSlot() {
+        set.add(A, 100);
+        set.add(D, 200);
+        set.add(B, 200);
+
+        set.removeIfExpired(A, 100);
+        set.removeIfExpired(D, 200);
+
+        // B moved into A's slot; D stayed in its home slot and its removal leaves B reachable
+        assertThat(set.contains(B)).isTrue();
+        assertThat(set.contains(D)).isFalse();
+        assertThat(set.size()).isEqualTo(1);
+    }
+
+    @Test
+    void add_ShouldGrowASegmentPastHalfFull() {
+        long before = set.memoryBytes();
+
+        LongStream.rangeClosed(1, 40).forEach(i -> set.add(i << 40, 100));
+
+        assertThat(set.memoryBytes()).isEqualTo(before + 64 * 2 * Long.BYTES);
+        assertThat(LongStream.rangeClosed(1, 40)).allMatch(i -> set.contains(i << 40));
+        assertThat(set.size()).isEqualTo(40);
+    }
+}
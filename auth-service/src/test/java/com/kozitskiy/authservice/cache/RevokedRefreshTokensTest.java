@@ -0,0 +1,135 @@
+package com.kozitskiy.authservice.cache;
+
+import com.kozitskiy.authservice.entity.RevokedRefreshToken;
+import com.kozitskiy.authservice.repository.RevokedRefreshTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RevokedRefreshTokensTest {
+
+    private final RevokedRefreshTokenRepository repository = mock(RevokedRefreshTokenRepository.class);
+    private final long expiresAt = Instant.now().plus(Duration.ofDays(7)).getEpochSecond();
+
+    private SimpleMeterRegistry meterRegistry;
+    private RevokedRefreshTokens tokens;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tokens = new RevokedRefreshTokens(repository, meterRegistry,
+                Duration.ofMinutes(1), 1024, 500, Duration.ofSeconds(2));
+    }
+
+    @Test
+    void revoke_ShouldRefuseASecondUse() {
+        tokens.load();
+        UUID jti = UUID.randomUUID();
+
+        assertThat(tokens.revoke(jti, expiresAt)).isTrue();
+        assertThat(tokens.revoke(jti, expiresAt)).isFalse();
+
+        assertThat(rotations("rotated")).isEqualTo(1);
+        assertThat(rotations("reused")).isEqualTo(1);
+        verify(repository, never()).exists(any());
+    }
+
+    @Test
+    void revoke_ShouldAskTheDatabaseUntilLoaded() {
+        UUID jti = UUID.randomUUID();
+        when(repository.exists(jti)).thenReturn(true);
+
+        assertThat(tokens.revoke(jti, expiresAt)).isFalse();
+        assertThat(tokens.revoke(UUID.randomUUID(), expiresAt)).isTrue();
+    }
+
+    @Test
+    void sync_ShouldWriteRevocationsAndReadOtherInstances() {
+        tokens.load();
+        UUID local = UUID.randomUUID();
+        UUID remote = UUID.randomUUID();
+        tokens.revoke(local, expiresAt);
+        doAnswer(invocation -> {
+            Consumer<RevokedRefreshToken> action = invocation.getArgument(2);
+            action.accept(new RevokedRefreshToken(remote, Instant.ofEpochSecond(expiresAt), Instant.now()));
+            return null;
+        }).when(repository).forEachRevokedAfter(any(), any(), any());
+
+        tokens.sync();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<RevokedRefreshToken>> written = ArgumentCaptor.forClass(List.class);
+        verify(repository).insertAll(written.capture(), eq(500));
+        assertThat(written.getValue()).extracting(RevokedRefreshToken::jti).containsExactly(local);
+        assertThat(tokens.revoke(remote, expiresAt)).isFalse();
+    }
+
+    @Test
+    void sync_ShouldRetryRevocationsThatCouldNotBeWritten() {
+        tokens.load();
+        tokens.revoke(UUID.randomUUID(), expiresAt);
+        doThrow(new DataAccessResourceFailureException("database is down"))
+                .doNothing()
+                .when(repository).insertAll(any(), anyInt());
+
+        tokens.sync();
+        assertThat(pending()).isEqualTo(1);
+
+        tokens.sync();
+        assertThat(pending()).isZero();
+    }
+
+    @Test
+    void sync_ShouldReadFromTheNewestRevocationTheDatabaseStamped() {
+        Instant stampedByDatabase = Instant.parse("2026-01-01T00:00:00Z");
+        doAnswer(invocation -> {
+            Consumer<RevokedRefreshToken> action = invocation.getArgument(2);
+            action.accept(new RevokedRefreshToken(UUID.randomUUID(), Instant.ofEpochSecond(expiresAt), stampedByDatabase));
+            return null;
+        }).doNothing().when(repository).forEachRevokedAfter(any(), any(), any());
+
+        tokens.load();
+        tokens.sync();
+        tokens.sync();
+
+        ArgumentCaptor<Instant> revokedAfter = ArgumentCaptor.forClass(Instant.class);
+        verify(repository, times(3)).forEachRevokedAfter(revokedAfter.capture(), any(), any());
+        Instant withOverlap = stampedByDatabase.minus(Duration.ofSeconds(2));
+        assertThat(revokedAfter.getAllValues()).containsExactly(Instant.EPOCH.minus(Duration.ofSeconds(2)), withOverlap, withOverlap);
+    }
+
+    @Test
+    void prune_ShouldDeleteExpiredRows() {
+        tokens.prune();
+
+        verify(repository).deleteExpired(any());
+    }
+
+    private double rotations(String outcome) {
+        return meterRegistry.get("auth.refresh-tokens.rotations").tag("outcome", outcome).counter().count();
+    }
+
+    private double pending() {
+        return meterRegistry.get("auth.refresh-tokens.revoked.pending").gauge().value();
+    }
+}
@@ -0,0 +1,56 @@
+package com.kozitskiy.authservice.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void mightContain_ShouldNeverMissAnAddedString() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+
+        IntStream.range(0, 10_000).forEach(i -> filter.add("user" + i + "@mail.com"));
+
+        assertThat(IntStream.range(0, 10_000))
+                .allMatch(i -> filter.mightContain("user" + i + "@mail.com"));
+        assertThat(filter.size()).isLessThanOrEqualTo(10_000);
+    }
+
+    @Test
+    void mightContain_ShouldStayUnderTheTargetRateAsTheFilterGrows() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+        IntStream.range(0, 50_000).forEach(i -> filter.add("user" + i + "@mail.com"));
+
+        long falsePositives = IntStream.range(0, 100_000)
+                .filter(i -> filter.mightContain("other" + i + "@mail.com"))
+                .count();
+
+        assertThat(falsePositives / 100_000.0).isLessThan(0.01);
+        assertThat(filter.expectedFalsePositiveRate()).isLessThan(0.01);
+    }
+
+    @Test
+    void add_ShouldGrowByAddingSlices() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+        long firstSlice = filter.memoryBytes();
+
+        IntStream.range(0, 1_500).forEach(i -> filter.add("user" + i + "@mail.com"));
+
+        // A second slice twice the capacity at half the rate is more than twice the size
+        assertThat(filter.memoryBytes()).isGreaterThan(3 * firstSlice);
+    }
+
+    @Test
+    void add_ShouldNotCountAStringTwice() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+
+        filter.add("alice@mail.com");
+        filter.add("alice@mail.com");
+
+        assertThat(filter.size()).isEqualTo(1);
+        assertThat(filter.mightContain("bob@mail.com")).isFalse();
+    }
+}
@@ -0,0 +1,70 @@
+package com.kozitskiy.authservice.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    private static final Duration TICK = Duration.ofSeconds(1);
+
+    // Four buckets, so a deadline 4 s ahead shares a bucket with one due now
+    private final TimingWheel wheel = new TimingWheel(TICK, 4, 0);
+    private final Map<Long, Long> deadlines = new HashMap<>();
+    private final List<Long> visited = new ArrayList<>();
+
+    @Test
+    void advance_ShouldOnlyVisitTicksThatHaveFullyElapsed() {
+        schedule(1, 2_500);
+
+        assertThat(wheel.advance(2_999, key -> due(key, 2_999))).isZero();
+        assertThat(visited).isEmpty();
+        assertThat(wheel.advance(3_000, key -> due(key, 3_000))).isEqualTo(1);
+        assertThat(visited).containsExactly(1L);
+    }
+
+    @Test
+    void advance_ShouldKeepKeysDueInALaterRound() {
+        schedule(1, 2_500);
+        schedule(2, 6_500);
+
+        assertThat(wheel.advance(3_000, key -> due(key, 3_000))).isEqualTo(1);
+        assertThat(wheel.advance(7_000, key -> due(key, 7_000))).isEqualTo(1);
+        assertThat(visited).containsExactly(1L, 2L, 2L);
+    }
+
+    @Test
+    void schedule_ShouldFileAPastDeadlineUnderTheNextTick() {
+        wheel.advance(3_000, key -> due(key, 3_000));
+
+        schedule(1, 500);
+
+        assertThat(wheel.advance(4_000, key -> due(key, 4_000))).isEqualTo(1);
+    }
+
+    @Test
+    void advance_ShouldVisitEachBucketOnceAfterALongPause() {
+        for (long key = 1; key <= 4; key++) {
+            schedule(key, key * 1_000);
+        }
+
+        assertThat(wheel.advance(100_000, key -> due(key, 100_000))).isEqualTo(4);
+        assertThat(visited).hasSize(4);
+    }
+
+    private void schedule(long key, long deadlineMillis) {
+        deadlines.put(key, deadlineMillis);
+        wheel.schedule(key, deadlineMillis);
+    }
+
+    private boolean due(long key, long nowMillis) {
+        visited.add(key);
+        return deadlines.get(key) <= nowMillis;
+    }
+}
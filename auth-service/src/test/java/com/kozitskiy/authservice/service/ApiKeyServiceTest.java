@@ -0,0 +1,55 @@
+package com.kozitskiy.authservice.service;
+
+import com.kozitskiy.authservice.dto.ApiKeyIndexEntry;
+import com.kozitskiy.authservice.entity.UserRole;
+import com.kozitskiy.authservice.repository.ApiKeyRepository;
+import com.kozitskiy.authservice.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class ApiKeyServiceTest {
+
+    private static final Instant EXPIRES_AT = Instant.parse("2027-01-01T00:00:00Z");
+
+    @Mock
+    private ApiKeyRepository apiKeyRepository;
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private ApiKeyService apiKeyService;
+
+    @Test
+    void indexVersion_ShouldBeStableForTheSameEntries() {
+        assertThat(apiKeyService.indexVersion(List.of(entry("a", UserRole.USER))))
+                .isEqualTo(apiKeyService.indexVersion(List.of(entry("a", UserRole.USER))));
+    }
+
+    @Test
+    void indexVersion_ShouldChangeWhenOwnerRoleChanges() {
+        assertThat(apiKeyService.indexVersion(List.of(entry("a", UserRole.USER))))
+                .isNotEqualTo(apiKeyService.indexVersion(List.of(entry("a", UserRole.ADMIN))));
+    }
+
+    @Test
+    void indexVersion_ShouldChangeWhenKeyIsAddedOrRemoved() {
+        String one = apiKeyService.indexVersion(List.of(entry("a", UserRole.USER)));
+
+        assertThat(apiKeyService.indexVersion(List.of(entry("a", UserRole.USER), entry("b", UserRole.USER))))
+                .isNotEqualTo(one);
+        assertThat(apiKeyService.indexVersion(List.of())).isNotEqualTo(one);
+    }
+
+    private static ApiKeyIndexEntry entry(String hash, UserRole role) {
+        return new ApiKeyIndexEntry(hash, "john@example.com", role, EXPIRES_AT);
+    }
+}
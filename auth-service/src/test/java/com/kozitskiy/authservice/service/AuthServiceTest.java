@@ -0,0 +1,116 @@
+package com.kozitskiy.authservice.service;
+
+import com.kozitskiy.authservice.cache.RevokedRefreshTokens;
+import com.kozitskiy.authservice.cache.UserDetailsCache;
+import com.kozitskiy.authservice.dto.JwtResponse;
+import com.kozitskiy.authservice.exception.InvalidRefreshTokenException;
+import com.kozitskiy.authservice.util.JwtUtil;
+import com.kozitskiy.jwt.JwtClaims;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuthServiceTest {
+
+    private static final String EMAIL = "john@example.com";
+    private static final String REFRESH_TOKEN = "refresh-token";
+    private static final UUID TOKEN_ID = UUID.randomUUID();
+    private static final JwtClaims REFRESH_CLAIMS = new JwtClaims(EMAIL, null, TOKEN_ID.toString(), 0, 4_000_000_000L);
+
+    @Mock
+    private RevokedRefreshTokens revokedRefreshTokens;
+    @Mock
+    private UserDetailsCache userDetailsCache;
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @InjectMocks
+    private AuthService authService;
+
+    @Test
+    @DisplayName("Should revoke the presented token and issue a new pair with the current role")
+    void refresh_ShouldRotateToken() {
+        when(jwtUtil.parse(REFRESH_TOKEN)).thenReturn(Optional.of(REFRESH_CLAIMS));
+        when(userDetailsCache.load(EMAIL)).thenReturn(user(true));
+        when(revokedRefreshTokens.revoke(TOKEN_ID, REFRESH_CLAIMS.expiresAt())).thenReturn(true);
+        when(jwtUtil.generateAccessToken(EMAIL, "ADMIN")).thenReturn("access");
+        when(jwtUtil.generateRefreshToken(EMAIL)).thenReturn("refresh");
+
+        JwtResponse response = authService.refresh(REFRESH_TOKEN);
+
+        assertThat(response.accessToken()).isEqualTo("access");
+        assertThat(response.refreshToken()).isEqualTo("refresh");
+    }
+
+    @Test
+    @DisplayName("Should leave the token usable when the user lookup fails transiently")
+    void refresh_WhenUserLookupFails_ShouldNotRevokeToken() {
+        when(jwtUtil.parse(REFRESH_TOKEN)).thenReturn(Optional.of(REFRESH_CLAIMS));
+        when(userDetailsCache.load(EMAIL)).thenThrow(new QueryTimeoutException("database unavailable"));
+
+        assertThatThrownBy(() -> authService.refresh(REFRESH_TOKEN))
+                .isInstanceOf(QueryTimeoutException.class);
+
+        verify(revokedRefreshTokens, never()).revoke(any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should refuse a token whose user no longer exists without revoking it")
+    void refresh_WhenUserIsGone_ShouldThrowInvalidRefreshToken() {
+        when(jwtUtil.parse(REFRESH_TOKEN)).thenReturn(Optional.of(REFRESH_CLAIMS));
+        when(userDetailsCache.load(EMAIL)).thenThrow(new UsernameNotFoundException(EMAIL));
+
+        assertThatThrownBy(() -> authService.refresh(REFRESH_TOKEN))
+                .isInstanceOf(InvalidRefreshTokenException.class);
+
+        verify(revokedRefreshTokens, never()).revoke(any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should refuse a disabled user")
+    void refresh_WhenUserIsDisabled_ShouldThrowDisabled() {
+        when(jwtUtil.parse(REFRESH_TOKEN)).thenReturn(Optional.of(REFRESH_CLAIMS));
+        when(userDetailsCache.load(EMAIL)).thenReturn(user(false));
+
+        assertThatThrownBy(() -> authService.refresh(REFRESH_TOKEN))
+                .isInstanceOf(DisabledException.class);
+
+        verify(revokedRefreshTokens, never()).revoke(any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should refuse a token that has already been used")
+    void refresh_WhenTokenAlreadyRevoked_ShouldThrowInvalidRefreshToken() {
+        when(jwtUtil.parse(REFRESH_TOKEN)).thenReturn(Optional.of(REFRESH_CLAIMS));
+        when(userDetailsCache.load(EMAIL)).thenReturn(user(true));
+        when(revokedRefreshTokens.revoke(TOKEN_ID, REFRESH_CLAIMS.expiresAt())).thenReturn(false);
+
+        assertThatThrownBy(() -> authService.refresh(REFRESH_TOKEN))
+                .isInstanceOf(InvalidRefreshTokenException.class)
+                .hasMessageContaining("already been used");
+
+        verify(jwtUtil, never()).generateRefreshToken(any());
+    }
+
+    private static UserDetails user(boolean enabled) {
+        return User.withUsername(EMAIL).password("hash").roles("ADMIN").disabled(!enabled).build();
+    }
+}
@@ -0,0 +1,45 @@
+package com.kozitskiy.authservice.service;
+
+import com.kozitskiy.authservice.entity.RegistrationStatus;
+import com.kozitskiy.authservice.entity.User;
+import com.kozitskiy.authservice.entity.UserRole;
+import com.kozitskiy.authservice.repository.UserRepository;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserDetailsServiceImplTest {
+
+    private static final String EMAIL = "john@example.com";
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private UserDetailsServiceImpl userDetailsService;
+
+    @ParameterizedTest
+    @EnumSource(RegistrationStatus.class)
+    void loadUserByUsername_ShouldEnableOnlyCompletedRegistrations(RegistrationStatus status) {
+        when(userRepository.findUserByEmail(EMAIL)).thenReturn(Optional.of(User.builder()
+                .email(EMAIL)
+                .password("hash")
+                .role(UserRole.USER)
+                .registrationStatus(status)
+                .build()));
+
+        UserDetails user = userDetailsService.loadUserByUsername(EMAIL);
+
+        assertThat(user.isEnabled()).isEqualTo(status == RegistrationStatus.COMPLETED);
+    }
+}
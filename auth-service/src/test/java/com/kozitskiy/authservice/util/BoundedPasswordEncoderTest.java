@@ -0,0 +1,167 @@
+package com.kozitskiy.authservice.util;
+
+import com.kozitskiy.authservice.config.PasswordHashingProperties;
+import com.kozitskiy.authservice.exception.GlobalExceptionHandler;
+import com.kozitskiy.authservice.exception.PasswordHashingUnavailableException;
+import com.kozitskiy.deadline.Deadline;
+import com.kozitskiy.deadline.DeadlineExceededException;
+import com.kozitskiy.deadline.DeadlineExceptionHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class BoundedPasswordEncoderTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PasswordHashingProperties properties = new PasswordHashingProperties();
+
+    private BoundedPasswordEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        properties.setThreads(1);
+        properties.setQueueCapacity(1);
+        properties.setMaxWait(Duration.ofSeconds(5));
+        properties.setRetryAfter(Duration.ofSeconds(2));
+        encoder = new BoundedPasswordEncoder(new SlowEncoder(), properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        encoder.close();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void encode_ShouldRejectOnceThePoolAndQueueAreFull() throws Exception {
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("second"));
+        awaitQueued();
+
+        assertThatThrownBy(() -> encoder.encode("third"))
+                .isInstanceOfSatisfying(PasswordHashingUnavailableException.class,
+                        e -> assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(2)));
+        assertThat(meterRegistry.get("auth.password.hash.rejected").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hashed:first");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("hashed:second");
+    }
+
+    @Test
+    void encode_ShouldGiveUpAfterTheWaitLimit() {
+        properties.setMaxWait(Duration.ofMillis(50));
+
+        assertThatThrownBy(() -> encoder.encode("first")).isInstanceOf(PasswordHashingUnavailableException.class);
+    }
+
+    @Test
+    void encode_ShouldGiveUpAtTheRequestDeadline() {
+        withDeadline(Duration.ofMillis(50));
+
+        assertThatThrownBy(() -> encoder.encode("first")).isInstanceOf(DeadlineExceededException.class);
+    }
+
+    @Test
+    void upgradeEncoding_ShouldWaitWhileHashesAreQueued() throws Exception {
+        assertThat(encoder.upgradeEncoding("stored")).isTrue();
+
+        CompletableFuture.runAsync(() -> encoder.encode("first"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture.runAsync(() -> encoder.encode("second"));
+        awaitQueued();
+
+        assertThat(encoder.upgradeEncoding("stored")).isFalse();
+    }
+
+    @Test
+    void rejections_ShouldBeAnsweredWith503AndDeadlinesWith504() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new HashingController(encoder))
+                .setControllerAdvice(new DeadlineExceptionHandler(), new GlobalExceptionHandler())
+                .build();
+
+        properties.setMaxWait(Duration.ofMillis(50));
+        mockMvc.perform(post("/hash"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+
+        properties.setMaxWait(Duration.ofSeconds(5));
+        mockMvc.perform(post("/hash").requestAttr(Deadline.REQUEST_ATTRIBUTE,
+                        new Deadline(System.currentTimeMillis() + 50)))
+                .andExpect(status().isGatewayTimeout())
+                .andExpect(jsonPath("$.error").value("Request deadline exceeded"));
+    }
+
+    // upgradeEncoding is refused while anything waits in the queue, so it doubles as a probe
+    private void awaitQueued() throws InterruptedException {
+        long giveUp = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (encoder.upgradeEncoding("stored") && System.nanoTime() < giveUp) {
+            Thread.sleep(5);
+        }
+    }
+
+    private void withDeadline(Duration remaining) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(Deadline.REQUEST_ATTRIBUTE, new Deadline(System.currentTimeMillis() + remaining.toMillis()));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private final class SlowEncoder implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "hashed:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            return true;
+        }
+    }
+
+    @RestController
+    private record HashingController(PasswordEncoder encoder) {
+
+        @PostMapping("/hash")
+        String hash() {
+            return encoder.encode("secret");
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.kozitskiy.authservice.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CostAwareBCryptPasswordEncoderTest {
+
+    private static final String COST_4 = new BCryptPasswordEncoder(4).encode("secret");
+    private static final String COST_5 = new BCryptPasswordEncoder(5).encode("secret");
+    private static final String COST_6 = new BCryptPasswordEncoder(6).encode("secret");
+
+    @Test
+    void upgradeEncoding_ShouldOnlyRaiseACalibratedCost() {
+        CostAwareBCryptPasswordEncoder encoder = new CostAwareBCryptPasswordEncoder(5, false);
+
+        assertThat(encoder.upgradeEncoding(COST_4)).isTrue();
+        assertThat(encoder.upgradeEncoding(COST_5)).isFalse();
+        assertThat(encoder.upgradeEncoding(COST_6)).isFalse();
+    }
+
+    @Test
+    void upgradeEncoding_ShouldLowerAConfiguredCost() {
+        CostAwareBCryptPasswordEncoder encoder = new CostAwareBCryptPasswordEncoder(5, true);
+
+        assertThat(encoder.upgradeEncoding(COST_4)).isTrue();
+        assertThat(encoder.upgradeEncoding(COST_5)).isFalse();
+        assertThat(encoder.upgradeEncoding(COST_6)).isTrue();
+    }
+
+    @Test
+    void upgradeEncoding_ShouldIgnoreHashesItCannotRead() {
+        CostAwareBCryptPasswordEncoder encoder = new CostAwareBCryptPasswordEncoder(5, true);
+
+        assertThat(encoder.upgradeEncoding(null)).isFalse();
+        assertThat(encoder.upgradeEncoding("{noop}secret")).isFalse();
+    }
+}
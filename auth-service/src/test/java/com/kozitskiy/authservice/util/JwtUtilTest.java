@@ -0,0 +1,27 @@
+package com.kozitskiy.authservice.util;
+
+import com.kozitskiy.jwt.JwtCodec;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtUtilTest {
+
+    private final JwtUtil jwtUtil = new JwtUtil(
+            new JwtCodec("test-secret-key-that-is-at-least-32-chars"), 3_600_000, 604_800_000);
+
+    @Test
+    void validate_ShouldAcceptAccessToken() {
+        assertThat(jwtUtil.validate(jwtUtil.generateAccessToken("john@example.com", "USER"))).isTrue();
+    }
+
+    @Test
+    void validate_ShouldRejectRefreshToken() {
+        assertThat(jwtUtil.validate(jwtUtil.generateRefreshToken("john@example.com"))).isFalse();
+    }
+
+    @Test
+    void validate_ShouldRejectMalformedToken() {
+        assertThat(jwtUtil.validate("not-a-jwt")).isFalse();
+    }
+}
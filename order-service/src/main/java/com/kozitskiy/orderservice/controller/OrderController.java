@@ -4,11 +4,14 @@ import com.kozitskiy.orderservice.dto.OrderCreateRequest;
 import com.kozitskiy.orderservice.dto.OrderResponse;
 import com.kozitskiy.orderservice.dto.OrderUpdateRequest;
 import com.kozitskiy.orderservice.service.OrderService;
+import com.kozitskiy.orderservice.stream.OrderStatusHub;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -17,6 +20,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class OrderController {
     private final OrderService orderService;
+    private final OrderStatusHub orderStatusHub;
 
     @PostMapping
     public ResponseEntity<OrderResponse> createOrder(@Valid @RequestBody OrderCreateRequest request){
@@ -29,6 +33,17 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getOrderById(id));
     }
 
+    // 204 tells a reconnecting EventSource that the order is final and to stop retrying
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamOrderStatus(
+            @PathVariable Long id,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId){
+        if (orderService.getOrderStatus(id).isTerminal() && lastEventId != null) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(orderStatusHub.subscribe(id, lastEventId, () -> orderService.getOrderStatus(id)));
+    }
+
     @GetMapping
     public ResponseEntity<List<OrderResponse>> getOrdersByIds(@RequestParam List<Long> ids){
         List<OrderResponse> responses = orderService.getOrdersByIds(ids);
@@ -40,6 +55,11 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getOrdersByStatuses(statuses));
     }
 
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<List<OrderResponse>> getOrdersByUserId(@PathVariable Long userId){
+        return ResponseEntity.ok(orderService.getOrdersByUserId(userId));
+    }
+
     @PatchMapping("/{id}")
     public ResponseEntity<OrderResponse> updateOrder(
             @PathVariable Long id,
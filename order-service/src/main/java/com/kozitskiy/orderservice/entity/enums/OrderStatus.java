@@ -6,5 +6,9 @@ public enum OrderStatus {
     SHIPPED,
     CANCELLED,
     PROCESSING,
-    COMPLETED
+    COMPLETED;
+
+    public boolean isTerminal() {
+        return this == COMPLETED || this == CANCELLED;
+    }
 }
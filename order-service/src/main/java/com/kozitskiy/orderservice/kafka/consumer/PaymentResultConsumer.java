@@ -4,8 +4,10 @@ import com.kozitskiy.dto.KafkaTopics;
 import com.kozitskiy.dto.PaymentProcessedEvent;
 import com.kozitskiy.orderservice.entity.enums.OrderStatus;
 import com.kozitskiy.orderservice.repository.OrderRepository;
+import com.kozitskiy.orderservice.stream.OrderStatusChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
@@ -15,6 +17,7 @@ import org.springframework.stereotype.Component;
 public class PaymentResultConsumer {
 
     private final OrderRepository orderRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @KafkaListener(topics = KafkaTopics.PAYMENT_RESULT, groupId = "order-service-group")
     public void handlePaymentResult(PaymentProcessedEvent event){
@@ -28,6 +31,7 @@ public class PaymentResultConsumer {
             }
 
             orderRepository.save(order);
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(order.getId(), order.getStatus()));
             log.info("Order {} status updated to {}", order.getId(), order.getStatus());
         });
     }
@@ -11,6 +11,7 @@ import org.springframework.stereotype.Repository;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
@@ -20,6 +21,12 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @EntityGraph(attributePaths = {"orderItems", "orderItems.item"})
     List<Order> findAllByIdIn(Collection<Long> ids);
 
+    @EntityGraph(attributePaths = {"orderItems", "orderItems.item"})
+    List<Order> findAllByUserIdOrderByCreationDateDesc(Long userId);
+
+    @Query("SELECT o.status FROM Order o WHERE o.id = :id")
+    Optional<OrderStatus> findStatusById(@Param("id") Long id);
+
     @Modifying
     @Query("UPDATE Order o SET o.status = :status WHERE o.id = :id")
     void updateStatus(@Param("id") Long id, @Param("status") OrderStatus status);
@@ -3,6 +3,7 @@ package com.kozitskiy.orderservice.service;
 import com.kozitskiy.orderservice.dto.OrderCreateRequest;
 import com.kozitskiy.orderservice.dto.OrderResponse;
 import com.kozitskiy.orderservice.dto.OrderUpdateRequest;
+import com.kozitskiy.orderservice.entity.enums.OrderStatus;
 
 import java.util.List;
 
@@ -11,10 +12,14 @@ public interface OrderService {
 
     OrderResponse getOrderById(Long id);
 
+    OrderStatus getOrderStatus(Long id);
+
     List<OrderResponse> getOrdersByIds(List<Long> ids);
 
     List<OrderResponse> getOrdersByStatuses(List<String> statuses);
 
+    List<OrderResponse> getOrdersByUserId(Long userId);
+
     OrderResponse updateOrder(Long id, OrderUpdateRequest request);
 
     void deleteOrder(Long id);
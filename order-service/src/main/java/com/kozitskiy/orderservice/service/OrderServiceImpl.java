@@ -16,8 +16,10 @@ import com.kozitskiy.orderservice.mapper.OrderItemMapper;
 import com.kozitskiy.orderservice.mapper.OrderMapper;
 import com.kozitskiy.orderservice.repository.ItemRepository;
 import com.kozitskiy.orderservice.repository.OrderRepository;
+import com.kozitskiy.orderservice.stream.OrderStatusChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -37,6 +39,7 @@ public class OrderServiceImpl implements OrderService {
     private final OrderItemMapper orderItemMapper;
     private final UserClient userClient;
     private final OrderEventProducer orderEventProducer;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -81,6 +84,12 @@ public class OrderServiceImpl implements OrderService {
         return enrichOrderWithUser(order);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public OrderStatus getOrderStatus(Long id) {
+        return orderRepository.findStatusById(id)
+                .orElseThrow(() -> new OrderNotFoundException("Order not found: " + id));
+    }
 
     @Override
     @Transactional(readOnly = true)
@@ -119,6 +128,21 @@ public class OrderServiceImpl implements OrderService {
                 .toList();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<OrderResponse> getOrdersByUserId(Long userId) {
+        List<Order> orders = orderRepository.findAllByUserIdOrderByCreationDateDesc(userId);
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+
+        // All orders belong to the same user, so it is fetched once instead of per order
+        UserDto user = fetchUser(orders.get(0).getUserEmail());
+        return orders.stream()
+                .map(order -> orderMapper.toDto(order).toBuilder().user(user).build())
+                .toList();
+    }
+
     @Override
     @Transactional
     public OrderResponse updateOrder(Long id, OrderUpdateRequest request) {
@@ -137,6 +161,7 @@ public class OrderServiceImpl implements OrderService {
         }
 
         Order saved = orderRepository.save(order);
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(saved.getId(), saved.getStatus()));
 
         return enrichOrderWithUser(saved);
     }
@@ -152,12 +177,16 @@ public class OrderServiceImpl implements OrderService {
 
     private OrderResponse enrichOrderWithUser(Order order) {
         OrderResponse response = orderMapper.toDto(order);
+        UserDto user = fetchUser(order.getUserEmail());
+        return user == null ? response : response.toBuilder().user(user).build();
+    }
+
+    private UserDto fetchUser(String email) {
         try {
-            UserDto user = userClient.getUserByEmail(order.getUserEmail());
-            return response.toBuilder().user(user).build();
+            return userClient.getUserByEmail(email);
         } catch (Exception e) {
-            log.warn("Failed to fetch user by email: {}, error: {}", order.getUserEmail(), e.getMessage());
-            return response;
+            log.warn("Failed to fetch user by email: {}, error: {}", email, e.getMessage());
+            return null;
         }
     }
 }
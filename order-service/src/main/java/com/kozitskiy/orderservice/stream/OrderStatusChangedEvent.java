@@ -0,0 +1,6 @@
+package com.kozitskiy.orderservice.stream;
+
+import com.kozitskiy.orderservice.entity.enums.OrderStatus;
+
+public record OrderStatusChangedEvent(Long orderId, OrderStatus status) {
+}
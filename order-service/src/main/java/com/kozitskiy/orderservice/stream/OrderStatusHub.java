@@ -0,0 +1,236 @@
+package com.kozitskiy.orderservice.stream;
+
+import com.kozitskiy.orderservice.entity.enums.OrderStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * In-process broadcast of order status transitions to Server-Sent Events subscribers.
+ * <p>
+ * Every subscriber is first sent the order's current status. Event ids are
+ * {@code <hub>:<sequence>}; a client reconnecting to the same instance with {@code Last-Event-ID}
+ * additionally gets the transitions it missed replayed from a short per-order history, and the
+ * current status is skipped when the replay already ended on it. Transitions are published after
+ * the changing transaction commits.
+ */
+@Slf4j
+@Component
+public class OrderStatusHub {
+
+    private static final String EVENT_NAME = "status";
+
+    private final String hubId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<Long, History> histories = new ConcurrentHashMap<>();
+    // One thread: transitions of an order reach its subscribers in commit order
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-status-hub");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Duration timeout;
+    private final Duration retention;
+    private final int historySize;
+
+    public OrderStatusHub(@Value("${orders.events.timeout:30m}") Duration timeout,
+                          @Value("${orders.events.heartbeat:15s}") Duration heartbeat,
+                          @Value("${orders.events.retention:5m}") Duration retention,
+                          @Value("${orders.events.history-size:16}") int historySize) {
+        this.timeout = timeout;
+        this.retention = retention;
+        this.historySize = historySize;
+        executor.scheduleWithFixedDelay(this::heartbeat,
+                heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param currentStatus reads the order's committed status; called after the subscriber is
+     *                      registered, so no transition can fall between the read and the stream
+     */
+    public SseEmitter subscribe(Long orderId, String lastEventId, Supplier<OrderStatus> currentStatus) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(orderId, emitter);
+        subscribers.computeIfAbsent(orderId, id -> new CopyOnWriteArraySet<>()).add(subscriber);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+
+        long resumeFrom = resumeSequence(lastEventId);
+        if (resumeFrom >= 0) {
+            subscriber.skipUpTo(resumeFrom);
+            History history = histories.get(orderId);
+            if (history != null) {
+                history.since(resumeFrom).forEach(subscriber::deliver);
+            }
+        }
+
+        // Transitions published from here on are newer than the status read below
+        long snapshotSequence = sequence.get();
+        OrderStatus status;
+        try {
+            status = currentStatus.get();
+        } catch (RuntimeException e) {
+            unsubscribe(subscriber);
+            throw e;
+        }
+        subscriber.deliverSnapshot(new Transition(snapshotSequence, status, System.nanoTime()));
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(OrderStatusChangedEvent event) {
+        Transition transition = new Transition(sequence.incrementAndGet(), event.status(), System.nanoTime());
+        histories.computeIfAbsent(event.orderId(), id -> new History()).add(transition, historySize);
+        executor.execute(() -> subscribers.getOrDefault(event.orderId(), Set.of())
+                .forEach(subscriber -> subscriber.deliver(transition)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        subscribers.values().forEach(all -> all.forEach(subscriber -> subscriber.emitter().complete()));
+    }
+
+    // Keeps idle connections open through proxies and drops histories nobody can resume from
+    private void heartbeat() {
+        subscribers.values().forEach(all -> all.forEach(Subscriber::ping));
+        long expiredBefore = System.nanoTime() - retention.toNanos();
+        histories.values().removeIf(history -> history.lastNanos() < expiredBefore);
+    }
+
+    // -1 unless the id was issued by this hub
+    private long resumeSequence(String lastEventId) {
+        if (lastEventId == null || !lastEventId.startsWith(hubId + ':')) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(hubId.length() + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.orderId(), (id, all) -> {
+            all.remove(subscriber);
+            return all.isEmpty() ? null : all;
+        });
+    }
+
+    private String eventId(long sequence) {
+        return hubId + ':' + sequence;
+    }
+
+    private record Transition(long sequence, OrderStatus status, long nanos) {
+    }
+
+    private static final class History {
+
+        private final Deque<Transition> transitions = new ArrayDeque<>();
+
+        synchronized void add(Transition transition, int maxSize) {
+            transitions.addLast(transition);
+            if (transitions.size() > maxSize) {
+                transitions.removeFirst();
+            }
+        }
+
+        synchronized List<Transition> since(long lastSequence) {
+            return transitions.stream()
+                    .filter(transition -> transition.sequence() > lastSequence)
+                    .toList();
+        }
+
+        synchronized long lastNanos() {
+            return transitions.getLast().nanos();
+        }
+    }
+
+    private final class Subscriber {
+
+        private final Long orderId;
+        private final SseEmitter emitter;
+        private long lastSequence = -1;
+        private long sentSequence = -1;
+        private OrderStatus sentStatus;
+
+        Subscriber(Long orderId, SseEmitter emitter) {
+            this.orderId = orderId;
+            this.emitter = emitter;
+        }
+
+        Long orderId() {
+            return orderId;
+        }
+
+        SseEmitter emitter() {
+            return emitter;
+        }
+
+        synchronized void skipUpTo(long sequence) {
+            lastSequence = Math.max(lastSequence, sequence);
+        }
+
+        synchronized void deliver(Transition transition) {
+            if (transition.sequence() > lastSequence) {
+                send(transition);
+            }
+        }
+
+        // Stale once a newer transition went out; redundant if the client already has this status
+        synchronized void deliverSnapshot(Transition snapshot) {
+            if (sentSequence <= snapshot.sequence() && snapshot.status() != sentStatus) {
+                send(snapshot);
+            }
+        }
+
+        private void send(Transition transition) {
+            lastSequence = Math.max(lastSequence, transition.sequence());
+            sentSequence = transition.sequence();
+            sentStatus = transition.status();
+            try {
+                emitter.send(SseEmitter.event()
+                        .id(eventId(transition.sequence()))
+                        .name(EVENT_NAME)
+                        .data(transition.status().name(), MediaType.TEXT_PLAIN));
+                if (transition.status().isTerminal()) {
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping status subscriber of order {}: {}", orderId, e.getMessage());
+                unsubscribe(this);
+            }
+        }
+
+        synchronized void ping() {
+            try {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                unsubscribe(this);
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.kozitskiy.orderservice.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kozitskiy.orderservice.dto.*;
 import com.kozitskiy.orderservice.service.OrderService;
+import com.kozitskiy.orderservice.stream.OrderStatusHub;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,6 +36,9 @@ class OrderControllerTest {
     @MockitoBean
     private OrderService orderService;
 
+    @MockitoBean
+    private OrderStatusHub orderStatusHub;
+
     @Test
     @DisplayName("Should return 201 Created when order is successfully created")
     void createOrder_ShouldReturnCreated() throws Exception {
@@ -108,6 +112,20 @@ class OrderControllerTest {
                 .andExpect(jsonPath("$[0].id").value(1));
     }
 
+    @Test
+    @DisplayName("GET /api/v1/orders/user/{userId} - Should return the user's orders")
+    void getOrdersByUserId_ShouldReturnList() throws Exception {
+        OrderResponse res1 = OrderResponse.builder().id(1L).userId(7L).build();
+        OrderResponse res2 = OrderResponse.builder().id(2L).userId(7L).build();
+
+        when(orderService.getOrdersByUserId(7L)).thenReturn(List.of(res1, res2));
+
+        mockMvc.perform(get("/api/v1/orders/user/{userId}", 7L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].id").value(2));
+    }
+
     @Test
     @DisplayName("PATCH /api/v1/orders/{id} - Should update status")
     void updateOrder_ShouldReturnUpdatedOrder() throws Exception {
@@ -14,12 +14,14 @@ import com.kozitskiy.orderservice.mapper.OrderItemMapper;
 import com.kozitskiy.orderservice.mapper.OrderMapper;
 import com.kozitskiy.orderservice.repository.ItemRepository;
 import com.kozitskiy.orderservice.repository.OrderRepository;
+import com.kozitskiy.orderservice.stream.OrderStatusChangedEvent;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -39,6 +41,7 @@ class OrderServiceImplTest {
     @Mock private OrderItemMapper orderItemMapper;
     @Mock private UserClient userClient;
     @Mock private OrderEventProducer orderEventProducer;
+    @Mock private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private OrderServiceImpl orderService;
@@ -108,6 +111,25 @@ class OrderServiceImplTest {
         verify(orderRepository).findById(orderId);
     }
 
+    @Test
+    @DisplayName("Should fetch the user once for all of the user's orders")
+    void getOrdersByUserId_FetchesUserOnce() {
+        Order first = new Order();
+        first.setUserEmail("test@test.com");
+        Order second = new Order();
+        second.setUserEmail("test@test.com");
+        UserDto user = UserDto.builder().id(1L).email("test@test.com").build();
+
+        when(orderRepository.findAllByUserIdOrderByCreationDateDesc(1L)).thenReturn(List.of(first, second));
+        when(orderMapper.toDto(any())).thenReturn(createOrderResponse());
+        when(userClient.getUserByEmail("test@test.com")).thenReturn(user);
+
+        List<OrderResponse> result = orderService.getOrdersByUserId(1L);
+
+        assertThat(result).hasSize(2).allSatisfy(order -> assertThat(order.user()).isEqualTo(user));
+        verify(userClient, times(1)).getUserByEmail("test@test.com");
+    }
+
     @Test
     @DisplayName("Update order status successfully")
     void updateOrder_Success() {
@@ -125,6 +147,7 @@ class OrderServiceImplTest {
 
         assertThat(order.getStatus()).isEqualTo(OrderStatus.COMPLETED);
         verify(orderRepository).save(order);
+        verify(eventPublisher).publishEvent(new OrderStatusChangedEvent(null, OrderStatus.COMPLETED));
     }
 
     @Test
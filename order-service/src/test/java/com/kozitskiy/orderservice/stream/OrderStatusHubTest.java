@@ -0,0 +1,108 @@
+package com.kozitskiy.orderservice.stream;
+
+import com.kozitskiy.orderservice.controller.OrderController;
+import com.kozitskiy.orderservice.entity.enums.OrderStatus;
+import com.kozitskiy.orderservice.service.OrderService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class OrderStatusHubTest {
+
+    private static final Pattern LAST_ID = Pattern.compile("(?s).*id:(\\S+)\\nevent:status\\ndata:\\w+\\n\\n$");
+
+    private final OrderService orderService = mock(OrderService.class);
+    private final OrderStatusHub hub = new OrderStatusHub(
+            Duration.ofMinutes(1), Duration.ofMinutes(1), Duration.ofMinutes(5), 16);
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new OrderController(orderService, hub)).build();
+
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should push the current status, then every transition until the order is final")
+    void subscribe_ShouldPushTransitionsUntilTerminal() throws Exception {
+        when(orderService.getOrderStatus(1L)).thenReturn(OrderStatus.PENDING);
+
+        MockHttpServletResponse response = subscribe(1L, null);
+        hub.onStatusChanged(new OrderStatusChangedEvent(2L, OrderStatus.CANCELLED));
+        hub.onStatusChanged(new OrderStatusChangedEvent(1L, OrderStatus.PROCESSING));
+        hub.onStatusChanged(new OrderStatusChangedEvent(1L, OrderStatus.COMPLETED));
+
+        awaitContent(response, "COMPLETED");
+        assertThat(statuses(response)).containsExactly("PENDING", "PROCESSING", "COMPLETED");
+    }
+
+    @Test
+    @DisplayName("Should replay transitions missed since Last-Event-ID")
+    void subscribe_ShouldResumeFromLastEventId() throws Exception {
+        when(orderService.getOrderStatus(1L)).thenReturn(OrderStatus.PENDING);
+        MockHttpServletResponse first = subscribe(1L, null);
+        hub.onStatusChanged(new OrderStatusChangedEvent(1L, OrderStatus.PROCESSING));
+        awaitContent(first, "PROCESSING");
+        String lastEventId = lastEventId(first);
+
+        hub.onStatusChanged(new OrderStatusChangedEvent(1L, OrderStatus.CONFIRMED));
+        hub.onStatusChanged(new OrderStatusChangedEvent(1L, OrderStatus.SHIPPED));
+        when(orderService.getOrderStatus(1L)).thenReturn(OrderStatus.SHIPPED);
+
+        MockHttpServletResponse resumed = subscribe(1L, lastEventId);
+        assertThat(statuses(resumed)).containsExactly("CONFIRMED", "SHIPPED");
+    }
+
+    @Test
+    @DisplayName("Should answer 204 to a reconnect once the order is final")
+    void subscribe_ShouldStopReconnectsAfterTerminalStatus() throws Exception {
+        when(orderService.getOrderStatus(1L)).thenReturn(OrderStatus.COMPLETED);
+
+        mockMvc.perform(get("/api/v1/orders/{id}/events", 1L).header("Last-Event-ID", "gone:7"))
+                .andExpect(status().isNoContent());
+    }
+
+    private MockHttpServletResponse subscribe(Long orderId, String lastEventId) throws Exception {
+        var builder = get("/api/v1/orders/{id}/events", orderId);
+        if (lastEventId != null) {
+            builder.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+    }
+
+    // Transitions reach subscribers on the hub's own thread
+    private static void awaitContent(MockHttpServletResponse response, String text) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (!response.getContentAsString().contains(text) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static String[] statuses(MockHttpServletResponse response) throws Exception {
+        return Pattern.compile("data:(\\w+)").matcher(response.getContentAsString()).results()
+                .map(match -> match.group(1))
+                .toArray(String[]::new);
+    }
+
+    private static String lastEventId(MockHttpServletResponse response) throws Exception {
+        Matcher matcher = LAST_ID.matcher(response.getContentAsString());
+        assertThat(matcher.matches()).isTrue();
+        return matcher.group(1);
+    }
+}
@@ -5,4 +5,6 @@ public final class KafkaTopics {
 
     public static final String ORDER_CREATED = "order-created-topic";
     public static final String PAYMENT_RESULT = "payment-result-topic";
+    public static final String USER_REGISTERED = "user-registered-topic";
+    public static final String USER_PROFILE_RESULT = "user-profile-result-topic";
 }
@@ -0,0 +1,14 @@
+package com.kozitskiy.dto;
+
+import lombok.Builder;
+
+import java.util.UUID;
+
+@Builder
+public record UserProfileResultEvent(
+        UUID registrationId,
+        Long userId,
+        String status,
+        String reason
+) {
+}
@@ -0,0 +1,16 @@
+package com.kozitskiy.dto;
+
+import lombok.Builder;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Builder
+public record UserRegisteredEvent(
+        UUID registrationId,
+        String email,
+        String name,
+        String surname,
+        LocalDate birthDate
+) {
+}
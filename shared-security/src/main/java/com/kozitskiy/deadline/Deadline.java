@@ -0,0 +1,52 @@
+package com.kozitskiy.deadline;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+
+/**
+ * Absolute time, in epoch milliseconds, after which the caller no longer waits for the answer.
+ * Stamped by the api-gateway and passed on by every hop, so timeouts shrink along the call chain
+ * instead of adding up.
+ */
+public record Deadline(long epochMillis) {
+
+    public static final String HEADER = "X-Request-Deadline";
+    public static final String REQUEST_ATTRIBUTE = Deadline.class.getName();
+
+    public static Optional<Deadline> parse(String header) {
+        if (header == null || header.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new Deadline(Long.parseLong(header.trim())));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * The deadline of the request being handled on this thread, if it has one. Also works inside
+     * Feign circuit breakers, which carry the request attributes over to their own threads.
+     */
+    public static Optional<Deadline> current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable((Deadline) attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST));
+    }
+
+    public long remainingMillis(long nowMillis) {
+        return epochMillis - nowMillis;
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return epochMillis <= nowMillis;
+    }
+
+    public String toHeader() {
+        return Long.toString(epochMillis);
+    }
+}
@@ -0,0 +1,75 @@
+package com.kozitskiy.deadline;
+
+import feign.Capability;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionManager;
+
+import javax.sql.DataSource;
+
+/**
+ * Request deadlines for servlet services: the {@link DeadlineFilter}, the 504 mapping in
+ * {@link DeadlineExceptionHandler}, {@link DeadlineFeignCapability} where Feign is present, and
+ * {@link DeadlineJpaTransactionManager} in place of Boot's JPA transaction manager.
+ * <p>
+ * Runs before {@link HibernateJpaAutoConfiguration} so its transaction manager is the one Boot
+ * backs off for, and applies Boot's {@link TransactionManagerCustomizers}, so the
+ * {@code spring.transaction.*} properties keep working.
+ */
+@AutoConfiguration(after = DataSourceAutoConfiguration.class, before = HibernateJpaAutoConfiguration.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class DeadlineAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(name = "deadlineFilter")
+    public FilterRegistrationBean<DeadlineFilter> deadlineFilter() {
+        FilterRegistrationBean<DeadlineFilter> registration = new FilterRegistrationBean<>(new DeadlineFilter());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public DeadlineExceptionHandler deadlineExceptionHandler() {
+        return new DeadlineExceptionHandler();
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(Capability.class)
+    static class FeignDeadlineConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public DeadlineFeignCapability deadlineCapability() {
+            return new DeadlineFeignCapability();
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass({JpaTransactionManager.class, EntityManagerFactory.class})
+    @ConditionalOnBean(DataSource.class)
+    static class JpaDeadlineConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(TransactionManager.class)
+        public DeadlineJpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory,
+                                                                ObjectProvider<TransactionManagerCustomizers> customizers) {
+            DeadlineJpaTransactionManager transactionManager = new DeadlineJpaTransactionManager(entityManagerFactory);
+            customizers.ifAvailable(customizer -> customizer.customize(transactionManager));
+            return transactionManager;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.kozitskiy.deadline;
+
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,31 @@
+package com.kozitskiy.deadline;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+/**
+ * Answers a request that ran out of time with 504 and the same body as {@link DeadlineFilter}.
+ * Ordered ahead of each service's own advice, whose catch-all handler would otherwise turn it
+ * into a 500.
+ */
+@RestControllerAdvice
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class DeadlineExceptionHandler {
+
+    private static final Log log = LogFactory.getLog(DeadlineExceptionHandler.class);
+
+    @ExceptionHandler({DeadlineExceededException.class, TransactionTimedOutException.class})
+    public ResponseEntity<Map<String, String>> handleDeadlineExceeded(RuntimeException ex) {
+        log.warn("Request deadline exceeded: " + ex.getMessage());
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(Map.of("error", "Request deadline exceeded"));
+    }
+}
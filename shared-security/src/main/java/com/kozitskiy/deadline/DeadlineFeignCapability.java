@@ -0,0 +1,50 @@
+package com.kozitskiy.deadline;
+
+import feign.Capability;
+import feign.Client;
+import feign.Request;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Passes the current request's {@link Deadline} on to Feign calls and caps their connect and
+ * read timeouts at the time left, so a downstream call never outlives its caller. Calls made
+ * after the deadline fail with {@link DeadlineExceededException} without being sent.
+ */
+public class DeadlineFeignCapability implements Capability {
+
+    @Override
+    public Client enrich(Client client) {
+        return (request, options) -> {
+            Deadline deadline = Deadline.current().orElse(null);
+            if (deadline == null) {
+                return client.execute(request, options);
+            }
+
+            long remaining = deadline.remainingMillis(System.currentTimeMillis());
+            if (remaining <= 0) {
+                throw new DeadlineExceededException("Deadline passed before calling " + request.url());
+            }
+            return client.execute(withDeadline(request, deadline), capped(options, remaining));
+        };
+    }
+
+    private static Request withDeadline(Request request, Deadline deadline) {
+        Map<String, Collection<String>> headers = new HashMap<>(request.headers());
+        headers.put(Deadline.HEADER, List.of(deadline.toHeader()));
+        return Request.create(request.httpMethod(), request.url(), headers, request.body(),
+                request.charset(), request.requestTemplate());
+    }
+
+    private static Request.Options capped(Request.Options options, long remainingMillis) {
+        return new Request.Options(
+                Math.min(options.connectTimeoutMillis(), remainingMillis), TimeUnit.MILLISECONDS,
+                Math.min(options.readTimeoutMillis(), remainingMillis), TimeUnit.MILLISECONDS,
+                options.isFollowRedirects());
+    }
+}
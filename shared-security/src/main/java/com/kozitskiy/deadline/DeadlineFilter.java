@@ -0,0 +1,36 @@
+package com.kozitskiy.deadline;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Exposes the {@link Deadline#HEADER} of the incoming request as {@link Deadline#REQUEST_ATTRIBUTE}.
+ * Requests that arrive after their deadline are answered with 504 before any work is done.
+ */
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        Deadline deadline = Deadline.parse(request.getHeader(Deadline.HEADER)).orElse(null);
+        if (deadline != null) {
+            if (deadline.isExpired(System.currentTimeMillis())) {
+                response.setStatus(HttpServletResponse.SC_GATEWAY_TIMEOUT);
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.getWriter().write("{\"error\": \"Request deadline exceeded\"}");
+                return;
+            }
+            request.setAttribute(Deadline.REQUEST_ATTRIBUTE, deadline);
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
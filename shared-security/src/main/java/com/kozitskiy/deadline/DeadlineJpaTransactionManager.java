@@ -0,0 +1,35 @@
+package com.kozitskiy.deadline;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionTimedOutException;
+
+/**
+ * Caps every transaction's timeout at the time left until the request's {@link Deadline}.
+ * Spring applies the timeout to each JPA query, so a request whose caller has given up stops
+ * holding a database connection once its remaining time runs out.
+ */
+public class DeadlineJpaTransactionManager extends JpaTransactionManager {
+
+    public DeadlineJpaTransactionManager(EntityManagerFactory entityManagerFactory) {
+        super(entityManagerFactory);
+    }
+
+    @Override
+    protected int determineTimeout(TransactionDefinition definition) {
+        int timeout = super.determineTimeout(definition);
+        Deadline deadline = Deadline.current().orElse(null);
+        if (deadline == null) {
+            return timeout;
+        }
+
+        long remaining = deadline.remainingMillis(System.currentTimeMillis());
+        if (remaining <= 0) {
+            throw new TransactionTimedOutException("Deadline passed before the transaction started");
+        }
+        // Timeouts are whole seconds; rounding up never cuts a request short of its deadline
+        int remainingSeconds = (int) Math.min(Integer.MAX_VALUE, (remaining + 999) / 1000);
+        return timeout == TransactionDefinition.TIMEOUT_DEFAULT ? remainingSeconds : Math.min(timeout, remainingSeconds);
+    }
+}
@@ -0,0 +1,29 @@
+package com.kozitskiy.jwt;
+
+/**
+ * Claims of a token issued by auth-service, read once when the token is verified.
+ *
+ * @param role     {@code null} when the token carries no role
+ * @param tokenId  the {@code jti} claim, {@code null} when absent
+ * @param issuedAt epoch seconds, {@code 0} when absent
+ * @param expiresAt epoch seconds; tokens without {@code exp} are rejected
+ */
+public record JwtClaims(
+        String subject,
+        String role,
+        String tokenId,
+        long issuedAt,
+        long expiresAt
+) {
+    public boolean isExpired(long nowEpochSeconds) {
+        return expiresAt <= nowEpochSeconds;
+    }
+
+    /**
+     * Whether the token may authenticate a request. Access tokens carry a role and no {@code jti};
+     * refresh tokens carry a {@code jti} and no role, and are only accepted by the refresh endpoint.
+     */
+    public boolean isAccessToken() {
+        return role != null && tokenId == null;
+    }
+}
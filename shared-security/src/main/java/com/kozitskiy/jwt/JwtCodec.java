@@ -0,0 +1,232 @@
+package com.kozitskiy.jwt;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * HS256 JSON Web Tokens with the keys prepared once: every key has its header pre-encoded and
+ * every thread keeps its own initialized {@link Mac} per key, so signing and verifying do not
+ * rebuild algorithms or verifiers.
+ * <p>
+ * Tokens are signed with the active key and carry its id in {@code kid}. Verification accepts
+ * the active and the previous keys, chosen by {@code kid}; tokens without one are checked with
+ * the {@value #DEFAULT_KEY_ID} key, which is how tokens issued before key ids existed stay valid.
+ * Only {@code HS256} is accepted, and tokens without {@code exp} are rejected.
+ */
+public class JwtCodec {
+
+    public static final String DEFAULT_KEY_ID = "default";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String JWT_ALGORITHM = "HS256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final SigningKey active;
+    private final Map<String, SigningKey> keys;
+    private final List<SigningKey> keyList;
+
+    public JwtCodec(String secret) {
+        this(DEFAULT_KEY_ID, secret, Map.of());
+    }
+
+    /**
+     * @param previousSecrets secrets that still verify tokens but no longer sign them, by key id
+     */
+    public JwtCodec(String activeKeyId, String activeSecret, Map<String, String> previousSecrets) {
+        Map<String, SigningKey> keys = new HashMap<>();
+        previousSecrets.forEach((keyId, secret) -> keys.put(keyId, new SigningKey(keyId, secret)));
+        this.active = new SigningKey(activeKeyId, activeSecret);
+        keys.put(activeKeyId, active);
+        this.keys = Map.copyOf(keys);
+        this.keyList = List.copyOf(keys.values());
+    }
+
+    public String sign(JwtClaims claims) {
+        String payload = ENCODER.encodeToString(writeClaims(claims));
+        Mac mac = active.mac.get();
+        mac.update(active.signingPrefix);
+        byte[] signature = mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+        return active.encodedHeader + '.' + payload + '.' + ENCODER.encodeToString(signature);
+    }
+
+    public Optional<JwtClaims> verify(String token, long nowEpochSeconds) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        int headerEnd = token.indexOf('.');
+        int payloadEnd = headerEnd < 0 ? -1 : token.indexOf('.', headerEnd + 1);
+        if (headerEnd <= 0 || payloadEnd < 0 || token.indexOf('.', payloadEnd + 1) >= 0) {
+            return Optional.empty();
+        }
+
+        try {
+            byte[] bytes = token.getBytes(StandardCharsets.US_ASCII);
+            SigningKey key = keyFor(token, bytes, headerEnd);
+            if (key == null) {
+                return Optional.empty();
+            }
+
+            Mac mac = key.mac.get();
+            mac.update(bytes, 0, payloadEnd);
+            byte[] expected = mac.doFinal();
+            byte[] signature = decode(bytes, payloadEnd + 1, bytes.length);
+            if (!MessageDigest.isEqual(expected, signature)) {
+                return Optional.empty();
+            }
+
+            JwtClaims claims = readClaims(decode(bytes, headerEnd + 1, payloadEnd), nowEpochSeconds);
+            return claims == null || claims.isExpired(nowEpochSeconds) ? Optional.empty() : Optional.of(claims);
+        } catch (IllegalArgumentException | IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private SigningKey keyFor(String token, byte[] bytes, int headerEnd) throws IOException {
+        // Tokens from this codec carry one of the pre-encoded headers: no decoding, no parsing
+        for (SigningKey key : keyList) {
+            if (key.encodedHeader.length() == headerEnd && token.startsWith(key.encodedHeader)) {
+                return key;
+            }
+        }
+
+        try (JsonParser parser = JSON.createParser(decode(bytes, 0, headerEnd))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            String algorithm = null;
+            String keyId = DEFAULT_KEY_ID;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (name) {
+                    case "alg" -> algorithm = text(parser, value);
+                    case "kid" -> keyId = text(parser, value);
+                    default -> parser.skipChildren();
+                }
+            }
+            return JWT_ALGORITHM.equals(algorithm) && keyId != null ? keys.get(keyId) : null;
+        }
+    }
+
+    private static JwtClaims readClaims(byte[] payload, long nowEpochSeconds) throws IOException {
+        try (JsonParser parser = JSON.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            String subject = null;
+            String role = null;
+            String tokenId = null;
+            long issuedAt = 0;
+            long expiresAt = -1;
+            long notBefore = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (name) {
+                    case "sub" -> subject = text(parser, value);
+                    case "role" -> role = text(parser, value);
+                    case "jti" -> tokenId = text(parser, value);
+                    case "iat" -> issuedAt = number(parser, value, 0);
+                    case "exp" -> expiresAt = number(parser, value, -1);
+                    case "nbf" -> notBefore = number(parser, value, Long.MAX_VALUE);
+                    default -> parser.skipChildren();
+                }
+            }
+            if (expiresAt < 0 || notBefore > nowEpochSeconds) {
+                return null;
+            }
+            return new JwtClaims(subject, role, tokenId, issuedAt, expiresAt);
+        }
+    }
+
+    private static byte[] writeClaims(JwtClaims claims) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        try (JsonGenerator generator = JSON.createGenerator(out)) {
+            generator.writeStartObject();
+            if (claims.subject() != null) {
+                generator.writeStringField("sub", claims.subject());
+            }
+            if (claims.role() != null) {
+                generator.writeStringField("role", claims.role());
+            }
+            if (claims.tokenId() != null) {
+                generator.writeStringField("jti", claims.tokenId());
+            }
+            if (claims.issuedAt() > 0) {
+                generator.writeNumberField("iat", claims.issuedAt());
+            }
+            generator.writeNumberField("exp", claims.expiresAt());
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write JWT claims", e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String text(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static long number(JsonParser parser, JsonToken value, long otherwise) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getLongValue();
+        }
+        parser.skipChildren();
+        return otherwise;
+    }
+
+    private static byte[] decode(byte[] bytes, int from, int to) {
+        ByteBuffer decoded = DECODER.decode(ByteBuffer.wrap(bytes, from, to - from));
+        byte[] array = decoded.array();
+        return decoded.remaining() == array.length
+                ? array
+                : Arrays.copyOfRange(array, decoded.position(), decoded.limit());
+    }
+
+    private static final class SigningKey {
+
+        private final String encodedHeader;
+        private final byte[] signingPrefix;
+        private final ThreadLocal<Mac> mac;
+
+        private SigningKey(String keyId, String secret) {
+            String header = "{\"alg\":\"" + JWT_ALGORITHM + "\",\"typ\":\"JWT\",\"kid\":\"" + keyId + "\"}";
+            this.encodedHeader = ENCODER.encodeToString(header.getBytes(StandardCharsets.UTF_8));
+            this.signingPrefix = (encodedHeader + '.').getBytes(StandardCharsets.US_ASCII);
+
+            SecretKeySpec spec = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+            this.mac = ThreadLocal.withInitial(() -> {
+                try {
+                    Mac instance = Mac.getInstance(ALGORITHM);
+                    instance.init(spec);
+                    return instance;
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException("Cannot initialize " + ALGORITHM, e);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.kozitskiy.security;
+
+/**
+ * Caller identity established by the api-gateway after it verified the access token.
+ * <p>
+ * {@code role} is copied from the access token's {@code role} claim, which the gateway requires,
+ * or from the caller's API key record, where it may be missing; with a {@code null} role services
+ * cannot authorize from the identity alone and verify the token themselves.
+ */
+public record GatewayIdentity(
+        String subject,
+        String role,
+        long expiresAt
+) {
+    public static final String HEADER = "X-Gateway-Identity";
+    public static final String REQUEST_ATTRIBUTE = GatewayIdentity.class.getName();
+
+    public boolean isExpired(long nowEpochSeconds) {
+        return expiresAt <= nowEpochSeconds;
+    }
+}
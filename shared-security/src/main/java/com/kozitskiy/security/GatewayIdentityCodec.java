@@ -0,0 +1,78 @@
+package com.kozitskiy.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Encodes a {@link GatewayIdentity} as {@code base64url(subject\nrole\nexp).base64url(HMAC-SHA256)}.
+ * The key is prepared once and every thread keeps its own initialized {@link Mac}.
+ */
+public class GatewayIdentityCodec {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final ThreadLocal<Mac> mac;
+
+    public GatewayIdentityCodec(String secret) {
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(ALGORITHM);
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot initialize " + ALGORITHM, e);
+            }
+        });
+    }
+
+    public String encode(GatewayIdentity identity) {
+        String role = identity.role() == null ? "" : identity.role();
+        byte[] payload = (identity.subject() + '\n' + role + '\n' + identity.expiresAt())
+                .getBytes(StandardCharsets.UTF_8);
+
+        return ENCODER.encodeToString(payload) + '.' + ENCODER.encodeToString(sign(payload));
+    }
+
+    public Optional<GatewayIdentity> decode(String header, long nowEpochSeconds) {
+        if (header == null) {
+            return Optional.empty();
+        }
+        int dot = header.indexOf('.');
+        if (dot <= 0) {
+            return Optional.empty();
+        }
+
+        try {
+            byte[] payload = DECODER.decode(header.substring(0, dot));
+            byte[] signature = DECODER.decode(header.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(payload), signature)) {
+                return Optional.empty();
+            }
+
+            String[] parts = new String(payload, StandardCharsets.UTF_8).split("\n", -1);
+            if (parts.length != 3) {
+                return Optional.empty();
+            }
+
+            GatewayIdentity identity = new GatewayIdentity(
+                    parts[0],
+                    parts[1].isEmpty() ? null : parts[1],
+                    Long.parseLong(parts[2]));
+            return identity.isExpired(nowEpochSeconds) ? Optional.empty() : Optional.of(identity);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(byte[] payload) {
+        return mac.get().doFinal(payload);
+    }
+}
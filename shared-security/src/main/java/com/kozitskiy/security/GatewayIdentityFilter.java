@@ -0,0 +1,38 @@
+package com.kozitskiy.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Trusts the identity header signed by the api-gateway and exposes it as the
+ * {@link GatewayIdentity#REQUEST_ATTRIBUTE} request attribute. Requests without a valid
+ * header pass through unchanged.
+ */
+public class GatewayIdentityFilter extends OncePerRequestFilter {
+
+    private final GatewayIdentityCodec codec;
+
+    public GatewayIdentityFilter(GatewayIdentityCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        codec.decode(request.getHeader(GatewayIdentity.HEADER), System.currentTimeMillis() / 1000)
+                .ifPresent(identity -> request.setAttribute(GatewayIdentity.REQUEST_ATTRIBUTE, identity));
+
+        filterChain.doFilter(request, response);
+    }
+
+    public static GatewayIdentity current(HttpServletRequest request) {
+        return (GatewayIdentity) request.getAttribute(GatewayIdentity.REQUEST_ATTRIBUTE);
+    }
+}
@@ -0,0 +1,55 @@
+package com.kozitskiy.deadline;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizationAutoConfiguration;
+import org.springframework.boot.test.context.runner.ReactiveWebApplicationContextRunner;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class DeadlineAutoConfigurationTest {
+
+    private final WebApplicationContextRunner runner = new WebApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(
+                    TransactionManagerCustomizationAutoConfiguration.class, DeadlineAutoConfiguration.class))
+            .withBean(DataSource.class, () -> mock(DataSource.class))
+            .withBean(EntityManagerFactory.class, () -> mock(EntityManagerFactory.class));
+
+    @Test
+    void autoConfiguration_ShouldApplyTransactionProperties() {
+        runner.withPropertyValues("spring.transaction.default-timeout=7s").run(context -> {
+            assertThat(context).getBean(PlatformTransactionManager.class).isInstanceOf(DeadlineJpaTransactionManager.class);
+            assertThat(context.getBean(DeadlineJpaTransactionManager.class).getDefaultTimeout()).isEqualTo(7);
+        });
+    }
+
+    @Test
+    void autoConfiguration_ShouldRegisterFilterCapabilityAndHandler() {
+        runner.run(context -> {
+            assertThat(context).hasSingleBean(FilterRegistrationBean.class);
+            assertThat(context).hasSingleBean(DeadlineFeignCapability.class);
+            assertThat(context).hasSingleBean(DeadlineExceptionHandler.class);
+        });
+    }
+
+    @Test
+    void autoConfiguration_ShouldKeepAConfiguredTransactionManager() {
+        PlatformTransactionManager own = mock(PlatformTransactionManager.class);
+        runner.withBean("transactionManager", PlatformTransactionManager.class, () -> own)
+                .run(context -> assertThat(context.getBean(PlatformTransactionManager.class)).isSameAs(own));
+    }
+
+    @Test
+    void autoConfiguration_ShouldStayOutOfReactiveApplications() {
+        new ReactiveWebApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(DeadlineAutoConfiguration.class))
+                .run(context -> assertThat(context).doesNotHaveBean(DeadlineExceptionHandler.class));
+    }
+}
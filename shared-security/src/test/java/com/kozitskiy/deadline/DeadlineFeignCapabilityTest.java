@@ -0,0 +1,77 @@
+package com.kozitskiy.deadline;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeadlineFeignCapabilityTest {
+
+    private final Request.Options defaults = new Request.Options(5, TimeUnit.SECONDS, 10, TimeUnit.SECONDS, true);
+    private final AtomicReference<Request> sent = new AtomicReference<>();
+    private final AtomicReference<Request.Options> sentOptions = new AtomicReference<>();
+    private final Client upstream = (request, options) -> {
+        sent.set(request);
+        sentOptions.set(options);
+        return Response.builder().status(200).request(request).headers(Map.of()).build();
+    };
+    private final Client client = new DeadlineFeignCapability().enrich(upstream);
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void execute_ShouldCapTimeoutsAndForwardDeadline() throws Exception {
+        Deadline deadline = inRequestWithDeadline(System.currentTimeMillis() + 2_000);
+
+        client.execute(request(), defaults);
+
+        assertThat(sent.get().headers().get(Deadline.HEADER)).containsExactly(deadline.toHeader());
+        assertThat(sentOptions.get().readTimeoutMillis()).isBetween(1, 2_000);
+        assertThat(sentOptions.get().connectTimeoutMillis()).isBetween(1, 2_000);
+    }
+
+    @Test
+    void execute_ShouldKeepConfiguredTimeoutsWithoutDeadline() throws Exception {
+        client.execute(request(), defaults);
+
+        assertThat(sent.get().headers()).doesNotContainKey(Deadline.HEADER);
+        assertThat(sentOptions.get()).isSameAs(defaults);
+    }
+
+    @Test
+    void execute_ShouldNotCallOnceDeadlineHasPassed() {
+        inRequestWithDeadline(System.currentTimeMillis() - 1);
+
+        assertThatThrownBy(() -> client.execute(request(), defaults))
+                .isInstanceOf(DeadlineExceededException.class);
+        assertThat(sent.get()).isNull();
+    }
+
+    private static Deadline inRequestWithDeadline(long epochMillis) {
+        Deadline deadline = new Deadline(epochMillis);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(Deadline.REQUEST_ATTRIBUTE, deadline);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        return deadline;
+    }
+
+    private static Request request() {
+        return Request.create(Request.HttpMethod.GET, "http://user-service/api/v1/users/search",
+                Map.of(), null, StandardCharsets.UTF_8, null);
+    }
+}
@@ -0,0 +1,77 @@
+package com.kozitskiy.jwt;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtCodecTest {
+
+    private static final long NOW = 1_700_000_000L;
+    private static final String SECRET = "test-jwt-secret-key-for-codec-unit-tests-32";
+    private static final String PREVIOUS_SECRET = "previous-jwt-secret-key-for-codec-tests-32";
+
+    private final JwtCodec codec = new JwtCodec(SECRET);
+
+    @Test
+    void verify_ShouldReturnSignedClaims() {
+        JwtClaims claims = new JwtClaims("user@test.com", "ADMIN", "id-1", NOW, NOW + 60);
+
+        assertThat(codec.verify(codec.sign(claims), NOW)).contains(claims);
+    }
+
+    @Test
+    void verify_ShouldAcceptPreviousKeysByKeyId() {
+        JwtCodec previous = new JwtCodec("k1", PREVIOUS_SECRET, Map.of());
+        JwtCodec rotated = new JwtCodec("k2", SECRET, Map.of("k1", PREVIOUS_SECRET));
+        JwtClaims claims = new JwtClaims("user@test.com", null, null, NOW, NOW + 60);
+
+        assertThat(rotated.verify(previous.sign(claims), NOW)).contains(claims);
+        assertThat(previous.verify(rotated.sign(claims), NOW)).isEmpty();
+    }
+
+    @Test
+    void verify_ShouldRejectTamperedForeignOrExpiredTokens() {
+        String token = codec.sign(new JwtClaims("user@test.com", "USER", null, NOW, NOW + 60));
+        String forged = new JwtCodec("another-jwt-secret-key-for-codec-tests-32")
+                .sign(new JwtClaims("user@test.com", "ADMIN", null, NOW, NOW + 60));
+        String unsigned = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8))
+                + token.substring(token.indexOf('.'), token.lastIndexOf('.') + 1);
+
+        assertThat(codec.verify(token.substring(0, token.length() - 2), NOW)).isEmpty();
+        assertThat(codec.verify(forged, NOW)).isEmpty();
+        assertThat(codec.verify(unsigned, NOW)).isEmpty();
+        assertThat(codec.verify("garbage", NOW)).isEmpty();
+        assertThat(codec.verify(token, NOW + 60)).isEmpty();
+    }
+
+    @Test
+    void verify_ShouldInteroperateWithReplacedLibraries() {
+        long expiresAt = System.currentTimeMillis() / 1000 + 60;
+        String auth0Token = JWT.create()
+                .withSubject("user@test.com")
+                .withExpiresAt(new Date(expiresAt * 1000))
+                .sign(Algorithm.HMAC256(SECRET));
+
+        assertThat(codec.verify(auth0Token, expiresAt - 60))
+                .contains(new JwtClaims("user@test.com", null, null, 0, expiresAt));
+
+        Claims parsed = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(codec.sign(new JwtClaims("user@test.com", "USER", null, 0, expiresAt)))
+                .getBody();
+        assertThat(parsed.getSubject()).isEqualTo("user@test.com");
+        assertThat(parsed.get("role", String.class)).isEqualTo("USER");
+    }
+}
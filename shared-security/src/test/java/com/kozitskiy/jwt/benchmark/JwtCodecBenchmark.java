@@ -0,0 +1,128 @@
+package com.kozitskiy.jwt.benchmark;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.kozitskiy.jwt.JwtClaims;
+import com.kozitskiy.jwt.JwtCodec;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sign and verify throughput of {@link JwtCodec} against the two implementations it replaced:
+ * the gateway's jjwt parser (built once) and auth-service's java-jwt usage, which built the
+ * {@link Algorithm} and the verifier on every call and decoded the token a second time to read
+ * the subject.
+ * <p>
+ * Run with: {@code mvn -pl shared-security test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * "-Dexec.args=-cp %classpath com.kozitskiy.jwt.benchmark.JwtCodecBenchmark"}.
+ * The GC profiler reports allocations per operation ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtCodecBenchmark {
+
+    private static final String SECRET = "my-default-local-development-secret-key-32-chars";
+    private static final String SUBJECT = "user@example.com";
+
+    private JwtCodec codec;
+    private SecretKey jjwtKey;
+    private JwtParser jjwtParser;
+    private String token;
+    private long expiresAt;
+
+    @Setup
+    public void setUp() {
+        codec = new JwtCodec(SECRET);
+        jjwtKey = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        jjwtParser = Jwts.parserBuilder().setSigningKey(jjwtKey).build();
+        expiresAt = System.currentTimeMillis() / 1000 + TimeUnit.HOURS.toSeconds(1);
+        // Every implementation verifies the same HS256 token
+        token = codec.sign(new JwtClaims(SUBJECT, "USER", null, 0, expiresAt));
+    }
+
+    @Benchmark
+    public String signCodec() {
+        return codec.sign(new JwtClaims(SUBJECT, "USER", null, 0, expiresAt));
+    }
+
+    @Benchmark
+    public String signJjwt() {
+        return Jwts.builder()
+                .setSubject(SUBJECT)
+                .claim("role", "USER")
+                .setExpiration(new Date(expiresAt * 1000))
+                .signWith(jjwtKey)
+                .compact();
+    }
+
+    @Benchmark
+    public String signJavaJwtPerCall() {
+        return JWT.create()
+                .withSubject(SUBJECT)
+                .withClaim("role", "USER")
+                .withExpiresAt(new Date(expiresAt * 1000))
+                .sign(Algorithm.HMAC256(SECRET));
+    }
+
+    @Benchmark
+    public String verifyCodec() {
+        return codec.verify(token, System.currentTimeMillis() / 1000)
+                .map(JwtClaims::subject)
+                .orElse(null);
+    }
+
+    @Benchmark
+    public String verifyJjwt() {
+        try {
+            Claims claims = jjwtParser.parseClaimsJws(token).getBody();
+            return claims.getSubject();
+        } catch (JwtException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public String verifyJavaJwtPerCall() {
+        try {
+            JWT.require(Algorithm.HMAC256(SECRET)).build().verify(token);
+            return JWT.decode(token).getSubject();
+        } catch (JWTVerificationException e) {
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtCodecBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
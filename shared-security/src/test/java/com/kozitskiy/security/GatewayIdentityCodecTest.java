@@ -0,0 +1,44 @@
+package com.kozitskiy.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GatewayIdentityCodecTest {
+
+    private static final long NOW = 1_700_000_000L;
+
+    private final GatewayIdentityCodec codec = new GatewayIdentityCodec("test-identity-secret-key-32-characters");
+
+    @Test
+    void decode_ShouldReturnEncodedIdentity() {
+        GatewayIdentity identity = new GatewayIdentity("user@test.com", "ADMIN", NOW + 60);
+
+        assertThat(codec.decode(codec.encode(identity), NOW)).contains(identity);
+    }
+
+    @Test
+    void decode_ShouldKeepMissingRoleAsNull() {
+        GatewayIdentity identity = new GatewayIdentity("user@test.com", null, NOW + 60);
+
+        assertThat(codec.decode(codec.encode(identity), NOW)).contains(identity);
+    }
+
+    @Test
+    void decode_ShouldRejectTamperedOrForeignHeader() {
+        String header = codec.encode(new GatewayIdentity("user@test.com", "USER", NOW + 60));
+        String forged = new GatewayIdentityCodec("another-identity-secret-key-32-chars")
+                .encode(new GatewayIdentity("user@test.com", "ADMIN", NOW + 60));
+
+        assertThat(codec.decode(header.substring(1), NOW)).isEmpty();
+        assertThat(codec.decode(forged, NOW)).isEmpty();
+        assertThat(codec.decode("garbage", NOW)).isEmpty();
+    }
+
+    @Test
+    void decode_ShouldRejectExpiredIdentity() {
+        String header = codec.encode(new GatewayIdentity("user@test.com", "USER", NOW));
+
+        assertThat(codec.decode(header, NOW)).isEmpty();
+    }
+}
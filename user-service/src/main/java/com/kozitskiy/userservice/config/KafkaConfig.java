@@ -0,0 +1,19 @@
+package com.kozitskiy.userservice.config;
+
+import com.kozitskiy.dto.KafkaTopics;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+public class KafkaConfig {
+
+    @Bean
+    public NewTopic userProfileResultTopic(){
+        return TopicBuilder.name(KafkaTopics.USER_PROFILE_RESULT)
+                .partitions(3)
+                .replicas(1)
+                .build();
+    }
+}
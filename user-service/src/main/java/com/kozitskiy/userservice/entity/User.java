@@ -8,6 +8,7 @@ import java.io.Serializable;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.Locale;
+import java.util.UUID;
 
 
 @Table(name = "users")
@@ -34,6 +35,10 @@ public class User{
     @Email
     private String email;
 
+    // The auth-service registration that created the profile; null for profiles created directly
+    @Column(name = "registration_id", unique = true, updatable = false)
+    private UUID registrationId;
+
     @Column(name = "created_at", updatable = false)
     private Instant createdAt;
 
@@ -0,0 +1,7 @@
+package com.kozitskiy.userservice.exception;
+
+public class UserAlreadyExistsException extends RuntimeException{
+    public UserAlreadyExistsException(String message){
+        super(message);
+    }
+}
@@ -0,0 +1,83 @@
+package com.kozitskiy.userservice.kafka.consumer;
+
+import com.kozitskiy.dto.KafkaTopics;
+import com.kozitskiy.dto.UserProfileResultEvent;
+import com.kozitskiy.dto.UserRegisteredEvent;
+import com.kozitskiy.userservice.dto.UserRequest;
+import com.kozitskiy.userservice.dto.UserResponse;
+import com.kozitskiy.userservice.exception.UserAlreadyExistsException;
+import com.kozitskiy.userservice.kafka.producer.UserEventProducer;
+import com.kozitskiy.userservice.service.user.UserService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Creates the profile of a user registered in auth-service and reports the outcome back. Events
+ * are keyed by email, so the events of one email arrive in order on one partition. Profiles are
+ * stored with the registration id, so a redelivered event finds the profile it created and
+ * reports success again.
+ * <p>
+ * An invalid profile, or an email that already has a profile from elsewhere, is reported as
+ * failed. Other errors, such as the database being down, are left to the listener's retries.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserRegisteredConsumer {
+
+    private final UserService userService;
+    private final UserEventProducer userEventProducer;
+    private final Validator validator;
+
+    @KafkaListener(topics = KafkaTopics.USER_REGISTERED, groupId = "user-service-group")
+    public void handleUserRegistered(UserRegisteredEvent event){
+        log.info("Received registration {}", event.registrationId());
+
+        UserRequest request = UserRequest.builder()
+                .name(event.name())
+                .surname(event.surname())
+                .birthDate(event.birthDate())
+                .email(event.email())
+                .build();
+
+        Set<ConstraintViolation<UserRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()){
+            String reason = violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+            log.warn("Rejected registration {}: {}", event.registrationId(), reason);
+            sendFailure(event, reason);
+            return;
+        }
+
+        UserResponse user;
+        try {
+            user = userService.createUserIfAbsent(event.registrationId(), request);
+        } catch (UserAlreadyExistsException e) {
+            log.warn("Rejected registration {}: {}", event.registrationId(), e.getMessage());
+            sendFailure(event, e.getMessage());
+            return;
+        }
+        userEventProducer.sendProfileResult(UserProfileResultEvent.builder()
+                .registrationId(event.registrationId())
+                .userId(user.id())
+                .status("SUCCESS")
+                .build());
+    }
+
+    private void sendFailure(UserRegisteredEvent event, String reason){
+        userEventProducer.sendProfileResult(UserProfileResultEvent.builder()
+                .registrationId(event.registrationId())
+                .status("FAILED")
+                .reason(reason)
+                .build());
+    }
+}
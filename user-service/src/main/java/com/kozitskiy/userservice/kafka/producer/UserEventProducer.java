@@ -0,0 +1,40 @@
+package com.kozitskiy.userservice.kafka.producer;
+
+import com.kozitskiy.dto.KafkaTopics;
+import com.kozitskiy.dto.UserProfileResultEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserEventProducer {
+
+    private static final long SEND_TIMEOUT_SECONDS = 10;
+
+    private final KafkaTemplate<String, UserProfileResultEvent> kafkaTemplate;
+
+    // Waits for the broker: a result that was never written must fail the listener, so the
+    // registration event is redelivered instead of its offset being committed
+    public void sendProfileResult(UserProfileResultEvent event){
+        log.info("Sending profile result for registration {}: {}", event.registrationId(), event.status());
+
+        try {
+            kafkaTemplate.send(KafkaTopics.USER_PROFILE_RESULT, String.valueOf(event.registrationId()), event)
+                    .get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KafkaException("Interrupted while sending profile result for registration " + event.registrationId(), e);
+        } catch (ExecutionException | TimeoutException e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            throw new KafkaException("Could not send profile result for registration " + event.registrationId(), cause);
+        }
+    }
+}
@@ -5,10 +5,13 @@ import com.kozitskiy.userservice.dto.UserResponse;
 import com.kozitskiy.userservice.dto.UserWithCardResponse;
 
 import java.util.List;
+import java.util.UUID;
 
 public interface UserService {
     UserResponse createUser(UserRequest userDao);
 
+    UserResponse createUserIfAbsent(UUID registrationId, UserRequest request);
+
     UserResponse getUserById(long id);
 
     List<UserResponse> getAllUsers();
@@ -6,6 +6,7 @@ import com.kozitskiy.userservice.dto.UserResponse;
 import com.kozitskiy.userservice.dto.UserWithCardResponse;
 import com.kozitskiy.userservice.entity.Card;
 import com.kozitskiy.userservice.entity.User;
+import com.kozitskiy.userservice.exception.UserAlreadyExistsException;
 import com.kozitskiy.userservice.exception.UserNotFoundException;
 import com.kozitskiy.userservice.repository.CardRepository;
 import com.kozitskiy.userservice.repository.UserRepository;
@@ -21,6 +22,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -44,6 +46,27 @@ public class UserServiceImpl implements UserService{
         return userMapper.toDto(userRepository.save(user));
     }
 
+    // Registration events are delivered at least once: a redelivery finds the profile it created before.
+    // A profile of the same email that another registration or a direct call created is not adopted
+    @Override
+    @Transactional
+    @Caching(put = {
+            @CachePut(value = USER_CACHE, key = "#result.id"),
+            @CachePut(value = USER_CACHE, key = "#result.email")
+    })
+    public UserResponse createUserIfAbsent(UUID registrationId, UserRequest request) {
+        return userRepository.findByRegistrationId(registrationId)
+                .map(userMapper::toDto)
+                .orElseGet(() -> {
+                    if (userRepository.findByEmail(request.email().toLowerCase().trim()).isPresent()) {
+                        throw new UserAlreadyExistsException("A profile already exists for email: " + request.email());
+                    }
+                    User user = userMapper.toEntity(request);
+                    user.setRegistrationId(registrationId);
+                    return userMapper.toDto(userRepository.save(user));
+                });
+    }
+
     @Override
     @Transactional(readOnly = true)
     @Cacheable(value = USER_CACHE, key = "#id", sync = true)
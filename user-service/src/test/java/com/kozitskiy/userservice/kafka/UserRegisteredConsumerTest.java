@@ -0,0 +1,133 @@
+package com.kozitskiy.userservice.kafka;
+
+import com.kozitskiy.dto.UserProfileResultEvent;
+import com.kozitskiy.dto.UserRegisteredEvent;
+import com.kozitskiy.userservice.dto.UserRequest;
+import com.kozitskiy.userservice.dto.UserResponse;
+import com.kozitskiy.userservice.exception.UserAlreadyExistsException;
+import com.kozitskiy.userservice.kafka.consumer.UserRegisteredConsumer;
+import com.kozitskiy.userservice.kafka.producer.UserEventProducer;
+import com.kozitskiy.userservice.service.user.UserService;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserRegisteredConsumerTest {
+
+    @Mock
+    private UserService userService;
+    @Mock
+    private UserEventProducer userEventProducer;
+
+    private ValidatorFactory validatorFactory;
+    private UserRegisteredConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        Validator validator = validatorFactory.getValidator();
+        consumer = new UserRegisteredConsumer(userService, userEventProducer, validator);
+    }
+
+    @AfterEach
+    void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Test
+    @DisplayName("Should create the profile and report success")
+    void handleUserRegistered_WhenValid_ShouldReportSuccess() {
+        UUID registrationId = UUID.randomUUID();
+        when(userService.createUserIfAbsent(any(UUID.class), any(UserRequest.class)))
+                .thenReturn(new UserResponse(7L, "John", "Doe", "john@example.com", LocalDate.of(1990, 1, 1)));
+
+        consumer.handleUserRegistered(event(registrationId, "John"));
+
+        ArgumentCaptor<UserProfileResultEvent> result = ArgumentCaptor.forClass(UserProfileResultEvent.class);
+        verify(userEventProducer).sendProfileResult(result.capture());
+        assertThat(result.getValue().registrationId()).isEqualTo(registrationId);
+        assertThat(result.getValue().status()).isEqualTo("SUCCESS");
+        assertThat(result.getValue().userId()).isEqualTo(7L);
+    }
+
+    @Test
+    @DisplayName("Should report failure without creating an invalid profile")
+    void handleUserRegistered_WhenInvalid_ShouldReportFailure() {
+        UUID registrationId = UUID.randomUUID();
+
+        consumer.handleUserRegistered(event(registrationId, ""));
+
+        ArgumentCaptor<UserProfileResultEvent> result = ArgumentCaptor.forClass(UserProfileResultEvent.class);
+        verify(userEventProducer).sendProfileResult(result.capture());
+        assertThat(result.getValue().status()).isEqualTo("FAILED");
+        assertThat(result.getValue().reason()).contains("name");
+        verify(userService, never()).createUserIfAbsent(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should report failure when the email already has a profile from elsewhere")
+    void handleUserRegistered_WhenEmailHasAnotherProfile_ShouldReportFailure() {
+        UUID registrationId = UUID.randomUUID();
+        when(userService.createUserIfAbsent(any(UUID.class), any(UserRequest.class)))
+                .thenThrow(new UserAlreadyExistsException("A profile already exists for email: john@example.com"));
+
+        consumer.handleUserRegistered(event(registrationId, "John"));
+
+        ArgumentCaptor<UserProfileResultEvent> result = ArgumentCaptor.forClass(UserProfileResultEvent.class);
+        verify(userEventProducer).sendProfileResult(result.capture());
+        assertThat(result.getValue().registrationId()).isEqualTo(registrationId);
+        assertThat(result.getValue().status()).isEqualTo("FAILED");
+        assertThat(result.getValue().userId()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should fail the listener when the result cannot be sent, so the event is redelivered")
+    void handleUserRegistered_WhenSendFails_ShouldThrow() {
+        @SuppressWarnings("unchecked")
+        KafkaTemplate<String, UserProfileResultEvent> kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(anyString(), anyString(), any(UserProfileResultEvent.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker unavailable")));
+        when(userService.createUserIfAbsent(any(UUID.class), any(UserRequest.class)))
+                .thenReturn(new UserResponse(7L, "John", "Doe", "john@example.com", LocalDate.of(1990, 1, 1)));
+        UserRegisteredConsumer sending = new UserRegisteredConsumer(
+                userService, new UserEventProducer(kafkaTemplate), validatorFactory.getValidator());
+
+        assertThatThrownBy(() -> sending.handleUserRegistered(event(UUID.randomUUID(), "John")))
+                .isInstanceOf(KafkaException.class)
+                .hasRootCauseMessage("broker unavailable");
+    }
+
+    private static UserRegisteredEvent event(UUID registrationId, String name) {
+        return UserRegisteredEvent.builder()
+                .registrationId(registrationId)
+                .email("john@example.com")
+                .name(name)
+                .surname("Doe")
+                .birthDate(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+}
@@ -7,6 +7,7 @@ import com.kozitskiy.userservice.dto.UserResponse;
 import com.kozitskiy.userservice.dto.UserWithCardResponse;
 import com.kozitskiy.userservice.entity.Card;
 import com.kozitskiy.userservice.entity.User;
+import com.kozitskiy.userservice.exception.UserAlreadyExistsException;
 import com.kozitskiy.userservice.exception.UserNotFoundException;
 import com.kozitskiy.userservice.mapper.CardMapper;
 import com.kozitskiy.userservice.mapper.UserMapper;
@@ -25,6 +26,7 @@ import org.springframework.data.domain.Pageable;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -66,6 +68,54 @@ class UserServiceImplTest {
         verify(userRepository, times(1)).save(user);
     }
 
+    @Test
+    @DisplayName("Should create a user for a new registration")
+    void createUserIfAbsent_WhenEmailIsNew_ShouldSaveUser() {
+        UUID registrationId = UUID.randomUUID();
+        UserRequest request = new UserRequest("John", "Doe", LocalDate.of(1990, 1, 1), "John@Example.com");
+        User user = new User();
+        UserResponse expectedResponse = new UserResponse(1L, "John", "Doe", "john@example.com", LocalDate.of(1990, 1, 1));
+
+        when(userRepository.findByRegistrationId(registrationId)).thenReturn(Optional.empty());
+        when(userRepository.findByEmail("john@example.com")).thenReturn(Optional.empty());
+        when(userMapper.toEntity(request)).thenReturn(user);
+        when(userRepository.save(user)).thenReturn(user);
+        when(userMapper.toDto(user)).thenReturn(expectedResponse);
+
+        assertThat(userService.createUserIfAbsent(registrationId, request)).isEqualTo(expectedResponse);
+        assertThat(user.getRegistrationId()).isEqualTo(registrationId);
+        verify(userRepository).save(user);
+    }
+
+    @Test
+    @DisplayName("Should return the existing user for a redelivered registration")
+    void createUserIfAbsent_WhenRegistrationExists_ShouldNotSave() {
+        UUID registrationId = UUID.randomUUID();
+        UserRequest request = new UserRequest("John", "Doe", LocalDate.of(1990, 1, 1), "john@example.com");
+        User existing = new User();
+        UserResponse expectedResponse = new UserResponse(1L, "John", "Doe", "john@example.com", LocalDate.of(1990, 1, 1));
+
+        when(userRepository.findByRegistrationId(registrationId)).thenReturn(Optional.of(existing));
+        when(userMapper.toDto(existing)).thenReturn(expectedResponse);
+
+        assertThat(userService.createUserIfAbsent(registrationId, request)).isEqualTo(expectedResponse);
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should not adopt a profile another registration or a direct call created")
+    void createUserIfAbsent_WhenEmailHasAnotherProfile_ShouldThrow() {
+        UUID registrationId = UUID.randomUUID();
+        UserRequest request = new UserRequest("John", "Doe", LocalDate.of(1990, 1, 1), "john@example.com");
+
+        when(userRepository.findByRegistrationId(registrationId)).thenReturn(Optional.empty());
+        when(userRepository.findByEmail("john@example.com")).thenReturn(Optional.of(new User()));
+
+        assertThatThrownBy(() -> userService.createUserIfAbsent(registrationId, request))
+                .isInstanceOf(UserAlreadyExistsException.class);
+        verify(userRepository, never()).save(any());
+    }
+
     @Test
     @DisplayName("Should return user when found by ID")
     void getUserById_WhenUserExists_ShouldReturnResponse() {